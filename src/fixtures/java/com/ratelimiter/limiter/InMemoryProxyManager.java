@@ -0,0 +1,78 @@
+package com.ratelimiter.limiter;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process stand-in for the Redis bucket stores: serialized bucket state in a map, swapped the way
+ * {@link RedisCompareAndSwapProxyManager} swaps it in Redis, so benchmarks and the load harness measure the limiter's
+ * own cost (bucket proxies, commands and state serialization) without a network round trip.
+ */
+public class InMemoryProxyManager extends AbstractCompareAndSwapBasedProxyManager<UUID> {
+    private final ConcurrentMap<UUID, byte[]> states = new ConcurrentHashMap<>();
+
+    public InMemoryProxyManager() {
+        super(ClientSideConfig.getDefault());
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(UUID id) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                return Optional.ofNullable(states.get(id));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState,
+                                          Optional<Long> timeoutNanos) {
+                // arrays compare by identity, and originalData is the very array read from the map
+                return originalData == null ? states.putIfAbsent(id, newData) == null
+                        : states.replace(id, originalData, newData);
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(UUID id) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(id);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(operation.getStateData(timeoutNanos));
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(
+                        operation.compareAndSwap(originalData, newData, newState, timeoutNanos));
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(UUID id) {
+        states.remove(id);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(UUID id) {
+        states.remove(id);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.example.grpc.service;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code tryAcquire} over a pool of distinct callers from four threads, through a map of Bucket4j buckets (the former
+ * {@link RateLimiterService} store), through {@link PackedBucketStore} alone and through the service's cache in front
+ * of a packed store. Every trial starts by placing all callers and prints the heap retained per caller: {@code -Djmh.args="LocalBucketStoreBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LocalBucketStoreBenchmark {
+    private static final long TOKENS = 600;
+    private static final Duration REFILL = Duration.ofHours(1);
+
+    @Param({"bucket4j", "packed", "service"})
+    private String store;
+
+    @Param("1000000")
+    private int callers;
+
+    private String[] keys;
+    private Map<String, Bucket> bucketMap;
+    private PackedBucketStore packedStore;
+    private RateLimiterService service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = new String[callers];
+        for (int i = 0; i < callers; i++) {
+            keys[i] = "user-" + i;
+        }
+        long before = usedHeap();
+        if ("bucket4j".equals(store)) {
+            bucketMap = new ConcurrentHashMap<>();
+        } else if ("service".equals(store)) {
+            HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+            props.setUsers(new HierarchicalRateLimitProperties.UserDefaults());
+            props.getUsers().setDefaultPerTenant(TOKENS);
+            service = new RateLimiterService(props);
+        } else {
+            // half full, so windows rarely overflow
+            packedStore = new PackedBucketStore(2 * callers, TOKENS, REFILL);
+        }
+        for (String key : keys) {
+            tryAcquire(key);
+        }
+        System.out.printf("%n%s: %d bytes of heap per caller%n", store, (usedHeap() - before) / callers);
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return tryAcquire(keys[ThreadLocalRandom.current().nextInt(callers)]);
+    }
+
+    private boolean tryAcquire(String key) {
+        if (packedStore != null) {
+            return packedStore.tryConsume(key);
+        }
+        if (service != null) {
+            return service.tryAcquire(key);
+        }
+        return bucketMap.computeIfAbsent(key, k -> Bucket.builder()
+                .addLimit(Bandwidth.classic(TOKENS, Refill.greedy(TOKENS, REFILL)))
+                .build()).tryConsume(1);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.grpc.service;
+
+import com.ratelimiter.benchmark.AllocationBudget;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code tryAcquire} of the gRPC fallback limiter over a pool of callers that all fit its cache, the steady state of
+ * the interceptor's fallback path; {@link LocalBucketStoreBenchmark} covers callers spilling into the packed store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterServiceBenchmark {
+    private static final int CALLERS = 1024;
+
+    private RateLimiterService service;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.setUsers(new HierarchicalRateLimitProperties.UserDefaults());
+        props.getUsers().setDefaultPerTenant(1000);
+        service = new RateLimiterService(props);
+        keys = new String[CALLERS];
+        for (int i = 0; i < CALLERS; i++) {
+            keys[i] = "tenant:user-" + i;
+        }
+    }
+
+    @Benchmark
+    @AllocationBudget(64)
+    public boolean tryAcquire() {
+        return service.tryAcquire(keys[ThreadLocalRandom.current().nextInt(CALLERS)]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.ratelimiter.benchmark;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most bytes a benchmark method may allocate per operation, as reported by the GC profiler's
+ * {@code gc.alloc.rate.norm}. {@link BudgetedBenchmarkRunner} fails the run when any parameter combination exceeds it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AllocationBudget {
+    /** Bytes per operation. */
+    long value();
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.ratelimiter.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Entry point of the {@code benchmark} profile: takes the arguments of {@link Main}, runs the selected benchmarks with
+ * the GC profiler and exits with status 1 when a benchmark allocates more per operation than its
+ * {@link AllocationBudget}, so {@code mvn -Pbenchmark verify} fails on allocation regressions. Throughput (ops/s or
+ * the benchmark's own unit) and {@code gc.alloc.rate.norm} are printed by JMH as usual.
+ */
+public final class BudgetedBenchmarkRunner {
+    // JMH 1.37 dropped the leading dot of earlier releases
+    private static final List<String> ALLOCATION_METRICS = List.of("gc.alloc.rate.norm", "·gc.alloc.rate.norm");
+
+    private BudgetedBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        List<String> exceeded = new ArrayList<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            Optional<AllocationBudget> budget = budget(params.getBenchmark());
+            Optional<Result> allocated = ALLOCATION_METRICS.stream()
+                    .map(metric -> result.getSecondaryResults().get(metric))
+                    .filter(metric -> metric != null)
+                    .findFirst();
+            if (budget.isEmpty()) {
+                continue;
+            }
+            String label = label(params);
+            if (allocated.isEmpty()) {
+                System.out.printf("%s: allocation budget not checked, run with -prof gc%n", label);
+            } else if (allocated.get().getScore() > budget.get().value()) {
+                exceeded.add(String.format("%s allocates %.1f B/op, budget %d B/op", label,
+                        allocated.get().getScore(), budget.get().value()));
+            }
+        }
+        if (!exceeded.isEmpty()) {
+            System.out.println();
+            System.out.println("Allocation budgets exceeded:");
+            exceeded.forEach(line -> System.out.println("  " + line));
+            System.exit(1);
+        }
+    }
+
+    private static Optional<AllocationBudget> budget(String benchmark) throws ClassNotFoundException {
+        int dot = benchmark.lastIndexOf('.');
+        Class<?> type = Class.forName(benchmark.substring(0, dot));
+        String name = benchmark.substring(dot + 1);
+        return Arrays.stream(type.getMethods())
+                .filter(method -> method.getName().equals(name))
+                .map(method -> method.getAnnotation(AllocationBudget.class))
+                .filter(annotation -> annotation != null)
+                .findFirst();
+    }
+
+    private static String label(BenchmarkParams params) {
+        StringBuilder label = new StringBuilder(params.getBenchmark());
+        for (String key : params.getParamsKeys()) {
+            label.append(' ').append(key).append('=').append(params.getParam(key));
+        }
+        return label.toString();
+    }
+}
\ No newline at end of file
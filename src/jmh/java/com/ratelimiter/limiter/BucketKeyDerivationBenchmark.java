@@ -0,0 +1,61 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key derivation cost per decision: the former string concatenation plus MD5 of all three levels against
+ * {@link BucketKeyDerivation}. Run with {@code -prof gc} to compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketKeyDerivationBenchmark {
+    private BucketKeyDerivation keys;
+    private String tenantId;
+    private UUID userId;
+
+    @Setup
+    public void setup() {
+        keys = new BucketKeyDerivation(new HierarchicalRateLimitProperties());
+        tenantId = "premium";
+        userId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public void nameBasedKeys(Blackhole blackhole) {
+        blackhole.consume(UUID.nameUUIDFromBytes("ratelimit:global".getBytes()));
+        blackhole.consume(UUID.nameUUIDFromBytes(("ratelimit:tenant:" + tenantId).getBytes()));
+        blackhole.consume(UUID.nameUUIDFromBytes(("ratelimit:user:" + userId).getBytes()));
+    }
+
+    @Benchmark
+    public void derivedProxyIds(Blackhole blackhole) {
+        blackhole.consume(keys.global().id());
+        blackhole.consume(keys.tenant(tenantId).id());
+        blackhole.consume(keys.user(tenantId, userId).id());
+    }
+
+    @Benchmark
+    public void derivedScriptNames(Blackhole blackhole) {
+        blackhole.consume(keys.global().name());
+        blackhole.consume(keys.tenant(tenantId).name());
+        blackhole.consume(keys.user(tenantId, userId).name());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.benchmark.AllocationBudget;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code isAllowed(tenantId, userId)} in proxy evaluation mode over a pool of users of one tenant, every level kept in
+ * an {@link InMemoryProxyManager}: the cost of key derivation, three bucket proxies and their state serialization,
+ * without Redis. Limits are high enough that every request is admitted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchicalRateLimiterBenchmark {
+    private static final int USERS = 1024;
+    private static final long UNLIMITED = 1_000_000_000_000L;
+
+    private HierarchicalRateLimiterService service;
+    private String[] userIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.setGlobal(limit(UNLIMITED));
+        props.setTenants(Map.of("standard", limit(UNLIMITED)));
+        HierarchicalRateLimitProperties.UserDefaults users = new HierarchicalRateLimitProperties.UserDefaults();
+        users.setDefaultPerTenant(UNLIMITED);
+        props.setUsers(users);
+        service = new HierarchicalRateLimiterService(props, new InMemoryProxyManager(), null,
+                new BucketKeyDerivation(props), new BucketConfigurationRegistry(props));
+        userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    @AllocationBudget(6_144)
+    public HierarchicalRateLimitResult isAllowed() {
+        return service.isAllowed("standard", userIds[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    private static HierarchicalRateLimitProperties.LimitSpec limit(long limitPerHour) {
+        HierarchicalRateLimitProperties.LimitSpec spec = new HierarchicalRateLimitProperties.LimitSpec();
+        spec.setLimitPerHour(limitPerHour);
+        return spec;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.ratelimiter.limiter;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.grid.jcache.JCacheProxyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.config.Config;
+import org.redisson.jcache.configuration.RedissonConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code tryConsume(1)} against a live Redis through each bucket store, spread over a pool of bucket ids.
+ * Needs a reachable Redis, e.g. {@code -Djmh.args="ProxyManagerBenchmark -prof gc -p redisUrl=redis://localhost:6379"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyManagerBenchmark {
+    private static final int BUCKETS = 1024;
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(1_000_000_000).refillGreedy(1_000_000_000, Duration.ofHours(1)))
+            .build();
+
+    @Param({"jcache", "redis-cas"})
+    private String store;
+
+    @Param("redis://localhost:6379")
+    private String redisUrl;
+
+    private ProxyManager<UUID> proxyManager;
+    private CacheManager cacheManager;
+    private LettuceConnectionFactory connectionFactory;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ids = new UUID[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            ids[i] = UUID.randomUUID();
+        }
+        if ("jcache".equals(store)) {
+            Config config = new Config();
+            config.useSingleServer().setAddress(redisUrl);
+            cacheManager = Caching.getCachingProvider().getCacheManager();
+            String cacheName = "rate-limit-benchmark";
+            if (cacheManager.getCache(cacheName) == null) {
+                cacheManager.createCache(cacheName, RedissonConfiguration.fromConfig(config));
+            }
+            proxyManager = new JCacheProxyManager<>(cacheManager.getCache(cacheName));
+        } else {
+            URI uri = URI.create(redisUrl);
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+            connectionFactory.afterPropertiesSet();
+            proxyManager = new RedisCompareAndSwapProxyManager(connectionFactory,
+                    ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofSeconds(10)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (UUID id : ids) {
+            proxyManager.removeProxy(id);
+        }
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Benchmark
+    public boolean tryConsume() {
+        UUID id = ids[ThreadLocalRandom.current().nextInt(BUCKETS)];
+        return proxyManager.builder().build(id, CONFIGURATION).tryConsume(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.ratelimiter.limiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One single-level decision per algorithm against a live Redis, spread over a pool of keys, followed by the average
+ * {@code MEMORY USAGE} of a key once the trial is over. Needs a reachable Redis, e.g.
+ * {@code -Djmh.args="RateLimitAlgorithmBenchmark -p redisUrl=redis://localhost:6379"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitAlgorithmBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({"TOKEN_BUCKET", "GCRA", "SLIDING_WINDOW_COUNTER", "SLIDING_WINDOW_LOG"})
+    private RateLimitAlgorithm algorithm;
+
+    @Param("100")
+    private long limit;
+
+    @Param("redis://localhost:6379")
+    private String redisUrl;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private HierarchicalScriptEvaluator evaluator;
+    private RateLimitAlgorithm[] algorithms;
+    private List<List<String>> keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        URI uri = URI.create(redisUrl);
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        evaluator = new HierarchicalScriptEvaluator(redisTemplate);
+        algorithms = new RateLimitAlgorithm[] {algorithm};
+        keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(List.of(algorithm.key("ratelimit:benchmark:" + UUID.randomUUID())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long bytes = 0;
+        for (List<String> key : keys) {
+            byte[] name = key.get(0).getBytes(StandardCharsets.UTF_8);
+            Long usage = redisTemplate.execute((RedisCallback<Long>) connection ->
+                    (Long) connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), name));
+            bytes += usage != null ? usage : 0;
+        }
+        System.out.printf("%n%s: %d bytes per key at a limit of %d%n", algorithm, bytes / KEYS, limit);
+        redisTemplate.delete(keys.stream().map(key -> key.get(0)).toList());
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public List<Long> decide() {
+        return evaluator.consume(keys.get(ThreadLocalRandom.current().nextInt(KEYS)), 1, algorithms, limit);
+    }
+}
\ No newline at end of file
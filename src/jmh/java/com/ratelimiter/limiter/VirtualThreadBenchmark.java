@@ -0,0 +1,117 @@
+package com.ratelimiter.limiter;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.grid.jcache.JCacheProxyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.config.Config;
+import org.redisson.jcache.configuration.RedissonConfiguration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of blocking {@code tryConsume(1)} calls against a live Redis through the JCache (Redisson) bucket store,
+ * {@value #REQUESTS} requests in flight at once: on a fixed pool of {@code poolSize} platform threads, as Tomcat's
+ * default 200 worker threads would run them, or on one virtual thread per request as with
+ * {@code spring.threads.virtual.enabled}. Scores are requests per second. Needs a reachable Redis, e.g.
+ * {@code -Djmh.args="VirtualThreadBenchmark -p redisUrl=redis://localhost:6379"}; add
+ * {@code -jvmArgsAppend -Djdk.tracePinnedThreads=short} to print any pinned stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    private static final int REQUESTS = 2000;
+    private static final int BUCKETS = 1024;
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(1_000_000_000).refillGreedy(1_000_000_000, Duration.ofHours(1)))
+            .build();
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param("200")
+    private int poolSize;
+
+    @Param("redis://localhost:6379")
+    private String redisUrl;
+
+    private ExecutorService executor;
+    private ProxyManager<UUID> proxyManager;
+    private CacheManager cacheManager;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ids = new UUID[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            ids[i] = UUID.randomUUID();
+        }
+        Config config = new Config();
+        config.useSingleServer().setAddress(redisUrl);
+        cacheManager = Caching.getCachingProvider().getCacheManager();
+        String cacheName = "virtual-thread-benchmark";
+        if (cacheManager.getCache(cacheName) == null) {
+            cacheManager.createCache(cacheName, RedissonConfiguration.fromConfig(config));
+        }
+        proxyManager = new JCacheProxyManager<>(cacheManager.getCache(cacheName));
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(poolSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+        for (UUID id : ids) {
+            proxyManager.removeProxy(id);
+        }
+        cacheManager.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int tryConsume() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        AtomicInteger consumed = new AtomicInteger();
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(() -> {
+                try {
+                    UUID id = ids[ThreadLocalRandom.current().nextInt(BUCKETS)];
+                    if (proxyManager.builder().build(id, CONFIGURATION).tryConsume(1)) {
+                        consumed.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return consumed.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.ratelimiter.rls;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.decision.DecisionRequest;
+import com.ratelimiter.decision.DecisionResponse;
+import com.ratelimiter.decision.RateLimitDecisionGrpc;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decisions per millisecond through the unary Decide RPC (all calls of an invocation in flight at once) and through
+ * one long-lived Check stream, over a loopback HTTP/2 connection. The limiter answers from memory, so only the RPC
+ * cost is measured: {@code -Djmh.args="DecisionStreamBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionStreamBenchmark {
+    private static final int DECISIONS = 1000;
+    private static final HierarchicalRateLimitResult ALLOWED =
+            new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 1, 1, 1);
+
+    private ExecutorService executor;
+    private Server server;
+    private ManagedChannel channel;
+    private RateLimitDecisionGrpc.RateLimitDecisionFutureStub unary;
+    private StreamObserver<DecisionRequest> stream;
+    private volatile CountDownLatch pending;
+    private DecisionRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        HierarchicalRateLimiterService limiter = new HierarchicalRateLimiterService(new HierarchicalRateLimitProperties(), null, null, null, null) {
+            @Override
+            public HierarchicalRateLimitResult isAllowed(HierarchicalRateLimitRequest request) {
+                return ALLOWED;
+            }
+        };
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(new RateLimitDecisionService(limiter, executor))
+                .build().start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+        unary = RateLimitDecisionGrpc.newFutureStub(channel);
+        stream = RateLimitDecisionGrpc.newStub(channel).check(new StreamObserver<>() {
+            @Override
+            public void onNext(DecisionResponse response) { pending.countDown(); }
+
+            @Override
+            public void onError(Throwable t) { throw new IllegalStateException(t); }
+
+            @Override
+            public void onCompleted() { }
+        });
+        requests = new DecisionRequest[DECISIONS];
+        for (int i = 0; i < DECISIONS; i++) {
+            requests[i] = DecisionRequest.newBuilder().setTenantId("standard").setUserId("user-" + i).setCorrelationId(i).build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        stream.onCompleted();
+        channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DECISIONS)
+    public List<DecisionResponse> unary() throws Exception {
+        List<ListenableFuture<DecisionResponse>> calls = new ArrayList<>(DECISIONS);
+        for (DecisionRequest request : requests) {
+            calls.add(unary.decide(request));
+        }
+        return Futures.allAsList(calls).get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DECISIONS)
+    public void stream() throws Exception {
+        CountDownLatch latch = new CountDownLatch(DECISIONS);
+        pending = latch;
+        for (DecisionRequest request : requests) {
+            stream.onNext(request);
+        }
+        latch.await();
+    }
+}
\ No newline at end of file
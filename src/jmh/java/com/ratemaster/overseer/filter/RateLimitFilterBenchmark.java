@@ -0,0 +1,217 @@
+package com.ratemaster.overseer.filter;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ratelimiter.benchmark.AllocationBudget;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalScriptEvaluator;
+import com.ratelimiter.limiter.RateLimitAlgorithm;
+import com.ratelimiter.metrics.HeavyHitters;
+import com.ratemaster.overseer.configuration.OpenApiConfigurationProperties;
+import com.ratemaster.overseer.configuration.RateLimit;
+import com.ratemaster.overseer.service.RateLimitingService;
+import com.ratemaster.overseer.utility.ApiEndpointSecurityInspector;
+import com.ratemaster.overseer.utility.AuthenticatedPrincipal;
+import com.ratemaster.overseer.utility.AuthenticatedUserIdProvider;
+import com.ratemaster.overseer.utility.RateLimitPolicyRegistry;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * {@link RateLimitFilter#doFilter} for an authenticated request rejected by the endpoint specific limit of a
+ * {@link RateLimit} route, from the request's classification (cached on the request, as left behind by
+ * {@link JwtAuthenticationFilter}) through heavy hitter tracking to the 429 response body, with the application's
+ * default {@link ObjectMapper}. The endpoint bucket's script reply is canned, so Redis is not involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+	private static final List<Long> ENDPOINT_LIMIT_EXHAUSTED = List.of(1L, 0L, 6_000L);
+	private static final FilterChain UNREACHED = (request, response) -> {
+		throw new IllegalStateException("request should have been rejected");
+	};
+
+	private RateLimitFilter rateLimitFilter;
+	private BenchmarkRequest request;
+	private BenchmarkResponse response;
+
+	@Setup(Level.Trial)
+	public void setup() throws NoSuchMethodException {
+		final var requestHandlerMapping = new RequestMappingHandlerMapping();
+		final var options = new RequestMappingInfo.BuilderConfiguration();
+		options.setPatternParser(new PathPatternParser());
+		requestHandlerMapping.registerMapping(
+				RequestMappingInfo.paths("/api/v1/report/{id}").methods(RequestMethod.POST).options(options).build(),
+				new Handlers(), Handlers.class.getMethod("limitedEndpoint"));
+		final var rateLimitPolicyRegistry = new RateLimitPolicyRegistry(requestHandlerMapping);
+		rateLimitPolicyRegistry.init();
+		final var apiEndpointSecurityInspector = new ApiEndpointSecurityInspector(requestHandlerMapping,
+				new OpenApiConfigurationProperties(), rateLimitPolicyRegistry);
+		apiEndpointSecurityInspector.init();
+
+		final var scriptEvaluator = new HierarchicalScriptEvaluator(null) {
+			@Override
+			public List<Long> consume(final List<String> keys, final long cost, final Duration period,
+					final RateLimitAlgorithm[] algorithms, final long... limits) {
+				return ENDPOINT_LIMIT_EXHAUSTED;
+			}
+		};
+		final var rateLimitingService = new RateLimitingService(null, null, null, null, null, scriptEvaluator, null);
+		rateLimitFilter = new RateLimitFilter(new ObjectMapper(), rateLimitingService, new AuthenticatedUserIdProvider(),
+				apiEndpointSecurityInspector, null, new HeavyHitters(new HierarchicalRateLimitProperties()));
+
+		final var principal = new AuthenticatedPrincipal(UUID.randomUUID(), "premium");
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, null));
+		request = new BenchmarkRequest("POST", "/api/v1/report/42");
+		response = new BenchmarkResponse();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Benchmark
+	@AllocationBudget(2_048)
+	public int doFilter() throws Exception {
+		rateLimitFilter.doFilter(request, response, UNREACHED);
+		return response.status;
+	}
+
+	public static class Handlers {
+
+		@RateLimit(cost = 3, capacity = 10, window = "1m", key = RateLimit.Key.TENANT)
+		public void limitedEndpoint() {
+		}
+
+	}
+
+	/**
+	 * Request exposing only its method, path, dispatcher type and attributes; anything else fails.
+	 */
+	private static class BenchmarkRequest extends HttpServletRequestWrapper {
+
+		private final String method;
+		private final String requestUri;
+		private final Map<String, Object> attributes = new HashMap<>();
+
+		private BenchmarkRequest(final String method, final String requestUri) {
+			super((HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+					new Class<?>[] { HttpServletRequest.class }, (proxy, invoked, args) -> {
+						throw new UnsupportedOperationException(invoked.getName());
+					}));
+			this.method = method;
+			this.requestUri = requestUri;
+		}
+
+		@Override
+		public String getMethod() {
+			return method;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return requestUri;
+		}
+
+		@Override
+		public String getContextPath() {
+			return "";
+		}
+
+		@Override
+		public DispatcherType getDispatcherType() {
+			return DispatcherType.REQUEST;
+		}
+
+		@Override
+		public Object getAttribute(final String name) {
+			return attributes.get(name);
+		}
+
+		@Override
+		public void setAttribute(final String name, final Object value) {
+			attributes.put(name, value);
+		}
+
+		@Override
+		public void removeAttribute(final String name) {
+			attributes.remove(name);
+		}
+
+	}
+
+	/**
+	 * Response keeping only its status, discarding headers and body; anything else fails.
+	 */
+	private static class BenchmarkResponse extends HttpServletResponseWrapper {
+
+		private final PrintWriter writer = new PrintWriter(Writer.nullWriter());
+		private int status;
+
+		private BenchmarkResponse() {
+			super((HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+					new Class<?>[] { HttpServletResponse.class }, (proxy, invoked, args) -> {
+						throw new UnsupportedOperationException(invoked.getName());
+					}));
+		}
+
+		@Override
+		public void setStatus(final int status) {
+			this.status = status;
+		}
+
+		@Override
+		public void setContentType(final String type) {
+		}
+
+		@Override
+		public void setHeader(final String name, final String value) {
+		}
+
+		@Override
+		public PrintWriter getWriter() {
+			return writer;
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.ratemaster.overseer.utility;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.ratelimiter.benchmark.AllocationBudget;
+import com.ratemaster.overseer.configuration.BypassRateLimit;
+import com.ratemaster.overseer.configuration.OpenApiConfigurationProperties;
+import com.ratemaster.overseer.configuration.PublicEndpoint;
+import com.ratemaster.overseer.configuration.RateLimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * {@link ApiEndpointSecurityInspector#isUnsecureRequest(HttpServletRequest)} on the first evaluation of a request,
+ * against routes mirroring the application's controllers plus a templated one, for a literal public route, a literal
+ * private route and the templated route. Each invocation clears the request's classification, so it is computed again
+ * every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiEndpointSecurityInspectorBenchmark {
+
+	private static final String CLASSIFICATION_ATTRIBUTE = ApiEndpointSecurityInspector.RequestClassification.class.getName();
+
+	@Param({ "POST /api/v1/auth/login", "GET /api/v1/joke", "POST /api/v1/report/42" })
+	private String route;
+
+	private ApiEndpointSecurityInspector apiEndpointSecurityInspector;
+	private BenchmarkRequest request;
+
+	@Setup(Level.Trial)
+	public void setup() throws NoSuchMethodException {
+		final var requestHandlerMapping = new RequestMappingHandlerMapping();
+		register(requestHandlerMapping, RequestMethod.POST, "/api/v1/user", "publicEndpoint");
+		register(requestHandlerMapping, RequestMethod.POST, "/api/v1/auth/login", "publicEndpoint");
+		register(requestHandlerMapping, RequestMethod.GET, "/api/v1/plan", "publicEndpoint");
+		register(requestHandlerMapping, RequestMethod.PUT, "/api/v1/plan", "bypassedEndpoint");
+		register(requestHandlerMapping, RequestMethod.GET, "/api/v1/joke", "privateEndpoint");
+		register(requestHandlerMapping, RequestMethod.POST, "/api/v1/report/{id}", "limitedEndpoint");
+
+		final var openApiConfigurationProperties = new OpenApiConfigurationProperties();
+		openApiConfigurationProperties.getOpenApi().setEnabled(true);
+		final var rateLimitPolicyRegistry = new RateLimitPolicyRegistry(requestHandlerMapping);
+		rateLimitPolicyRegistry.init();
+		apiEndpointSecurityInspector = new ApiEndpointSecurityInspector(requestHandlerMapping,
+				openApiConfigurationProperties, rateLimitPolicyRegistry);
+		apiEndpointSecurityInspector.init();
+
+		final var methodAndPath = route.split(" ");
+		request = new BenchmarkRequest(methodAndPath[0], methodAndPath[1]);
+	}
+
+	@Benchmark
+	@AllocationBudget(1_024)
+	public boolean isUnsecureRequest() {
+		request.removeAttribute(CLASSIFICATION_ATTRIBUTE);
+		return apiEndpointSecurityInspector.isUnsecureRequest(request);
+	}
+
+	private static void register(final RequestMappingHandlerMapping requestHandlerMapping, final RequestMethod method,
+			final String path, final String handlerMethod) throws NoSuchMethodException {
+		final var options = new RequestMappingInfo.BuilderConfiguration();
+		options.setPatternParser(new PathPatternParser());
+		final var mapping = RequestMappingInfo.paths(path).methods(method).options(options).build();
+		requestHandlerMapping.registerMapping(mapping, new Handlers(), Handlers.class.getMethod(handlerMethod));
+	}
+
+	public static class Handlers {
+
+		@PublicEndpoint
+		public void publicEndpoint() {
+		}
+
+		@BypassRateLimit
+		public void bypassedEndpoint() {
+		}
+
+		public void privateEndpoint() {
+		}
+
+		@RateLimit(cost = 3, capacity = 10, window = "1m", key = RateLimit.Key.TENANT)
+		public void limitedEndpoint() {
+		}
+
+	}
+
+	/**
+	 * Request exposing only its method, path and attributes; anything else fails.
+	 */
+	private static class BenchmarkRequest extends HttpServletRequestWrapper {
+
+		private final String method;
+		private final String requestUri;
+		private final Map<String, Object> attributes = new HashMap<>();
+
+		private BenchmarkRequest(final String method, final String requestUri) {
+			super((HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+					new Class<?>[] { HttpServletRequest.class }, (proxy, invoked, args) -> {
+						throw new UnsupportedOperationException(invoked.getName());
+					}));
+			this.method = method;
+			this.requestUri = requestUri;
+		}
+
+		@Override
+		public String getMethod() {
+			return method;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return requestUri;
+		}
+
+		@Override
+		public String getContextPath() {
+			return "";
+		}
+
+		@Override
+		public Object getAttribute(final String name) {
+			return attributes.get(name);
+		}
+
+		@Override
+		public void setAttribute(final String name, final Object value) {
+			attributes.put(name, value);
+		}
+
+		@Override
+		public void removeAttribute(final String name) {
+			attributes.remove(name);
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.ratemaster.overseer.utility;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ratelimiter.benchmark.AllocationBudget;
+import com.ratemaster.overseer.configuration.TokenConfigurationProperties;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+
+/**
+ * {@link JwtUtility#getUserId(String)} for a pool of access tokens presented again and again, as every request of a
+ * signed-in user presents its token: the steady state, served from the verified token cache. A token seen for the
+ * first time is verified once per lifetime and is not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilityBenchmark {
+
+	private static final int TOKENS = 1024;
+
+	private JwtUtility jwtUtility;
+	private String[] accessTokens;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		final var tokenConfigurationProperties = new TokenConfigurationProperties();
+		tokenConfigurationProperties.setSecretKey(Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded()));
+		tokenConfigurationProperties.setValidity(120);
+		jwtUtility = new JwtUtility("benchmark-issuer", tokenConfigurationProperties);
+
+		accessTokens = new String[TOKENS];
+		for (int i = 0; i < TOKENS; i++) {
+			accessTokens[i] = jwtUtility.generateAccessToken(UUID.randomUUID());
+		}
+	}
+
+	@Benchmark
+	@AllocationBudget(1_024)
+	public UUID getUserId() {
+		return jwtUtility.getUserId(accessTokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+	}
+
+}
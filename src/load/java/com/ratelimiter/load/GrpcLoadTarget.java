@@ -0,0 +1,119 @@
+package com.ratelimiter.load;
+
+import com.example.grpc.Application;
+import com.example.grpc.GetUserRequest;
+import com.example.grpc.GetUserResponse;
+import com.example.grpc.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code UserService/GetUser} of the gRPC application over a plaintext channel, through {@code RateLimitInterceptor}:
+ * every call carries the {@code tenant-id} and {@code user-id} metadata of one of a pool of users of the given tenant,
+ * so it is limited by the hierarchical global, tenant and user limits.
+ */
+final class GrpcLoadTarget implements LoadTarget {
+    private static final Metadata.Key<String> TENANT_ID_KEY =
+            Metadata.Key.of("tenant-id", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> USER_ID_KEY =
+            Metadata.Key.of("user-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ConfigurableApplicationContext context;
+    private final ManagedChannel channel;
+    private final UserServiceGrpc.UserServiceStub[] stubs;
+    private final GetUserRequest[] requests;
+
+    private GrpcLoadTarget(ConfigurableApplicationContext context, ManagedChannel channel,
+                           UserServiceGrpc.UserServiceStub[] stubs, GetUserRequest[] requests) {
+        this.context = context;
+        this.channel = channel;
+        this.stubs = stubs;
+        this.requests = requests;
+    }
+
+    /**
+     * Starts the application with its gRPC server on a free port, and a stub per user of {@code tenant}. The port is
+     * picked here, the starter's own random port support relies on a utility Spring no longer ships.
+     */
+    static GrpcLoadTarget start(String[] args, int users, String tenant) {
+        int port = freePort();
+        ConfigurableApplicationContext context = LocalBackends.application(Application.class, Map.of(
+                "server.port", "0",
+                "grpc.server.port", String.valueOf(port))).run(args);
+        ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build();
+
+        UserServiceGrpc.UserServiceStub stub = UserServiceGrpc.newStub(channel);
+        UserServiceGrpc.UserServiceStub[] stubs = new UserServiceGrpc.UserServiceStub[users];
+        GetUserRequest[] requests = new GetUserRequest[users];
+        for (int user = 0; user < users; user++) {
+            String userId = UUID.randomUUID().toString();
+            Metadata headers = new Metadata();
+            headers.put(TENANT_ID_KEY, tenant);
+            headers.put(USER_ID_KEY, userId);
+            stubs[user] = stub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+            requests[user] = GetUserRequest.newBuilder().setUserId(userId).build();
+        }
+        return new GrpcLoadTarget(context, channel, stubs, requests);
+    }
+
+    @Override
+    public String name() {
+        return "grpc UserService/GetUser";
+    }
+
+    @Override
+    public CompletableFuture<Outcome> call(long sequence) {
+        int user = (int) (sequence % stubs.length);
+        CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        stubs[user].getUser(requests[user], new StreamObserver<>() {
+            @Override
+            public void onNext(GetUserResponse response) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                outcome.complete(Status.fromThrowable(t).getCode() == Status.Code.RESOURCE_EXHAUSTED
+                        ? Outcome.DENIED : Outcome.FAILED);
+            }
+
+            @Override
+            public void onCompleted() {
+                outcome.complete(Outcome.ALLOWED);
+            }
+        });
+        return outcome;
+    }
+
+    @Override
+    public void close() {
+        channel.shutdownNow();
+        try {
+            channel.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            context.close();
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No free port for the gRPC server", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.ratelimiter.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ratemaster.overseer.RateLimitingApiApplication;
+import com.ratemaster.overseer.dto.PlanResponseDto;
+import com.ratemaster.overseer.dto.TokenSuccessResponseDto;
+import com.ratemaster.overseer.dto.UserCreationRequestDto;
+import com.ratemaster.overseer.dto.UserLoginRequestDto;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * {@code GET /api/v1/joke} of the RateMaster Overseer application, through its whole security filter chain: every call
+ * carries the access token of one of the users signed up on the given plan before the run, so each one is
+ * authenticated by the JWT filter and limited by the rate limit filter against that user's plan.
+ */
+final class HttpLoadTarget implements LoadTarget {
+    private static final String PASSWORD = "load-harness-password";
+
+    private final ConfigurableApplicationContext context;
+    private final HttpClient client;
+    private final HttpRequest[] requests;
+
+    private HttpLoadTarget(ConfigurableApplicationContext context, HttpClient client, HttpRequest[] requests) {
+        this.context = context;
+        this.client = client;
+        this.requests = requests;
+    }
+
+    /**
+     * Starts the application on a random port, without its gRPC server, and signs up {@code users} users on the plan
+     * named {@code plan}.
+     */
+    static HttpLoadTarget start(String[] args, int users, String plan) throws IOException, InterruptedException {
+        String secretKey = Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
+        ConfigurableApplicationContext context = LocalBackends.application(RateLimitingApiApplication.class, Map.of(
+                "server.port", "0",
+                "grpc.server.port", "-1",
+                "com.ratelimiter.overseer.token.secret-key", secretKey,
+                "com.ratelimiter.overseer.token.validity", "120")).run(args);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI api = URI.create("http://localhost:" + port + "/api/v1/");
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            UUID planId = planId(client, objectMapper, api, plan);
+
+            HttpRequest[] requests = new HttpRequest[users];
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<String>> tokens = new ArrayList<>(users);
+                for (int user = 0; user < users; user++) {
+                    String emailId = "load-" + user + "@ratemaster.local";
+                    tokens.add(executor.submit(() -> signUp(client, objectMapper, api, emailId, planId)));
+                }
+                for (int user = 0; user < users; user++) {
+                    requests[user] = HttpRequest.newBuilder(api.resolve("joke"))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get(user).get())
+                            .GET().build();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to sign up load harness users", e.getCause());
+            }
+            return new HttpLoadTarget(context, client, requests);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            client.close();
+            context.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "http GET /api/v1/joke";
+    }
+
+    @Override
+    public CompletableFuture<Outcome> call(long sequence) {
+        return client.sendAsync(requests[(int) (sequence % requests.length)], HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> outcome(response.statusCode()));
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        context.close();
+    }
+
+    private static Outcome outcome(int status) {
+        if (status == HttpStatus.OK.value()) {
+            return Outcome.ALLOWED;
+        }
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() ? Outcome.DENIED : Outcome.FAILED;
+    }
+
+    private static UUID planId(HttpClient client, ObjectMapper objectMapper, URI api, String plan)
+            throws IOException, InterruptedException {
+        String body = send(client, HttpRequest.newBuilder(api.resolve("plan")).GET().build(), HttpStatus.OK);
+        List<PlanResponseDto> plans = objectMapper.readValue(body, new TypeReference<>() { });
+        return plans.stream().filter(candidate -> candidate.getName().equalsIgnoreCase(plan))
+                .map(PlanResponseDto::getId).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No plan named " + plan + ", plans are "
+                        + plans.stream().map(PlanResponseDto::getName).toList()));
+    }
+
+    private static String signUp(HttpClient client, ObjectMapper objectMapper, URI api, String emailId, UUID planId)
+            throws IOException, InterruptedException {
+        UserCreationRequestDto user = new UserCreationRequestDto();
+        user.setEmailId(emailId);
+        user.setPassword(PASSWORD);
+        user.setPlanId(planId);
+        send(client, post(api.resolve("user"), objectMapper.writeValueAsString(user)), HttpStatus.CREATED);
+
+        UserLoginRequestDto login = new UserLoginRequestDto();
+        login.setEmailId(emailId);
+        login.setPassword(PASSWORD);
+        String body = send(client, post(api.resolve("auth/login"), objectMapper.writeValueAsString(login)), HttpStatus.OK);
+        return objectMapper.readValue(body, TokenSuccessResponseDto.class).getAccessToken();
+    }
+
+    private static HttpRequest post(URI uri, String body) {
+        return HttpRequest.newBuilder(uri).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static String send(HttpClient client, HttpRequest request, HttpStatus expected)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expected.value()) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.ratelimiter.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of one load run, one HDR histogram per {@link LoadTarget.Outcome}: a denial skips the work behind the
+ * limiter, so mixing both would hide a change on either path behind the ratio of allowed to denied calls.
+ * <p>
+ * Latencies are recorded in microseconds from each call's intended start, and reported in milliseconds.
+ */
+final class LatencyReport {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private final String target;
+    private final double ratePerSecond;
+    private final Duration duration;
+    private final Map<LoadTarget.Outcome, Histogram> histograms = new EnumMap<>(LoadTarget.Outcome.class);
+    private volatile boolean finished;
+    private long elapsedNanos;
+    private long unfinished;
+
+    LatencyReport(String target, double ratePerSecond, Duration duration) {
+        this.target = target;
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        for (LoadTarget.Outcome outcome : LoadTarget.Outcome.values()) {
+            histograms.put(outcome, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+        }
+    }
+
+    void record(LoadTarget.Outcome outcome, long latencyNanos) {
+        if (finished) {
+            return;
+        }
+        histograms.get(outcome).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    void finish(long elapsedNanos, long unfinished) {
+        this.elapsedNanos = elapsedNanos;
+        this.unfinished = unfinished;
+        this.finished = true;
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%s: %.1f calls/s offered for %ss, finished in %.2fs, %d unfinished%n", target,
+                ratePerSecond, duration.toMillis() / 1_000.0, elapsedNanos / 1e9, unfinished);
+        out.printf(Locale.ROOT, "  %-8s %10s %10s %10s %10s %10s%n", "outcome", "count", "p50 ms", "p99 ms", "p999 ms",
+                "max ms");
+        histograms.forEach((outcome, histogram) -> out.printf(Locale.ROOT, "  %-8s %10d %10.3f %10.3f %10.3f %10.3f%n",
+                outcome, histogram.getTotalCount(), millis(histogram, 50), millis(histogram, 99),
+                millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI));
+    }
+
+    /**
+     * Writes the percentile distribution of every outcome that occurred to {@code <target>-<outcome>.hgrm}, the format
+     * read by the HdrHistogram plotter, so runs before and after a limiter change can be overlaid.
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<LoadTarget.Outcome, Histogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getTotalCount() == 0) {
+                continue;
+            }
+            String file = fileName(target) + "-" + entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(file)))) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static String fileName(String target) {
+        return target.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
\ No newline at end of file
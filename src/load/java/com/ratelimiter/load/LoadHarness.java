@@ -0,0 +1,97 @@
+package com.ratelimiter.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * End-to-end load harness for both applications, run by {@code mvn -Pload -DskipTests verify}: each target is started
+ * in-process against {@link LocalBackends}, warmed up, then driven by {@link OpenModelLoad} at a constant arrival rate,
+ * and the latencies of allowed and denied calls are reported separately as p50, p99 and p999, and written as HDR
+ * percentile distributions.
+ * <p>
+ * Harness options are given as {@code --load.<option>=<value>}:
+ * <ul>
+ *   <li>{@code target}: {@code http}, {@code grpc} or {@code all} (default);</li>
+ *   <li>{@code rate}: calls per second (default 500);</li>
+ *   <li>{@code duration} and {@code warmup}: measured and discarded run lengths (defaults 30s and 5s);</li>
+ *   <li>{@code users}: callers the load is spread over (default 100);</li>
+ *   <li>{@code plan}: plan the HTTP users sign up on (default PROFESSIONAL);</li>
+ *   <li>{@code tenant}: tenant of the gRPC users (default standard);</li>
+ *   <li>{@code report-dir}: where {@code .hgrm} files are written (default target/load-reports).</li>
+ * </ul>
+ * Any other argument is passed to the applications, so the same run can be repeated with a limiter setting changed,
+ * e.g. {@code --hierarchical-rate-limits.near-cache.ttl=0ms}.
+ */
+public final class LoadHarness {
+    private static final String OPTION_PREFIX = "--load.";
+    private static final Set<String> OPTIONS =
+            Set.of("target", "rate", "duration", "warmup", "users", "plan", "tenant", "report-dir");
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith(OPTION_PREFIX)) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            String option = separator < 0 ? arg.substring(OPTION_PREFIX.length())
+                    : arg.substring(OPTION_PREFIX.length(), separator);
+            if (separator < 0 || !OPTIONS.contains(option)) {
+                throw new IllegalArgumentException("Unknown or valueless option " + arg + ", options are " + OPTIONS);
+            }
+            options.put(option, arg.substring(separator + 1));
+        }
+
+        String target = options.getOrDefault("target", "all").toLowerCase(Locale.ROOT);
+        OpenModelLoad load = new OpenModelLoad(Double.parseDouble(options.getOrDefault("rate", "500")));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "5s"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        Path reportDir = Path.of(options.getOrDefault("report-dir", "target/load-reports"));
+        String[] appArgs = applicationArgs.toArray(String[]::new);
+
+        if (!Set.of("http", "grpc", "all").contains(target)) {
+            throw new IllegalArgumentException("Unknown target " + target + ", targets are http, grpc and all");
+        }
+        List<LatencyReport> reports = new ArrayList<>();
+        if (!target.equals("grpc")) {
+            try (LoadTarget http = HttpLoadTarget.start(appArgs, users, options.getOrDefault("plan", "PROFESSIONAL"))) {
+                reports.add(run(load, http, warmup, duration));
+            }
+        }
+        if (!target.equals("http")) {
+            try (LoadTarget grpc = GrpcLoadTarget.start(appArgs, users, options.getOrDefault("tenant", "standard"))) {
+                reports.add(run(load, grpc, warmup, duration));
+            }
+        }
+
+        for (LatencyReport report : reports) {
+            report.print(System.out);
+            report.write(reportDir);
+        }
+        System.out.println("Percentile distributions written to " + reportDir.toAbsolutePath());
+        // stray client and framework threads must not keep the build waiting
+        System.exit(0);
+    }
+
+    private static LatencyReport run(OpenModelLoad load, LoadTarget target, Duration warmup, Duration duration)
+            throws InterruptedException {
+        if (!warmup.isZero()) {
+            load.run(target, warmup);
+        }
+        return load.run(target, duration);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.ratelimiter.load;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An application under load, started with {@link LocalBackends} and called asynchronously so that a slow call never
+ * delays the ones scheduled after it.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    /** How a call ended: admitted and served, denied by a limiter, or anything else. */
+    enum Outcome { ALLOWED, DENIED, FAILED }
+
+    /** Name of the target and the call it makes, as printed in reports. */
+    String name();
+
+    /**
+     * Starts the {@code sequence}-th call. Callers are picked round-robin by sequence, so every caller receives an
+     * equal share of the load.
+     */
+    CompletableFuture<Outcome> call(long sequence);
+
+    /** Stops the client and the application. */
+    @Override
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.ratelimiter.load;
+
+import com.ratelimiter.limiter.InMemoryProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-ins for the backends both applications need, so the load harness runs without MySQL or Redis:
+ * <ul>
+ *   <li>MySQL is replaced by an in-memory H2 database in MySQL mode, migrated by Flyway from copies of the
+ *   application's own migrations (see {@link #h2Migrations()}), with MySQL's {@code UUID_TO_BIN} provided by
+ *   {@link #uuidToBin(String)};</li>
+ *   <li>the Redis bucket store is replaced by an {@link InMemoryProxyManager}, selected through the {@code local} bucket
+ *   store. Redis connections are opened lazily, and no Redis command is issued on the paths under load.</li>
+ * </ul>
+ * Stand-in properties take precedence over {@code application.yml}, arguments given to the harness over both; passing
+ * {@code --com.ratelimiter.overseer.bucket-store=redis-cas} with a reachable Redis measures a real bucket store.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LocalBackends {
+    private static final String BUCKET_STORE_PROPERTY = "com.ratelimiter.overseer.bucket-store";
+    private static final String LOCAL_BUCKET_STORE = "local";
+    private static final String PROPERTY_SOURCE = "loadHarnessStandIns";
+    private static final String MIGRATIONS = "classpath:db/migration/*.sql";
+    private static final Pattern PRIMARY_KEY_DEFAULT = Pattern.compile("PRIMARY KEY (DEFAULT \\(.*\\))(?=,?$)",
+            Pattern.MULTILINE);
+
+    @Bean
+    @ConditionalOnProperty(name = BUCKET_STORE_PROPERTY, havingValue = LOCAL_BUCKET_STORE)
+    ProxyManager<UUID> localProxyManager() {
+        return new InMemoryProxyManager();
+    }
+
+    /**
+     * MySQL's {@code UUID_TO_BIN} without swapping, the default every migration relies on.
+     */
+    public static byte[] uuidToBin(String uuid) {
+        UUID value = UUID.fromString(uuid);
+        return ByteBuffer.allocate(16).putLong(value.getMostSignificantBits())
+                .putLong(value.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * Builder of {@code application} backed by the stand-ins, with {@code properties} set on top of them.
+     */
+    static SpringApplicationBuilder application(Class<?> application, Map<String, Object> properties) {
+        Map<String, Object> standIns = new HashMap<>();
+        standIns.put("spring.datasource.url", "jdbc:h2:mem:" + application.getSimpleName()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE ALIAS IF NOT EXISTS UUID_TO_BIN FOR '" + LocalBackends.class.getName() + ".uuidToBin'");
+        standIns.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        standIns.put("spring.datasource.username", "sa");
+        standIns.put("spring.datasource.password", "");
+        standIns.put("spring.flyway.locations", "filesystem:" + h2Migrations());
+        standIns.put("spring.data.redis.host", "localhost");
+        standIns.put("spring.data.redis.port", "6379");
+        standIns.put("spring.data.redis.password", "");
+        standIns.put(BUCKET_STORE_PROPERTY, LOCAL_BUCKET_STORE);
+        standIns.put("spring.main.banner-mode", "off");
+        standIns.put("logging.level.root", "WARN");
+        standIns.putAll(properties);
+        // command line arguments are added in front of the stand-ins, application.yml behind them
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE, standIns));
+        return new SpringApplicationBuilder(application, LocalBackends.class).environment(environment);
+    }
+
+    /**
+     * Copies the application's migrations to a temporary directory, with the one MySQL construct they use that H2
+     * rejects rewritten: a column's {@code DEFAULT} must precede its {@code PRIMARY KEY} constraint.
+     */
+    private static Path h2Migrations() {
+        try {
+            Path directory = Files.createTempDirectory("load-harness-migrations");
+            directory.toFile().deleteOnExit();
+            for (Resource migration : new PathMatchingResourcePatternResolver().getResources(MIGRATIONS)) {
+                String sql = migration.getContentAsString(StandardCharsets.UTF_8);
+                Path copy = directory.resolve(migration.getFilename());
+                Files.writeString(copy, PRIMARY_KEY_DEFAULT.matcher(sql).replaceAll("$1 PRIMARY KEY"));
+                copy.toFile().deleteOnExit();
+            }
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy migrations for H2", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.ratelimiter.load;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: calls start at a constant arrival rate whether or not earlier calls have finished, the way
+ * independent clients arrive, instead of a fixed number of clients each waiting for its previous call. Every latency is
+ * measured from the call's intended start, so time spent behind a stalled server or a late scheduler is counted
+ * rather than silently skipped (coordinated omission).
+ */
+final class OpenModelLoad {
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final double ratePerSecond;
+
+    OpenModelLoad(double ratePerSecond) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be positive, was " + ratePerSecond);
+        }
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Calls {@code target} at the arrival rate for {@code duration}, then waits up to {@link #DRAIN_TIMEOUT} for the
+     * calls still running; those that do not finish are reported as unfinished and left out of the histograms.
+     */
+    LatencyReport run(LoadTarget target, Duration duration) throws InterruptedException {
+        LatencyReport report = new LatencyReport(target.name(), ratePerSecond, duration);
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long calls = (long) (duration.toNanos() / periodNanos);
+        CountDownLatch finished = new CountDownLatch((int) Math.min(calls, Integer.MAX_VALUE));
+
+        long start = System.nanoTime();
+        for (long sequence = 0; sequence < calls; sequence++) {
+            long intendedStart = start + (long) (sequence * periodNanos);
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            CompletableFuture<LoadTarget.Outcome> call;
+            try {
+                call = target.call(sequence);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((outcome, failure) -> {
+                report.record(failure == null ? outcome : LoadTarget.Outcome.FAILED, System.nanoTime() - intendedStart);
+                finished.countDown();
+            });
+        }
+        finished.await(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+        report.finish(System.nanoTime() - start, finished.getCount());
+        return report;
+    }
+}
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.example.grpc;
 
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.config.VirtualThreadProperties;
+import com.ratemaster.overseer.configuration.RedisConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
 
-@SpringBootApplication
-@EnableConfigurationProperties
+@SpringBootApplication(scanBasePackages = {"com.example.grpc", "com.ratelimiter"})
+@EnableConfigurationProperties({HierarchicalRateLimitProperties.class, VirtualThreadProperties.class})
+@Import(RedisConfiguration.class)
 public class Application {
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -1,17 +1,42 @@
 package com.example.grpc.config;
 
 import com.example.grpc.interceptor.RateLimitInterceptor;
+import com.example.grpc.service.RateLimiterService;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.decision.RateLimitDecisionGrpc;
+import com.ratelimiter.limiter.HierarchicalNearCache;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import com.ratelimiter.metrics.HeavyHitters;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitServiceGrpc;
+import io.grpc.BindableService;
 import io.grpc.ServerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Set;
+
 @Configuration
 public class RateLimitConfig {
+    /**
+     * Services deciding rate limits for proxies and sidecars. They charge the tenants and users they are asked about
+     * themselves, so their own calls are not charged again to the caller's metadata.
+     */
+    static final Set<String> DECISION_SERVICES =
+            Set.of(RateLimitServiceGrpc.SERVICE_NAME, RateLimitDecisionGrpc.SERVICE_NAME);
 
     @Bean
     @GrpcGlobalServerInterceptor
-    public ServerInterceptor rateLimitInterceptor() {
-        return new RateLimitInterceptor();
+    public ServerInterceptor rateLimitInterceptor(HierarchicalNearCache nearCache,
+                                                  HierarchicalRateLimiterService hierarchicalRateLimiterService,
+                                                  RateLimiterService rateLimiterService, HierarchicalRateLimitProperties props,
+                                                  HeavyHitters heavyHitters, MeterRegistry meterRegistry,
+                                                  ObjectProvider<BindableService> services) {
+        return new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService, props.getFailureMode(),
+                heavyHitters, meterRegistry,
+                services.orderedStream().map(service -> service.bindService().getServiceDescriptor()).toList(),
+                DECISION_SERVICES);
     }
 } 
\ No newline at end of file
@@ -1,25 +1,93 @@
 package com.example.grpc.interceptor;
 
+import com.example.grpc.RateLimitOptions;
+import com.example.grpc.RateLimitOptionsProto;
+import com.example.grpc.service.PackedBucketStore;
+import com.example.grpc.service.RateLimiterService;
+import com.google.protobuf.Descriptors;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalNearCache;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import com.ratelimiter.metrics.HeavyHitters;
 import io.grpc.*;
+import io.grpc.protobuf.ProtoServiceDescriptorSupplier;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tag;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-@Component
+/**
+ * Enforces the hierarchical global, tenant and user limits on every call, taking tenant and user from the call's
+ * metadata. Decisions come from the Redis-backed hierarchical limiter through its near-cache; while Redis cannot be
+ * reached, the failure mode decides: callers are limited by the node-local {@link RateLimiterService}, charged the
+ * method's cost, or every call is admitted, or every call is rejected with UNAVAILABLE.
+ * <p>
+ * Calls are counted by {@code grpc.rate_limit}, tagged by method, outcome ({@code allowed}) and denying level only,
+ * and registered up front for every method of the given services; callers consuming and denied the most are tracked
+ * by {@link HeavyHitters} instead of per-user tags.
+ * <p>
+ * A method's {@code (rate_limit)} option, read from the service descriptors at startup, sets the tokens a call
+ * takes from every level and an optional number of calls per hour a caller may make to that method. The calls per
+ * hour are counted in Redis next to the hierarchical levels, so they hold across all nodes, and a call the levels deny
+ * is handed back; while Redis cannot be reached they follow the failure mode as well, LOCAL_BUCKETS counting them on
+ * this node only. Calls to the exempt services pass through unchecked and uncounted.
+ */
 public class RateLimitInterceptor implements ServerInterceptor {
 
+    private static final Metadata.Key<String> TENANT_ID_KEY =
+        Metadata.Key.of("tenant-id", Metadata.ASCII_STRING_MARSHALLER);
     private static final Metadata.Key<String> USER_ID_KEY = 
         Metadata.Key.of("user-id", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String DEFAULT_TENANT = "default";
     private static final String DEFAULT_USER = "anonymous";
 
-    @Autowired
-    private RateLimiterService rateLimiterService;
+    private static final int METHOD_LIMIT_BUCKETS = 65_536;
+    private static final String METER = "grpc.rate_limit";
 
-    @Autowired
-    private MeterRegistry meterRegistry;
+    /** Cost, calls per hour (0 for none) with their node-local fallback, and meters of one method. */
+    private record MethodPolicy(long cost, long limitPerHour, PackedBucketStore localMethodLimit, Counter allowed,
+                                Map<HierarchicalRateLimitResult.Level, Counter> denied, Counter deniedAtMethod,
+                                Counter deniedUnavailable) { }
+
+    private final HierarchicalNearCache nearCache;
+    private final HierarchicalRateLimiterService rateLimiterService;
+    private final RateLimiterService fallback;
+    private final HierarchicalRateLimitProperties.FailureMode failureMode;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, MethodPolicy> policies = new ConcurrentHashMap<>();
+    private final HeavyHitters heavyHitters;
+    private final Set<String> exemptServices;
+
+    public RateLimitInterceptor(HierarchicalNearCache nearCache, HierarchicalRateLimiterService rateLimiterService,
+                                RateLimiterService fallback,
+                                HierarchicalRateLimitProperties.FailureMode failureMode, HeavyHitters heavyHitters,
+                                MeterRegistry meterRegistry, Collection<ServiceDescriptor> services,
+                                Set<String> exemptServices) {
+        this.exemptServices = Set.copyOf(exemptServices);
+        this.nearCache = nearCache;
+        this.rateLimiterService = rateLimiterService;
+        this.fallback = fallback;
+        this.failureMode = failureMode;
+        this.heavyHitters = heavyHitters;
+        this.meterRegistry = meterRegistry;
+        for (ServiceDescriptor service : services) {
+            if (this.exemptServices.contains(service.getName())) {
+                continue;
+            }
+            Map<String, RateLimitOptions> options = options(service);
+            for (MethodDescriptor<?, ?> method : service.getMethods()) {
+                String name = method.getFullMethodName();
+                policies.put(name, policy(name, options.getOrDefault(name, RateLimitOptions.getDefaultInstance())));
+            }
+        }
+    }
 
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
@@ -27,37 +95,151 @@ public class RateLimitInterceptor implements ServerInterceptor {
             Metadata headers,
             ServerCallHandler<ReqT, RespT> next) {
 
-        // Extract user ID from metadata or use default
-        String userId = headers.get(USER_ID_KEY);
-        if (userId == null || userId.isEmpty()) {
-            userId = DEFAULT_USER;
+        if (exemptServices.contains(call.getMethodDescriptor().getServiceName())) {
+            return next.startCall(call, headers);
         }
+        String tenantId = valueOrDefault(headers.get(TENANT_ID_KEY), DEFAULT_TENANT);
+        String userId = valueOrDefault(headers.get(USER_ID_KEY), DEFAULT_USER);
+        String methodName = call.getMethodDescriptor().getFullMethodName();
+        MethodPolicy policy = policy(methodName);
 
-        // Check rate limit
-        if (!rateLimiterService.tryAcquire(userId)) {
-            // Record denied request metric
-            recordMetric(call.getMethodDescriptor().getFullMethodName(), userId, false);
-            
-            // Abort with RESOURCE_EXHAUSTED status
-            call.close(Status.RESOURCE_EXHAUSTED
-                    .withDescription("Rate limit exceeded for user: " + userId),
-                    new Metadata());
-            return new ServerCall.Listener<ReqT>() {};
+        boolean methodCallTaken = false;
+        if (policy.limitPerHour() > 0) {
+            boolean withinMethodLimit;
+            try {
+                withinMethodLimit = rateLimiterService.tryConsumeMethodCall(methodName, tenantId, userId, policy.limitPerHour());
+                methodCallTaken = withinMethodLimit;
+            } catch (RuntimeException e) {
+                if (failureMode == HierarchicalRateLimitProperties.FailureMode.CLOSED) {
+                    return unavailable(call, policy, e);
+                }
+                withinMethodLimit = failureMode == HierarchicalRateLimitProperties.FailureMode.OPEN
+                        || policy.localMethodLimit().tryConsume(tenantId + ":" + userId);
+            }
+            if (!withinMethodLimit) {
+                heavyHitters.record(tenantId, userId, false, policy.cost());
+                policy.deniedAtMethod().increment();
+                return deny(call, "method", userId);
+            }
+        }
+        HierarchicalRateLimitResult.Level deniedAt;
+        try {
+            deniedAt = nearCache.isAllowed(tenantId, userId, policy.cost()).getDeniedAt();
+        } catch (RuntimeException e) {
+            if (failureMode == HierarchicalRateLimitProperties.FailureMode.CLOSED) {
+                return unavailable(call, policy, e);
+            }
+            deniedAt = fallback(tenantId, userId, policy.cost());
+        }
+        heavyHitters.record(tenantId, userId, deniedAt == HierarchicalRateLimitResult.Level.NONE, policy.cost());
+        if (deniedAt != HierarchicalRateLimitResult.Level.NONE) {
+            if (methodCallTaken) {
+                refundMethodCall(methodName, tenantId, userId, policy.limitPerHour());
+            }
+            policy.denied().get(deniedAt).increment();
+            return deny(call, deniedAt.name(), userId);
         }
 
-        // Record allowed request metric
-        recordMetric(call.getMethodDescriptor().getFullMethodName(), userId, true);
+        policy.allowed().increment();
 
         // Proceed with the call
         return next.startCall(call, headers);
     }
 
-    private void recordMetric(String methodName, String userId, boolean allowed) {
-        meterRegistry.counter("grpc.rate_limit",
-                Arrays.asList(
-                    Tag.of("method", methodName),
-                    Tag.of("user_id", userId),
-                    Tag.of("allowed", String.valueOf(allowed))
-                )).increment();
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> deny(ServerCall<ReqT, RespT> call, String level, String userId) {
+        // Abort with RESOURCE_EXHAUSTED status
+        call.close(Status.RESOURCE_EXHAUSTED
+                .withDescription("Rate limit exceeded at " + level + " level for user: " + userId),
+                new Metadata());
+        return new ServerCall.Listener<ReqT>() {};
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> unavailable(ServerCall<ReqT, RespT> call, MethodPolicy policy,
+                                                                      RuntimeException cause) {
+        policy.deniedUnavailable().increment();
+        call.close(Status.UNAVAILABLE.withDescription("Rate limits cannot be checked").withCause(cause), new Metadata());
+        return new ServerCall.Listener<ReqT>() {};
+    }
+
+    /** A call the levels denied does not count against the method; a lost refund only leaves the call counted. */
+    private void refundMethodCall(String methodName, String tenantId, String userId, long limitPerHour) {
+        try {
+            rateLimiterService.refundMethodCall(methodName, tenantId, userId, limitPerHour);
+        } catch (RuntimeException e) {
+            // the denial stands either way
+        }
+    }
+
+    private MethodPolicy policy(String methodName) {
+        // methods outside the registered services are added once, a server only dispatches the methods it serves
+        return policies.computeIfAbsent(methodName, name -> policy(name, RateLimitOptions.getDefaultInstance()));
+    }
+
+    private MethodPolicy policy(String name, RateLimitOptions options) {
+        validate(name, options);
+        Map<HierarchicalRateLimitResult.Level, Counter> denied = new EnumMap<>(HierarchicalRateLimitResult.Level.class);
+        for (HierarchicalRateLimitResult.Level level : HierarchicalRateLimitResult.Level.values()) {
+            if (level != HierarchicalRateLimitResult.Level.NONE) {
+                denied.put(level, counter(name, false, level.name()));
+            }
+        }
+        PackedBucketStore localMethodLimit = null;
+        Counter deniedAtMethod = null;
+        if (options.hasLimitPerHour()) {
+            if (failureMode == HierarchicalRateLimitProperties.FailureMode.LOCAL_BUCKETS) {
+                localMethodLimit = new PackedBucketStore(METHOD_LIMIT_BUCKETS, options.getLimitPerHour(), Duration.ofHours(1));
+            }
+            deniedAtMethod = counter(name, false, "METHOD");
+        }
+        Counter deniedUnavailable = failureMode == HierarchicalRateLimitProperties.FailureMode.CLOSED
+                ? counter(name, false, "UNAVAILABLE") : null;
+        return new MethodPolicy(options.hasCost() ? options.getCost() : 1, options.getLimitPerHour(), localMethodLimit,
+                counter(name, true, HierarchicalRateLimitResult.Level.NONE.name()), denied, deniedAtMethod, deniedUnavailable);
+    }
+
+    /**
+     * Refuses a cost or limit below 1 at startup: Bucket4j rejects consuming no tokens, which the interceptor would
+     * take for Redis being unavailable on every call. A uint64 above {@code Long.MAX_VALUE} reads as negative.
+     */
+    static void validate(String name, RateLimitOptions options) {
+        if ((options.hasCost() && options.getCost() < 1) || (options.hasLimitPerHour() && options.getLimitPerHour() < 1)) {
+            throw new IllegalStateException("Invalid (rate_limit) option on " + name + ": " + options);
+        }
+    }
+
+    private Counter counter(String method, boolean allowed, String level) {
+        return meterRegistry.counter(METER, "method", method, "allowed", String.valueOf(allowed), "level", level);
+    }
+
+    /** The {@code (rate_limit)} options of a service's methods, by full method name. */
+    private static Map<String, RateLimitOptions> options(ServiceDescriptor service) {
+        Map<String, RateLimitOptions> options = new HashMap<>();
+        if (service.getSchemaDescriptor() instanceof ProtoServiceDescriptorSupplier supplier) {
+            Descriptors.ServiceDescriptor descriptor = supplier.getServiceDescriptor();
+            for (Descriptors.MethodDescriptor method : descriptor.getMethods()) {
+                if (method.getOptions().hasExtension(RateLimitOptionsProto.rateLimit)) {
+                    options.put(MethodDescriptor.generateFullMethodName(descriptor.getFullName(), method.getName()),
+                            method.getOptions().getExtension(RateLimitOptionsProto.rateLimit));
+                }
+            }
+        }
+        return options;
+    }
+
+    /** The level that denies the call while Redis is unavailable, or NONE; a failure mode other than CLOSED. */
+    private HierarchicalRateLimitResult.Level fallback(String tenantId, String userId, long cost) {
+        if (failureMode == HierarchicalRateLimitProperties.FailureMode.OPEN) {
+            return HierarchicalRateLimitResult.Level.NONE;
+        }
+        // the caller's own bucket first, so a caller denied there cannot drain the tenant's bucket
+        if (!fallback.tryAcquire(tenantId + ":" + userId, cost)) {
+            return HierarchicalRateLimitResult.Level.USER;
+        }
+        return fallback.tryAcquireTenant(tenantId, cost)
+                ? HierarchicalRateLimitResult.Level.NONE : HierarchicalRateLimitResult.Level.TENANT;
+    }
+
+    private static String valueOrDefault(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
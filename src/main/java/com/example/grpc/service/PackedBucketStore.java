@@ -0,0 +1,228 @@
+package com.example.grpc.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local token buckets packed two longs per bucket into one open-addressing table: the 64-bit hash of the key and
+ * the bucket's theoretical arrival time (GCRA), which behaves exactly like a greedily refilling bucket of
+ * {@code capacity} tokens. Every update is a single compare-and-set on the arrival time; nothing is allocated per key
+ * or per call.
+ * <p>
+ * A key lives in one of the {@value #WINDOW} slots following its hash. A slot whose bucket has refilled completely is
+ * indistinguishable from a fresh one, so it is handed to the next key that needs a slot. Distinct keys with equal
+ * 64-bit hashes share a bucket, and two calls racing to place the same new key may place it twice, admitting at most
+ * one extra call. When all slots of a window hold partly drained buckets the call is admitted without a bucket and
+ * counted by {@link #overflows()}: a caller rotating keys that fast gets a fresh bucket per key anyway.
+ * <p>
+ * Buckets can also live outside the table, as an arrival time on this store's clock, and be moved in and out with
+ * {@link #hold} and {@link #release}. A held bucket is never dropped: on a full window it displaces the bucket closest
+ * to refilled, so keys rotated to fill the window cannot reset the quota of a caller whose bucket is moved in.
+ */
+public class PackedBucketStore {
+    static final int WINDOW = 16;
+    private static final long CLAIMING = -1;
+    private static final long DENIED = -2;
+    private static final long MOVED = Long.MIN_VALUE;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long periodNanos;
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final LongAdder overflows = new LongAdder();
+
+    public PackedBucketStore(int buckets, long capacity, Duration period) {
+        this(buckets, capacity, period, System::nanoTime);
+    }
+
+    PackedBucketStore(int buckets, long capacity, Duration period, LongSupplier clock) {
+        int size = Integer.highestOneBit((Math.max(WINDOW, buckets) - 1) << 1);
+        this.slots = new AtomicLongArray(2 * size);
+        this.mask = size - 1;
+        this.periodNanos = period.toNanos();
+        this.intervalNanos = periodNanos / capacity;
+        long origin = clock.getAsLong();
+        // arrival times start at 1, so an empty slot (0) reads as a full bucket
+        this.clock = () -> clock.getAsLong() - origin + 1;
+    }
+
+    public boolean tryConsume(String key) {
+        return apply(hash(key), this::consume);
+    }
+
+    /** Consumes {@code tokens} tokens at once or none; more tokens than the capacity are never granted. */
+    public boolean tryConsume(String key, long tokens) {
+        return apply(hash(key), (arrival, now) -> consume(arrival, now, tokens));
+    }
+
+    boolean tryConsume(long hash) {
+        return apply(hash, this::consume);
+    }
+
+    /**
+     * Consumes a token from a bucket kept outside the table, as an arrival time on this store's clock, or from the
+     * table once the bucket has been moved there by {@link #hold}.
+     */
+    public boolean tryConsume(String key, AtomicLong bucket) {
+        return tryConsume(key, bucket, 1);
+    }
+
+    /** As {@link #tryConsume(String, AtomicLong)}, consuming {@code tokens} tokens at once or none. */
+    public boolean tryConsume(String key, AtomicLong bucket, long tokens) {
+        while (true) {
+            long arrival = bucket.get();
+            if (arrival == MOVED) {
+                return tryConsume(key, tokens);
+            }
+            long next = consume(arrival, clock.getAsLong(), tokens);
+            if (next == DENIED) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves a bucket kept outside the table into it, unless it has refilled completely, and marks it moved so calls
+     * still consuming from it continue on the table. An arrival time already held for the key is kept if later. When
+     * every slot of the key's window holds a partly drained bucket, the one with the earliest arrival time is
+     * displaced and counted by {@link #overflows()}.
+     */
+    public void hold(String key, AtomicLong bucket) {
+        while (true) {
+            long arrival = bucket.get();
+            if (arrival > clock.getAsLong()) {
+                apply(hash(key), (held, now) -> Math.max(held, arrival), true);
+            }
+            if (bucket.compareAndSet(arrival, MOVED)) {
+                return;
+            }
+        }
+    }
+
+    /** Removes the key's bucket from the table, returning its arrival time, or 0 (a full bucket) if none is held. */
+    public long release(String key) {
+        long hash = hash(key);
+        int start = (int) hash & mask;
+        for (int p = 0; p < WINDOW; p++) {
+            int slot = (start + p) & mask;
+            while (true) {
+                long arrival = slots.get(2 * slot + 1);
+                if (slots.get(2 * slot) != hash) {
+                    break;
+                }
+                if (arrival != CLAIMING && slots.compareAndSet(2 * slot + 1, arrival, 0)) {
+                    return arrival;
+                }
+                Thread.onSpinWait();
+            }
+        }
+        return 0;
+    }
+
+    private long consume(long arrival, long now) {
+        return consume(arrival, now, 1);
+    }
+
+    private long consume(long arrival, long now, long tokens) {
+        long next = Math.max(arrival, now) + intervalNanos * tokens;
+        return next > now + periodNanos ? DENIED : next;
+    }
+
+    private boolean apply(long hash, LongBinaryOperator step) {
+        return apply(hash, step, false);
+    }
+
+    /**
+     * Replaces the arrival time of the key's bucket by {@code step(arrival, now)}, placing the bucket first if the
+     * table holds none; returns false if the step gives {@link #DENIED}. With no free slot in the window, the bucket
+     * displaces the one with the earliest arrival time if {@code displace}, otherwise it is not placed at all.
+     */
+    private boolean apply(long hash, LongBinaryOperator step, boolean displace) {
+        while (true) {
+            long now = clock.getAsLong();
+            int start = (int) hash & mask;
+            int free = -1;
+            long freeArrival = 0;
+            int earliest = -1;
+            long earliestArrival = Long.MAX_VALUE;
+            boolean retry = false;
+            for (int p = 0; p < WINDOW && !retry; p++) {
+                int slot = (start + p) & mask;
+                long arrival = slots.get(2 * slot + 1);
+                if (slots.get(2 * slot) == hash) {
+                    // an arrival time read before the slot changed hands fails the compare-and-set below
+                    if (arrival == CLAIMING) {
+                        retry = true;
+                        continue;
+                    }
+                    long next = step.applyAsLong(arrival, now);
+                    if (next == DENIED) {
+                        return false;
+                    }
+                    if (slots.compareAndSet(2 * slot + 1, arrival, next)) {
+                        return true;
+                    }
+                    retry = true;
+                } else if (free < 0 && arrival != CLAIMING && arrival <= now) {
+                    free = slot;
+                    freeArrival = arrival;
+                } else if (arrival != CLAIMING && arrival < earliestArrival) {
+                    earliest = slot;
+                    earliestArrival = arrival;
+                }
+            }
+            if (retry) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (free < 0 && (!displace || earliest < 0)) {
+                overflows.increment();
+                return true;
+            }
+            if (free < 0) {
+                free = earliest;
+                freeArrival = earliestArrival;
+            }
+            long next = step.applyAsLong(0, now);
+            if (next == DENIED) {
+                return false;
+            }
+            if (slots.compareAndSet(2 * free + 1, freeArrival, CLAIMING)) {
+                if (freeArrival > now) {
+                    overflows.increment();
+                }
+                slots.set(2 * free, hash);
+                slots.set(2 * free + 1, next);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Calls admitted without a bucket, or buckets displaced by a held one, because every slot of their window held a
+     * partly drained bucket.
+     */
+    public long overflows() { return overflows.sum(); }
+
+    /** 64-bit FNV-1a over the key's chars, finished with the MurmurHash3 mixer; never 0, the empty slot's key. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+}
\ No newline at end of file
@@ -1,31 +1,86 @@
 package com.example.grpc.service;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bucket4j;
-import io.github.bucket4j.Refill;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Node-local buckets of gRPC callers. The most frequently seen callers keep their bucket in a size-bounded cache
+ * (Caffeine's frequency-aware W-TinyLFU policy), one arrival time each. A bucket evicted while partly drained is held
+ * in a {@link PackedBucketStore} and picked up again on the caller's next miss, so eviction never refills a bucket
+ * early; a bucket idle for a full refill period expires with nothing to keep. The eviction listener runs while the
+ * entry is locked against reloads, so a bucket is always moved to the store before it can be read back.
+ * <p>
+ * Buckets hold the configured calls per hour of the hierarchical limiter they stand in for: a caller's bucket the
+ * user level's {@code users.default-per-tenant}, and each tenant with a limit of its own one more bucket of that
+ * limit, shared by the tenant's callers on this node. Tenants without a limit of their own are limited per caller only.
+ */
 @Service
-public class RateLimiterService {
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-    private static final int DEFAULT_TOKENS = 10;
-    private static final Duration REFILL_DURATION = Duration.ofMinutes(1);
+public class RateLimiterService implements MeterBinder {
+    private static final Duration REFILL_DURATION = Duration.ofHours(1);
+    private static final int MAX_CACHED_BUCKETS = 100_000;
+    // 16 bytes a bucket; slots of evicted buckets that have refilled since are reused
+    private static final int MAX_EVICTED_BUCKETS = 1 << 20;
 
-    public boolean tryAcquire(String key) {
-        Bucket bucket = buckets.computeIfAbsent(key, this::createNewBucket);
-        return bucket.tryConsume(1);
+    private final PackedBucketStore evicted;
+    private final Cache<String, AtomicLong> buckets;
+    private final Map<String, PackedBucketStore> tenants;
+
+    public RateLimiterService(HierarchicalRateLimitProperties props) {
+        this(Caffeine.newBuilder().maximumSize(MAX_CACHED_BUCKETS),
+                new PackedBucketStore(MAX_EVICTED_BUCKETS, props.getUsers().getDefaultPerTenant(), REFILL_DURATION),
+                tenants(props));
     }
 
-    private Bucket createNewBucket(String key) {
-        Bandwidth limit = Bandwidth.classic(DEFAULT_TOKENS, 
-            Refill.greedy(DEFAULT_TOKENS, REFILL_DURATION));
-        return Bucket4j.builder()
-                .addLimit(limit)
+    RateLimiterService(Caffeine<Object, Object> cache, PackedBucketStore evicted, Map<String, PackedBucketStore> tenants) {
+        this.evicted = evicted;
+        this.tenants = tenants;
+        this.buckets = cache
+                .expireAfterAccess(REFILL_DURATION)
+                .<String, AtomicLong>evictionListener((key, bucket, cause) -> evicted.hold(key, bucket))
+                .recordStats()
                 .build();
     }
-} 
\ No newline at end of file
+
+    public boolean tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    /** Takes {@code tokens} tokens from the key's bucket at once, or none if it holds fewer. */
+    public boolean tryAcquire(String key, long tokens) {
+        return evicted.tryConsume(key, buckets.get(key, k -> new AtomicLong(evicted.release(k))), tokens);
+    }
+
+    /** Takes {@code tokens} tokens from the tenant's bucket at once, or none if it holds fewer; true without a limit. */
+    public boolean tryAcquireTenant(String tenantId, long tokens) {
+        PackedBucketStore tenant = tenants.get(tenantId);
+        return tenant == null || tenant.tryConsume(tenantId, tokens);
+    }
+
+    private static Map<String, PackedBucketStore> tenants(HierarchicalRateLimitProperties props) {
+        Map<String, PackedBucketStore> tenants = new HashMap<>();
+        if (props.getTenants() != null) {
+            props.getTenants().forEach((tenantId, spec) ->
+                    tenants.put(tenantId, new PackedBucketStore(1, spec.getLimitPerHour(), REFILL_DURATION)));
+        }
+        return tenants;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, "grpc.rate_limit.buckets");
+        FunctionCounter.builder("grpc.rate_limit.buckets.overflows", evicted, PackedBucketStore::overflows)
+                .description("Calls admitted without a bucket, or buckets displaced by an evicted one, for want of a free slot")
+                .register(registry);
+    }
+}
\ No newline at end of file
@@ -1,30 +1,146 @@
 package com.ratelimiter.config;
 
+import com.ratelimiter.limiter.RateLimitAlgorithm;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
 import java.util.Map;
 
-@Configuration
 @ConfigurationProperties(prefix = "hierarchical-rate-limits")
 public class HierarchicalRateLimitProperties {
+    /**
+     * PROXY evaluates each level through its own Bucket4j proxy (one remote call per level).
+     * SCRIPT checks and consumes all levels atomically in a single Redis script invocation.
+     */
+    public enum EvaluationMode { PROXY, SCRIPT }
+    /**
+     * What the gRPC interceptor does with a call while Redis cannot be reached. LOCAL_BUCKETS fails open up to the
+     * node-local per-caller buckets, charged the method's cost; OPEN admits every call; CLOSED rejects every call
+     * with UNAVAILABLE.
+     */
+    public enum FailureMode { LOCAL_BUCKETS, OPEN, CLOSED }
+
+    private EvaluationMode evaluationMode = EvaluationMode.PROXY;
+    private FailureMode failureMode = FailureMode.LOCAL_BUCKETS;
     private LimitSpec global;
+    /**
+     * The global limit is split over this many sub-buckets under distinct keys. A request whose stripe
+     * ran dry may spill over to up to global-spill neighbouring stripes before it is denied.
+     */
+    private int globalStripes = 1;
+    private int globalSpill = 1;
+    /**
+     * Hash-tags the script-mode keys for Redis Cluster: every global stripe gets its own slot, a tenant's key and
+     * its users' keys share the tenant's slot. The global level is then consumed in its own round trip ahead of the
+     * tenant and user levels, and handed back if either of them denies.
+     */
+    private boolean clusterKeys;
     private Map<String, LimitSpec> tenants;
     private UserDefaults users;
+    private Leasing leasing = new Leasing();
+    private NearCache nearCache = new NearCache();
+    private HeavyHitters heavyHitters = new HeavyHitters();
 
+    /**
+     * Any algorithm other than TOKEN_BUCKET needs the SCRIPT evaluation mode and no leasing, Bucket4j proxies and
+     * leases only know token buckets.
+     */
     public static class LimitSpec {
         private long limitPerHour;
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
         public long getLimitPerHour() { return limitPerHour; }
         public void setLimitPerHour(long limitPerHour) { this.limitPerHour = limitPerHour; }
+        public RateLimitAlgorithm getAlgorithm() { return algorithm; }
+        public void setAlgorithm(RateLimitAlgorithm algorithm) { this.algorithm = algorithm; }
     }
     public static class UserDefaults {
         private long defaultPerTenant;
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
         public long getDefaultPerTenant() { return defaultPerTenant; }
         public void setDefaultPerTenant(long defaultPerTenant) { this.defaultPerTenant = defaultPerTenant; }
+        public RateLimitAlgorithm getAlgorithm() { return algorithm; }
+        public void setAlgorithm(RateLimitAlgorithm algorithm) { this.algorithm = algorithm; }
+    }
+    /**
+     * Node-local leasing of global (and optionally tenant) tokens. A node holds at most
+     * min(lease-size, max-overshoot-ratio * limit) tokens per level, so the cluster can serve at most
+     * nodes * that many tokens after a bucket ran dry, and only until lease-ttl expires.
+     */
+    public static class Leasing {
+        private boolean enabled;
+        private boolean tenants;
+        private long leaseSize = 100;
+        private Duration leaseTtl = Duration.ofSeconds(1);
+        private double maxOvershootRatio = 0.01;
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public boolean isTenants() { return tenants; }
+        public void setTenants(boolean tenants) { this.tenants = tenants; }
+        public long getLeaseSize() { return leaseSize; }
+        public void setLeaseSize(long leaseSize) { this.leaseSize = leaseSize; }
+        public Duration getLeaseTtl() { return leaseTtl; }
+        public void setLeaseTtl(Duration leaseTtl) { this.leaseTtl = leaseTtl; }
+        public double getMaxOvershootRatio() { return maxOvershootRatio; }
+        public void setMaxOvershootRatio(double maxOvershootRatio) { this.maxOvershootRatio = maxOvershootRatio; }
+    }
+    /**
+     * Decisions cached per tenant and user in front of the remote path, for callers that cannot block on Redis per
+     * request. A cached denial is repeated until ttl expires; a cached allowance admits up to
+     * min(max-credit, remaining) further requests at once, each consumed remotely by one of refresh-threads threads.
+     * At most refresh-queue-capacity consumptions wait for a thread; past that, requests wait for Redis.
+     */
+    public static class NearCache {
+        private Duration ttl = Duration.ofMillis(250);
+        private long maxCredit = 10;
+        private long maxEntries = 100_000;
+        private int refreshThreads = 4;
+        private int refreshQueueCapacity = 10_000;
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public long getMaxCredit() { return maxCredit; }
+        public void setMaxCredit(long maxCredit) { this.maxCredit = maxCredit; }
+        public long getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(long maxEntries) { this.maxEntries = maxEntries; }
+        public int getRefreshThreads() { return refreshThreads; }
+        public void setRefreshThreads(int refreshThreads) { this.refreshThreads = refreshThreads; }
+        public int getRefreshQueueCapacity() { return refreshQueueCapacity; }
+        public void setRefreshQueueCapacity(int refreshQueueCapacity) { this.refreshQueueCapacity = refreshQueueCapacity; }
+    }
+    /**
+     * Heaviest tenants and users by consumed and by denied requests, kept in capacity counters per level and
+     * slot; slots rotate every slot, and the last slots of them are kept.
+     */
+    public static class HeavyHitters {
+        private int capacity = 100;
+        private Duration slot = Duration.ofMinutes(1);
+        private int slots = 15;
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public Duration getSlot() { return slot; }
+        public void setSlot(Duration slot) { this.slot = slot; }
+        public int getSlots() { return slots; }
+        public void setSlots(int slots) { this.slots = slots; }
     }
+    public EvaluationMode getEvaluationMode() { return evaluationMode; }
+    public void setEvaluationMode(EvaluationMode evaluationMode) { this.evaluationMode = evaluationMode; }
+    public FailureMode getFailureMode() { return failureMode; }
+    public void setFailureMode(FailureMode failureMode) { this.failureMode = failureMode; }
     public LimitSpec getGlobal() { return global; }
     public void setGlobal(LimitSpec global) { this.global = global; }
+    public int getGlobalStripes() { return globalStripes; }
+    public void setGlobalStripes(int globalStripes) { this.globalStripes = globalStripes; }
+    public int getGlobalSpill() { return globalSpill; }
+    public void setGlobalSpill(int globalSpill) { this.globalSpill = globalSpill; }
+    public boolean isClusterKeys() { return clusterKeys; }
+    public void setClusterKeys(boolean clusterKeys) { this.clusterKeys = clusterKeys; }
     public Map<String, LimitSpec> getTenants() { return tenants; }
     public void setTenants(Map<String, LimitSpec> tenants) { this.tenants = tenants; }
     public UserDefaults getUsers() { return users; }
     public void setUsers(UserDefaults users) { this.users = users; }
-} 
\ No newline at end of file
+    public Leasing getLeasing() { return leasing; }
+    public void setLeasing(Leasing leasing) { this.leasing = leasing; }
+    public NearCache getNearCache() { return nearCache; }
+    public void setNearCache(NearCache nearCache) { this.nearCache = nearCache; }
+    public HeavyHitters getHeavyHitters() { return heavyHitters; }
+    public void setHeavyHitters(HeavyHitters heavyHitters) { this.heavyHitters = heavyHitters; }
+}
\ No newline at end of file
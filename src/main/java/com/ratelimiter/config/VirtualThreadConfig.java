@@ -0,0 +1,35 @@
+package com.ratelimiter.config;
+
+import jakarta.annotation.PreDestroy;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * With {@code spring.threads.virtual.enabled}, Spring Boot already serves Tomcat requests and the application task
+ * executor on virtual threads; this runs every gRPC call on a virtual thread of its own as well, instead of the
+ * server's default cached pool of platform threads, so calls blocked on Redis no longer hold a platform thread each.
+ * Both applications serve gRPC, the overseer at least the rate limit decision services, so it lives next to them.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    // not a bean, an Executor bean would replace the application task executor
+    private final ExecutorService grpcServerExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-", 0).factory());
+
+    @Bean
+    public GrpcServerConfigurer virtualThreadServerConfigurer() {
+        return serverBuilder -> serverBuilder.executor(grpcServerExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        grpcServerExecutor.shutdown();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.ratelimiter.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Only read with spring.threads.virtual.enabled: a virtual thread pinned to its carrier for at least
+ * pinned-threshold, e.g. blocking on Redis or the database inside a synchronized block, is counted and logged.
+ */
+@ConfigurationProperties(prefix = "virtual-threads")
+public class VirtualThreadProperties {
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+
+    public Duration getPinnedThreshold() { return pinnedThreshold; }
+    public void setPinnedThreshold(Duration pinnedThreshold) { this.pinnedThreshold = pinnedThreshold; }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.github.bucket4j.BucketConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable {@link BucketConfiguration}s shared by every bucket of the same shape, so bucket proxies never build one
+ * per request. Hierarchical levels are keyed by their hourly limit, built from {@link HierarchicalRateLimitProperties}
+ * at startup, which are bound once, and on first use for limits derived at runtime. Subscription plans are keyed by
+ * plan id and replaced through {@link #reloadPlans(Map)} whenever plan rows change.
+ */
+@Component
+public class BucketConfigurationRegistry {
+    /** Period over which every bucket, of any level or plan, refills up to its capacity. */
+    public static final Duration REFILL_PERIOD = Duration.ofHours(1);
+
+    private final ConcurrentMap<Long, BucketConfiguration> hierarchical = new ConcurrentHashMap<>();
+    private volatile Map<UUID, BucketConfiguration> plans = Map.of();
+
+    public BucketConfigurationRegistry(HierarchicalRateLimitProperties props) {
+        if (props.getGlobal() != null) {
+            hierarchical(props.getGlobal().getLimitPerHour());
+        }
+        if (props.getTenants() != null) {
+            props.getTenants().values().forEach(spec -> hierarchical(spec.getLimitPerHour()));
+        }
+        if (props.getUsers() != null) {
+            hierarchical(props.getUsers().getDefaultPerTenant());
+        }
+    }
+
+    /** Greedily refilling configuration of a hierarchical level; limits derived at runtime (stripes) are built once. */
+    public BucketConfiguration hierarchical(long limitPerHour) {
+        return hierarchical.computeIfAbsent(limitPerHour, BucketConfigurationRegistry::greedy);
+    }
+
+    /** Replaces every plan configuration, keyed by plan id with the plan's hourly limit as value. */
+    public void reloadPlans(Map<UUID, Long> limitsPerHour) {
+        Map<UUID, BucketConfiguration> configurations = new HashMap<>();
+        limitsPerHour.forEach((planId, limitPerHour) -> configurations.put(planId, BucketConfiguration.builder()
+                .addLimit(limit -> limit.capacity(limitPerHour).refillIntervally(limitPerHour, REFILL_PERIOD))
+                .build()));
+        plans = Map.copyOf(configurations);
+    }
+
+    /** Configuration of the given plan, or {@code null} if the plan is unknown since the last {@link #reloadPlans(Map)}. */
+    public BucketConfiguration plan(UUID planId) {
+        return plans.get(planId);
+    }
+
+    private static BucketConfiguration greedy(long limitPerHour) {
+        return BucketConfiguration.builder()
+                .addLimit(limit -> limit.capacity(limitPerHour).refillGreedy(limitPerHour, REFILL_PERIOD))
+                .build();
+    }
+}
\ No newline at end of file
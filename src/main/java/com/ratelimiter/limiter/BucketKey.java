@@ -0,0 +1,39 @@
+package com.ratelimiter.limiter;
+
+import java.util.UUID;
+
+/**
+ * Identifies one bucket both by its Redis key name (script mode) and by its Bucket4j proxy id (proxy mode).
+ * Per-user keys build their name only when it is asked for, so proxy mode never formats a string.
+ */
+public final class BucketKey {
+    private final String prefix;
+    private final UUID qualifier;
+    private final UUID id;
+    private String name;
+
+    BucketKey(String name, UUID id) {
+        this(null, null, id);
+        this.name = name;
+    }
+
+    BucketKey(String prefix, UUID qualifier, UUID id) {
+        this.prefix = prefix;
+        this.qualifier = qualifier;
+        this.id = id;
+    }
+
+    public UUID id() { return id; }
+
+    public String name() {
+        String result = name;
+        if (result == null) {
+            result = prefix + qualifier;
+            name = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() { return name(); }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Derives the bucket keys of the hierarchical limiter. Global and tenant keys are built once and cached,
+ * user keys come straight from the user's UUID without hashing.
+ *
+ * With {@code cluster-keys} the names carry Redis Cluster hash tags: each global stripe is tagged on its own,
+ * user names are tagged with their tenant so a tenant and its users live in one slot. Proxy ids do not change.
+ */
+@Component
+public class BucketKeyDerivation {
+    static final String KEY_PREFIX = "ratelimit:";
+    static final String GLOBAL_KEY = KEY_PREFIX + "global";
+    static final String TENANT_PREFIX = KEY_PREFIX + "tenant:";
+    static final String USER_PREFIX = KEY_PREFIX + "user:";
+    static final String METHOD_PREFIX = KEY_PREFIX + "method:";
+
+    // Flips the version nibble 4 -> 8, so a derived user id never equals a random (v4) user id
+    // nor a name based (v3) global or tenant id.
+    private static final long SALT_MSB = 0x5bd1e9955bd1c995L;
+    private static final long SALT_LSB = 0x9e3779b97f4a7c15L;
+    private static final int MAX_CACHED_TENANTS = 10_000;
+
+    private record TenantKeys(BucketKey key, String userPrefix) { }
+
+    private final boolean clusterKeys;
+    private final BucketKey global;
+    private final BucketKey[] globalStripes;
+    private final ConcurrentMap<String, TenantKeys> tenants = new ConcurrentHashMap<>();
+
+    public BucketKeyDerivation(HierarchicalRateLimitProperties props) {
+        this.clusterKeys = props.isClusterKeys();
+        this.global = named(GLOBAL_KEY);
+        this.globalStripes = new BucketKey[Math.max(1, props.getGlobalStripes())];
+        for (int i = 0; i < globalStripes.length; i++) {
+            globalStripes[i] = named(GLOBAL_KEY + ":" + i);
+        }
+    }
+
+    public BucketKey global() { return global; }
+
+    public BucketKey globalStripe(int stripe) {
+        return stripe < globalStripes.length ? globalStripes[stripe] : named(GLOBAL_KEY + ":" + stripe);
+    }
+
+    public BucketKey tenant(String tenantId) {
+        return tenantKeys(tenantId).key();
+    }
+
+    public BucketKey user(String tenantId, UUID userId) {
+        return new BucketKey(tenantKeys(tenantId).userPrefix(), userId,
+                new UUID(userId.getMostSignificantBits() ^ SALT_MSB, userId.getLeastSignificantBits() ^ SALT_LSB));
+    }
+
+    public BucketKey user(String tenantId, String userId) {
+        if (userId.length() == 36) {
+            try {
+                return user(tenantId, UUID.fromString(userId));
+            } catch (IllegalArgumentException e) {
+                // not a UUID, falls through to a name based key
+            }
+        }
+        return new BucketKey(tenantKeys(tenantId).userPrefix() + userId, nameBasedId(USER_PREFIX + userId));
+    }
+
+    /** A caller's calls to one gRPC method, outside the hierarchy; built on every call, these keys are not cached. */
+    public BucketKey method(String fullMethodName, String tenantId, String userId) {
+        return named(METHOD_PREFIX + fullMethodName + ":" + tenantId + ":" + userId);
+    }
+
+    private TenantKeys tenantKeys(String tenantId) {
+        TenantKeys keys = tenants.get(tenantId);
+        if (keys == null) {
+            String name = TENANT_PREFIX + tenantId;
+            keys = new TenantKeys(named(name), clusterKeys ? tagged(name) + ":user:" : USER_PREFIX);
+            if (tenants.size() < MAX_CACHED_TENANTS) {
+                tenants.putIfAbsent(tenantId, keys);
+            }
+        }
+        return keys;
+    }
+
+    private BucketKey named(String name) {
+        return new BucketKey(clusterKeys ? tagged(name) : name, nameBasedId(name));
+    }
+
+    /** ratelimit:tenant:premium becomes ratelimit:{tenant:premium}, so the slot is picked by tenant:premium. */
+    private static String tagged(String name) {
+        return KEY_PREFIX + "{" + name.substring(KEY_PREFIX.length()) + "}";
+    }
+
+    private static UUID nameBasedId(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.ratelimiter.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last hierarchical decision per tenant and user, so a caller's requests do not each wait for Redis. The first request
+ * of a caller is decided remotely; while that decision allows, further requests costing up to
+ * {@code near-cache.max-credit} tokens in all are admitted at once and consumed remotely by a fixed pool of threads,
+ * each remote decision replacing the cached one. A cached denial is repeated without a round trip until
+ * {@code near-cache.ttl} has passed.
+ * <p>
+ * The credit of a new decision leaves out the tokens of the caller's admitted requests still waiting to be consumed,
+ * so a refresh never hands out credit those requests will take. When {@code near-cache.refresh-queue-capacity}
+ * consumptions are waiting, a request is decided remotely before it is answered. A request admitted on credit has
+ * already been answered when its consumption runs: if Redis denies it, it went through uncharged and the denial is
+ * cached for the caller's next requests. A node can thus admit up to the credit of each caller beyond the limits.
+ */
+@Component
+public class HierarchicalNearCache {
+    private record Caller(String tenantId, String userId) { }
+
+    private static final class Decision {
+        private final HierarchicalRateLimitResult result;
+        private final AtomicLong credit;
+
+        private Decision(HierarchicalRateLimitResult result, long maxCredit, long queued) {
+            this.result = result;
+            long remaining = Math.min(result.getRemainingTokensGlobal(),
+                    Math.min(result.getRemainingTokensTenant(), result.getRemainingTokensUser()));
+            this.credit = new AtomicLong(result.isAllowed() ? Math.max(0, Math.min(maxCredit, remaining) - queued) : 0);
+        }
+    }
+
+    private final HierarchicalRateLimiterService rateLimiterService;
+    private final Executor executor;
+    private final long maxCredit;
+    private final Cache<Caller, Decision> decisions;
+    /** Tokens of admitted requests per caller whose remote consumption has not finished yet. */
+    private final ConcurrentMap<Caller, Long> queued = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HierarchicalNearCache(HierarchicalRateLimiterService rateLimiterService, HierarchicalRateLimitProperties props) {
+        this(rateLimiterService, props, refreshExecutor(props.getNearCache()));
+    }
+
+    public HierarchicalNearCache(HierarchicalRateLimiterService rateLimiterService, HierarchicalRateLimitProperties props,
+                                 Executor executor) {
+        HierarchicalRateLimitProperties.NearCache nearCache = props.getNearCache();
+        this.rateLimiterService = rateLimiterService;
+        this.executor = executor;
+        this.maxCredit = nearCache.getMaxCredit();
+        this.decisions = Caffeine.newBuilder()
+                .maximumSize(nearCache.getMaxEntries())
+                .expireAfterWrite(nearCache.getTtl())
+                .build();
+    }
+
+    /** Fixed threads over a bounded queue; a full queue rejects, and the request is then decided before answering. */
+    private static ExecutorService refreshExecutor(HierarchicalRateLimitProperties.NearCache nearCache) {
+        return new ThreadPoolExecutor(nearCache.getRefreshThreads(), nearCache.getRefreshThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(nearCache.getRefreshQueueCapacity()),
+                Thread.ofPlatform().name("near-cache-", 0).daemon().factory());
+    }
+
+    public HierarchicalRateLimitResult isAllowed(String tenantId, String userId) {
+        return isAllowed(tenantId, userId, 1);
+    }
+
+    public HierarchicalRateLimitResult isAllowed(String tenantId, String userId, long cost) {
+        Caller caller = new Caller(tenantId, userId);
+        Decision cached = decisions.getIfPresent(caller);
+        if (cached != null && !cached.result.isAllowed()) {
+            return cached.result;
+        }
+        if (cached != null && cached.credit.getAndAdd(-cost) >= cost) {
+            queued.merge(caller, cost, Long::sum);
+            try {
+                executor.execute(() -> refresh(caller, cost));
+                return cached.result;
+            } catch (RejectedExecutionException e) {
+                // no capacity to consume in the background, consume before answering
+                dequeue(caller, cost);
+            }
+        }
+        HierarchicalRateLimitResult result = consume(caller, cost);
+        remember(caller, result);
+        return result;
+    }
+
+    private HierarchicalRateLimitResult consume(Caller caller, long cost) {
+        return rateLimiterService.isAllowed(new HierarchicalRateLimitRequest(caller.tenantId(), caller.userId(), cost));
+    }
+
+    private void refresh(Caller caller, long cost) {
+        HierarchicalRateLimitResult result;
+        try {
+            result = consume(caller, cost);
+        } catch (RuntimeException e) {
+            dequeue(caller, cost);
+            // the caller's next request is decided remotely and fails there
+            decisions.invalidate(caller);
+            return;
+        }
+        dequeue(caller, cost);
+        remember(caller, result);
+    }
+
+    private void remember(Caller caller, HierarchicalRateLimitResult result) {
+        decisions.put(caller, new Decision(result, maxCredit, queued.getOrDefault(caller, 0L)));
+    }
+
+    private void dequeue(Caller caller, long cost) {
+        queued.computeIfPresent(caller, (key, tokens) -> tokens == cost ? null : tokens - cost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+}
\ No newline at end of file
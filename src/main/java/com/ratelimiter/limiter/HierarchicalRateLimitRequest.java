@@ -0,0 +1,11 @@
+package com.ratelimiter.limiter;
+
+/**
+ * One item of {@link HierarchicalRateLimiterService#isAllowedBatch}, consuming {@code cost} tokens from every level.
+ * A null {@code userId} leaves out the user level, so only the global and tenant buckets are charged.
+ */
+public record HierarchicalRateLimitRequest(String tenantId, String userId, long cost) {
+    public HierarchicalRateLimitRequest(String tenantId, String userId) {
+        this(tenantId, userId, 1);
+    }
+}
\ No newline at end of file
@@ -1,63 +1,505 @@
 package com.ratelimiter.limiter;
 
 import com.ratelimiter.config.HierarchicalRateLimitProperties;
-import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.VerboseResult;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 public class HierarchicalRateLimiterService {
+    private static final HierarchicalRateLimitResult.Level[] LEVELS = {
+            HierarchicalRateLimitResult.Level.NONE,
+            HierarchicalRateLimitResult.Level.GLOBAL,
+            HierarchicalRateLimitResult.Level.TENANT,
+            HierarchicalRateLimitResult.Level.USER
+    };
+    private static final int MAX_SCRIPT_BATCH = 500;
+
     private final HierarchicalRateLimitProperties props;
     private final ProxyManager<UUID> proxyManager;
+    private final HierarchicalScriptEvaluator scriptEvaluator;
+    private final BucketKeyDerivation keys;
+    private final BucketConfigurationRegistry configurations;
+    private final ConcurrentMap<UUID, TokenLease> leases = new ConcurrentHashMap<>();
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final boolean tokenBucketsOnly;
+    private final boolean asyncProxies;
 
-    public HierarchicalRateLimiterService(HierarchicalRateLimitProperties props, ProxyManager<UUID> proxyManager) {
+    public HierarchicalRateLimiterService(HierarchicalRateLimitProperties props, ProxyManager<UUID> proxyManager,
+                                          HierarchicalScriptEvaluator scriptEvaluator, BucketKeyDerivation keys,
+                                          BucketConfigurationRegistry configurations) {
         this.props = props;
         this.proxyManager = proxyManager;
+        this.scriptEvaluator = scriptEvaluator;
+        this.keys = keys;
+        this.configurations = configurations;
+        this.tokenBucketsOnly = tokenBucketsOnly(props);
+        this.asyncProxies = proxyManager != null && proxyManager.isAsyncModeSupported();
+        if (!tokenBucketsOnly && (props.getEvaluationMode() != HierarchicalRateLimitProperties.EvaluationMode.SCRIPT
+                || props.getLeasing().isEnabled())) {
+            throw new IllegalStateException("Rate limit algorithms other than TOKEN_BUCKET need evaluation-mode SCRIPT without leasing");
+        }
     }
 
     private Bucket resolveBucket(UUID key, long limitPerHour) {
-        Bandwidth limit = Bandwidth.classic(limitPerHour, Refill.greedy(limitPerHour, Duration.ofHours(1)));
-        return proxyManager.builder().build(key, () -> io.github.bucket4j.BucketConfiguration.builder().addLimit(limit).build());
+        return proxyManager.builder().build(key, () -> configurations.hierarchical(limitPerHour));
+    }
+
+    private AsyncBucketProxy resolveAsyncBucket(UUID key, long limitPerHour) {
+        return proxyManager.asAsync().builder()
+                .build(key, () -> CompletableFuture.completedFuture(configurations.hierarchical(limitPerHour)));
     }
 
     public HierarchicalRateLimitResult isAllowed(String tenantId, String userId) {
-        // 1. Global
-        UUID globalKey = UUID.nameUUIDFromBytes("ratelimit:global".getBytes());
+        return isAllowed(tenantId, keys.user(tenantId, userId), 1);
+    }
+
+    public HierarchicalRateLimitResult isAllowed(String tenantId, UUID userId) {
+        return isAllowed(tenantId, keys.user(tenantId, userId), 1);
+    }
+
+    public HierarchicalRateLimitResult isAllowed(String tenantId, UUID userId, long cost) {
+        return isAllowed(tenantId, keys.user(tenantId, userId), cost);
+    }
+
+    public HierarchicalRateLimitResult isAllowed(HierarchicalRateLimitRequest request) {
+        return isAllowed(request.tenantId(), userKey(request), request.cost());
+    }
+
+    /**
+     * Takes one call from a caller's bucket of {@code limitPerHour} calls to a method, shared by every node like the
+     * hierarchical levels. The bucket is not part of the hierarchy: it is a single key, consumed in its own round
+     * trip, never leased and always a token bucket.
+     */
+    public boolean tryConsumeMethodCall(String fullMethodName, String tenantId, String userId, long limitPerHour) {
+        BucketKey key = keys.method(fullMethodName, tenantId, userId);
+        if (props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT) {
+            return scriptEvaluator.consume(List.of(key.name()), 1, limitPerHour).get(0) == 0;
+        }
+        return resolveBucket(key.id(), limitPerHour).tryConsume(1);
+    }
+
+    /** Hands back a call taken by {@link #tryConsumeMethodCall} that was then denied by the hierarchy. */
+    public void refundMethodCall(String fullMethodName, String tenantId, String userId, long limitPerHour) {
+        BucketKey key = keys.method(fullMethodName, tenantId, userId);
+        if (props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT) {
+            scriptEvaluator.lease(key.name(), limitPerHour, -1);
+        } else {
+            resolveBucket(key.id(), limitPerHour).addTokens(1);
+        }
+    }
+
+    /** The user level of a request, or null for a request without a user, which only the global and tenant level limit. */
+    private BucketKey userKey(HierarchicalRateLimitRequest request) {
+        return request.userId() != null ? keys.user(request.tenantId(), request.userId()) : null;
+    }
+
+    private static BucketKey[] levelKeys(BucketKey globalKey, BucketKey tenantKey, BucketKey userKey) {
+        return userKey != null ? new BucketKey[] {globalKey, tenantKey, userKey} : new BucketKey[] {globalKey, tenantKey};
+    }
+
+    /**
+     * Decides every request, with the same outcome as one {@code isAllowed} call per request, results in request
+     * order. In script mode each chunk of up to {@value #MAX_SCRIPT_BATCH} requests takes a single round trip that
+     * reads and writes every global, tenant and user bucket of the chunk once, in request order. Otherwise the
+     * requests are in flight at the same time, so requests competing for the last tokens of a bucket are decided in
+     * no particular order: in proxy mode without leasing over a bucket store with an asynchronous API every request is
+     * a chain of non-blocking bucket calls; with leasing, cluster keys, algorithms other than token buckets or a store
+     * without one (JCache) every request is decided on a virtual thread of its own.
+     */
+    public List<HierarchicalRateLimitResult> isAllowedBatch(List<HierarchicalRateLimitRequest> requests) {
+        boolean script = props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT;
+        if (!script || props.getLeasing().isEnabled() || props.isClusterKeys() || !tokenBucketsOnly) {
+            if (requests.size() == 1) {
+                return List.of(isAllowed(requests.get(0)));
+            }
+            boolean async = !script && !props.getLeasing().isEnabled() && asyncProxies;
+            List<CompletableFuture<HierarchicalRateLimitResult>> decisions = new ArrayList<>(requests.size());
+            for (HierarchicalRateLimitRequest request : requests) {
+                decisions.add(async ? isAllowedAsync(request)
+                        : CompletableFuture.supplyAsync(() -> isAllowed(request), batchExecutor));
+            }
+            return join(decisions);
+        }
+        List<HierarchicalRateLimitResult> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += MAX_SCRIPT_BATCH) {
+            results.addAll(evaluateBatch(requests.subList(from, Math.min(requests.size(), from + MAX_SCRIPT_BATCH))));
+        }
+        return results;
+    }
+
+    private static List<HierarchicalRateLimitResult> join(List<CompletableFuture<HierarchicalRateLimitResult>> decisions) {
+        List<HierarchicalRateLimitResult> results = new ArrayList<>(decisions.size());
+        try {
+            for (CompletableFuture<HierarchicalRateLimitResult> decision : decisions) {
+                results.add(decision.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /** Proxy mode without leasing through the asynchronous API, spilling over global stripes as {@code isAllowed}. */
+    private CompletableFuture<HierarchicalRateLimitResult> isAllowedAsync(HierarchicalRateLimitRequest request) {
+        long globalLimit = props.getGlobal().getLimitPerHour();
+        long tenantLimit = tenantLimit(request.tenantId(), globalLimit);
+        long userLimit = props.getUsers().getDefaultPerTenant();
+        BucketKey tenantKey = keys.tenant(request.tenantId());
+        BucketKey userKey = userKey(request);
+
+        int stripes = stripes(globalLimit);
+        if (stripes == 1) {
+            return consumeAsync(0, levelKeys(keys.global(), tenantKey, userKey),
+                    new long[] {globalLimit, tenantLimit, userLimit}, new long[] {-1, -1, -1}, request.cost());
+        }
+        int stripe = firstStripe(userKey != null ? userKey : tenantKey, stripes);
+        CompletableFuture<HierarchicalRateLimitResult> result = null;
+        for (int i = 0; i < spillAttempts(stripes); i++) {
+            int s = (stripe + i) % stripes;
+            BucketKey[] levelKeys = levelKeys(keys.globalStripe(s), tenantKey, userKey);
+            long[] limits = {stripeLimit(globalLimit, stripes, s), tenantLimit, userLimit};
+            result = result == null ? consumeAsync(0, levelKeys, limits, new long[] {-1, -1, -1}, request.cost())
+                    : result.thenCompose(previous -> previous.getDeniedAt() != HierarchicalRateLimitResult.Level.GLOBAL
+                            ? CompletableFuture.completedFuture(previous)
+                            : consumeAsync(0, levelKeys, limits, new long[] {-1, -1, -1}, request.cost()));
+        }
+        return result;
+    }
+
+    /** Asynchronous counterpart of {@link #consumeThroughProxies}, consuming the levels from {@code level} on. */
+    private CompletableFuture<HierarchicalRateLimitResult> consumeAsync(int level, BucketKey[] levelKeys, long[] limits,
+                                                                        long[] remaining, long cost) {
+        if (level == levelKeys.length) {
+            return CompletableFuture.completedFuture(new HierarchicalRateLimitResult(true,
+                    HierarchicalRateLimitResult.Level.NONE, remaining[0], remaining[1], remaining[2]));
+        }
+        return resolveAsyncBucket(levelKeys[level].id(), limits[level]).tryConsumeAndReturnRemaining(cost)
+                .thenCompose(probe -> {
+                    remaining[level] = probe.getRemainingTokens();
+                    if (!probe.isConsumed()) {
+                        return CompletableFuture.completedFuture(new HierarchicalRateLimitResult(false,
+                                LEVELS[level + 1], remaining[0], remaining[1], remaining[2]));
+                    }
+                    return consumeAsync(level + 1, levelKeys, limits, remaining, cost);
+                });
+    }
+
+    private List<HierarchicalRateLimitResult> evaluateBatch(List<HierarchicalRateLimitRequest> requests) {
         long globalLimit = props.getGlobal().getLimitPerHour();
-        Bucket globalBucket = resolveBucket(globalKey, globalLimit);
-        boolean globalAllowed = globalBucket.tryConsume(1);
-        long remainingGlobal = globalBucket.getAvailableTokens();
-        if (!globalAllowed) {
-            return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.GLOBAL, remainingGlobal, -1, -1);
-        }
-        // 2. Tenant
-        String tenantKeyStr = "ratelimit:tenant:" + tenantId;
-        UUID tenantKey = UUID.nameUUIDFromBytes(tenantKeyStr.getBytes());
-        Map<String, HierarchicalRateLimitProperties.LimitSpec> tenants = props.getTenants();
-        long tenantLimit = tenants != null && tenants.containsKey(tenantId) ? tenants.get(tenantId).getLimitPerHour() : globalLimit;
-        Bucket tenantBucket = resolveBucket(tenantKey, tenantLimit);
-        boolean tenantAllowed = tenantBucket.tryConsume(1);
-        long remainingTenant = tenantBucket.getAvailableTokens();
-        if (!tenantAllowed) {
-            return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, remainingGlobal, remainingTenant, -1);
-        }
-        // 3. User
-        String userKeyStr = "ratelimit:user:" + userId;
-        UUID userKey = UUID.nameUUIDFromBytes(userKeyStr.getBytes());
         long userLimit = props.getUsers().getDefaultPerTenant();
-        Bucket userBucket = resolveBucket(userKey, userLimit);
-        boolean userAllowed = userBucket.tryConsume(1);
-        long remainingUser = userBucket.getAvailableTokens();
-        if (!userAllowed) {
-            return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.USER, remainingGlobal, remainingTenant, remainingUser);
+        int stripes = stripes(globalLimit);
+        int attempts = spillAttempts(stripes);
+        BatchKeys batchKeys = new BatchKeys(requests.size() * 2 + stripes);
+        List<long[]> batch = new ArrayList<>(requests.size());
+        for (HierarchicalRateLimitRequest request : requests) {
+            BucketKey tenantKey = keys.tenant(request.tenantId());
+            BucketKey userKey = userKey(request);
+            long[] item = new long[3 + attempts];
+            item[0] = request.cost();
+            item[1] = batchKeys.index(tenantKey, tenantLimit(request.tenantId(), globalLimit));
+            item[2] = userKey != null ? batchKeys.index(userKey, userLimit) : -1;
+            if (stripes == 1) {
+                item[3] = batchKeys.index(keys.global(), globalLimit);
+            } else {
+                int stripe = firstStripe(userKey != null ? userKey : tenantKey, stripes);
+                for (int i = 0; i < attempts; i++) {
+                    int s = (stripe + i) % stripes;
+                    item[3 + i] = batchKeys.index(keys.globalStripe(s), stripeLimit(globalLimit, stripes, s));
+                }
+            }
+            batch.add(item);
+        }
+        return scriptEvaluator.evaluateBatch(batchKeys.names, batchKeys.limits(), batch);
+    }
+
+    /** Distinct keys of a batch with their limits, so a bucket shared by several requests is passed once. */
+    private static final class BatchKeys {
+        private final Map<String, Integer> indexes;
+        private final List<String> names;
+        private long[] limits;
+
+        private BatchKeys(int expectedKeys) {
+            this.indexes = new HashMap<>(expectedKeys * 2);
+            this.names = new ArrayList<>(expectedKeys);
+            this.limits = new long[expectedKeys];
+        }
+
+        private int index(BucketKey key, long limit) {
+            return indexes.computeIfAbsent(key.name(), name -> {
+                int index = names.size();
+                names.add(name);
+                if (index == limits.length) {
+                    limits = Arrays.copyOf(limits, index * 2 + 1);
+                }
+                limits[index] = limit;
+                return index;
+            });
+        }
+
+        private long[] limits() { return Arrays.copyOf(limits, names.size()); }
+    }
+
+    private HierarchicalRateLimitResult isAllowed(String tenantId, BucketKey userKey, long cost) {
+        long globalLimit = props.getGlobal().getLimitPerHour();
+        long tenantLimit = tenantLimit(tenantId, globalLimit);
+        long userLimit = props.getUsers().getDefaultPerTenant();
+        BucketKey tenantKey = keys.tenant(tenantId);
+        RateLimitAlgorithm[] algorithms = algorithms(tenantId);
+
+        int stripes = stripes(globalLimit);
+        if (stripes == 1) {
+            return isAllowed(keys.global(), globalLimit, tenantKey, tenantLimit, userKey, userLimit, algorithms, cost);
         }
-        // All allowed
-        return new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, remainingGlobal, remainingTenant, remainingUser);
+        // A global denial consumed nothing, so the request can safely retry on a neighbouring stripe
+        int stripe = firstStripe(userKey != null ? userKey : tenantKey, stripes);
+        int attempts = spillAttempts(stripes);
+        HierarchicalRateLimitResult result = null;
+        for (int i = 0; i < attempts; i++) {
+            int s = (stripe + i) % stripes;
+            result = isAllowed(keys.globalStripe(s), stripeLimit(globalLimit, stripes, s), tenantKey, tenantLimit,
+                    userKey, userLimit, algorithms, cost);
+            if (result.getDeniedAt() != HierarchicalRateLimitResult.Level.GLOBAL) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private long tenantLimit(String tenantId, long globalLimit) {
+        HierarchicalRateLimitProperties.LimitSpec tenantSpec = tenantSpec(tenantId);
+        return tenantSpec != null ? tenantSpec.getLimitPerHour() : globalLimit;
+    }
+
+    private HierarchicalRateLimitProperties.LimitSpec tenantSpec(String tenantId) {
+        Map<String, HierarchicalRateLimitProperties.LimitSpec> tenants = props.getTenants();
+        return tenants != null ? tenants.get(tenantId) : null;
+    }
+
+    /** Algorithms of the global, tenant and user level; a tenant without limits of its own follows the global level. */
+    private RateLimitAlgorithm[] algorithms(String tenantId) {
+        HierarchicalRateLimitProperties.LimitSpec tenantSpec = tenantSpec(tenantId);
+        RateLimitAlgorithm global = props.getGlobal().getAlgorithm();
+        return new RateLimitAlgorithm[] {global, tenantSpec != null ? tenantSpec.getAlgorithm() : global,
+                props.getUsers().getAlgorithm()};
+    }
+
+    private static boolean tokenBucketsOnly(HierarchicalRateLimitProperties props) {
+        List<RateLimitAlgorithm> algorithms = new ArrayList<>();
+        if (props.getGlobal() != null) {
+            algorithms.add(props.getGlobal().getAlgorithm());
+        }
+        if (props.getTenants() != null) {
+            props.getTenants().values().forEach(spec -> algorithms.add(spec.getAlgorithm()));
+        }
+        if (props.getUsers() != null) {
+            algorithms.add(props.getUsers().getAlgorithm());
+        }
+        return algorithms.stream().allMatch(algorithm -> algorithm == RateLimitAlgorithm.TOKEN_BUCKET);
+    }
+
+    private int stripes(long globalLimit) {
+        return (int) Math.min(Math.max(1, props.getGlobalStripes()), Math.max(1, globalLimit));
+    }
+
+    private static int firstStripe(BucketKey key, int stripes) {
+        int hash = key.id().hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes);
+    }
+
+    private int spillAttempts(int stripes) {
+        return 1 + Math.min(Math.max(0, props.getGlobalSpill()), stripes - 1);
+    }
+
+    private static long stripeLimit(long globalLimit, int stripes, int stripe) {
+        return globalLimit / stripes + (stripe < globalLimit % stripes ? 1 : 0);
+    }
+
+    private HierarchicalRateLimitResult isAllowed(BucketKey globalKey, long globalLimit, BucketKey tenantKey, long tenantLimit,
+                                                  BucketKey userKey, long userLimit, RateLimitAlgorithm[] algorithms, long cost) {
+        HierarchicalRateLimitProperties.Leasing leasing = props.getLeasing();
+        boolean script = props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT;
+        boolean tokenBuckets = Arrays.stream(algorithms).allMatch(algorithm -> algorithm == RateLimitAlgorithm.TOKEN_BUCKET);
+        if (!leasing.isEnabled() && script && !props.isClusterKeys() && tokenBuckets && userKey != null) {
+            return scriptEvaluator.evaluate(cost, globalKey.name(), globalLimit, tenantKey.name(), tenantLimit,
+                    userKey.name(), userLimit);
+        }
+
+        BucketKey[] levelKeys = levelKeys(globalKey, tenantKey, userKey);
+        long[] limits = Arrays.copyOf(new long[] {globalLimit, tenantLimit, userLimit}, levelKeys.length);
+        if (!tokenBuckets) {
+            return consumeWithAlgorithms(levelKeys, limits, algorithms, cost);
+        }
+        long[] remaining = {-1, -1, -1};
+        if (!leasing.isEnabled() && script && props.isClusterKeys()) {
+            // The global key lives in a slot of its own, tenant and user keys share the tenant's slot
+            List<Long> reply = scriptEvaluator.consume(List.of(globalKey.name()), cost, globalLimit);
+            remaining[0] = reply.get(1);
+            if (reply.get(0) != 0) {
+                return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.GLOBAL, remaining[0], -1, -1);
+            }
+            HierarchicalRateLimitResult result = consumeRemote(1, levelKeys, limits, remaining, cost);
+            if (!result.isAllowed()) {
+                scriptEvaluator.lease(globalKey.name(), globalLimit, -cost);
+            }
+            return result;
+        }
+        if (!leasing.isEnabled()) {
+            return consumeRemote(0, levelKeys, limits, remaining, cost);
+        }
+
+        // Leased levels are served from node-local tokens, the remaining levels go to Redis
+        TokenLease globalLease = lease(globalKey, globalLimit);
+        boolean globalConsumed = globalLease.tryConsume(cost);
+        remaining[0] = globalLease.getAvailableTokens();
+        if (!globalConsumed) {
+            return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.GLOBAL, remaining[0], -1, -1);
+        }
+        TokenLease tenantLease = null;
+        if (leasing.isTenants()) {
+            tenantLease = lease(tenantKey, tenantLimit);
+            boolean tenantConsumed = tenantLease.tryConsume(cost);
+            remaining[1] = tenantLease.getAvailableTokens();
+            if (!tenantConsumed) {
+                globalLease.refund(cost);
+                return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, remaining[0], remaining[1], -1);
+            }
+        }
+        HierarchicalRateLimitResult result = consumeRemote(tenantLease == null ? 1 : 2, levelKeys, limits, remaining, cost);
+        if (!result.isAllowed()) {
+            globalLease.refund(cost);
+            if (tenantLease != null) {
+                tenantLease.refund(cost);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Script mode with at least one level limited by another algorithm than a token bucket. With cluster keys the
+     * global level is consumed in its own round trip and handed back if the tenant or user level denies.
+     */
+    private HierarchicalRateLimitResult consumeWithAlgorithms(BucketKey[] levelKeys, long[] limits,
+                                                              RateLimitAlgorithm[] algorithms, long cost) {
+        List<String> names = new ArrayList<>(levelKeys.length);
+        for (int i = 0; i < levelKeys.length; i++) {
+            names.add(algorithms[i].key(levelKeys[i].name()));
+        }
+        if (!props.isClusterKeys()) {
+            List<Long> reply = scriptEvaluator.consume(names, cost, algorithms, limits);
+            int deniedAt = reply.get(0).intValue();
+            return new HierarchicalRateLimitResult(deniedAt == 0, LEVELS[deniedAt], reply.get(1), reply.get(2),
+                    reply.size() > 3 ? reply.get(3) : -1);
+        }
+        RateLimitAlgorithm[] globalAlgorithm = {algorithms[0]};
+        List<Long> global = scriptEvaluator.consume(names.subList(0, 1), cost, globalAlgorithm, limits[0]);
+        if (global.get(0) != 0) {
+            return new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.GLOBAL, global.get(1), -1, -1);
+        }
+        List<Long> reply = scriptEvaluator.consume(names.subList(1, names.size()), cost, Arrays.copyOfRange(algorithms, 1, 3),
+                Arrays.copyOfRange(limits, 1, limits.length));
+        int deniedAt = reply.get(0).intValue();
+        if (deniedAt != 0) {
+            scriptEvaluator.consume(names.subList(0, 1), -cost, globalAlgorithm, limits[0]);
+        }
+        return new HierarchicalRateLimitResult(deniedAt == 0, deniedAt == 0 ? HierarchicalRateLimitResult.Level.NONE : LEVELS[1 + deniedAt],
+                global.get(1), reply.get(1), reply.size() > 2 ? reply.get(2) : -1);
+    }
+
+    /**
+     * Consumes {@code cost} tokens from the levels starting at {@code from} and fills their entries of {@code remaining}.
+     */
+    private HierarchicalRateLimitResult consumeRemote(int from, BucketKey[] levelKeys, long[] limits, long[] remaining, long cost) {
+        if (from == levelKeys.length) {
+            return new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, remaining[0], remaining[1], remaining[2]);
+        }
+        List<Long> reply;
+        if (props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT) {
+            String[] names = new String[levelKeys.length - from];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = levelKeys[from + i].name();
+            }
+            reply = scriptEvaluator.consume(Arrays.asList(names), cost, Arrays.copyOfRange(limits, from, limits.length));
+        } else {
+            reply = consumeThroughProxies(from, levelKeys, limits, cost);
+        }
+        for (int i = 1; i < reply.size(); i++) {
+            remaining[from + i - 1] = reply.get(i);
+        }
+        int deniedAt = reply.get(0).intValue();
+        HierarchicalRateLimitResult.Level level = deniedAt == 0 ? HierarchicalRateLimitResult.Level.NONE : LEVELS[from + deniedAt];
+        return new HierarchicalRateLimitResult(deniedAt == 0, level, remaining[0], remaining[1], remaining[2]);
+    }
+
+    /** Same reply layout as the hierarchical script; levels after the denying one stay at -1. */
+    private List<Long> consumeThroughProxies(int from, BucketKey[] levelKeys, long[] limits, long cost) {
+        Long[] reply = new Long[levelKeys.length - from + 1];
+        Arrays.fill(reply, -1L);
+        reply[0] = 0L;
+        for (int i = from; i < levelKeys.length; i++) {
+            ConsumptionProbe probe = resolveBucket(levelKeys[i].id(), limits[i]).tryConsumeAndReturnRemaining(cost);
+            reply[i - from + 1] = probe.getRemainingTokens();
+            if (!probe.isConsumed()) {
+                reply[0] = (long) i - from + 1;
+                break;
+            }
+        }
+        return Arrays.asList(reply);
+    }
+
+    private TokenLease lease(BucketKey key, long limit) {
+        return leases.computeIfAbsent(key.id(), id -> {
+            HierarchicalRateLimitProperties.Leasing leasing = props.getLeasing();
+            long leaseSize = TokenLease.effectiveLeaseSize(leasing.getLeaseSize(), leasing.getMaxOvershootRatio(), limit);
+            return new TokenLease(leaseSource(key, limit), leaseSize, leasing.getLeaseTtl());
+        });
+    }
+
+    private TokenLease.Source leaseSource(BucketKey key, long limit) {
+        if (props.getEvaluationMode() == HierarchicalRateLimitProperties.EvaluationMode.SCRIPT) {
+            String name = key.name();
+            return new TokenLease.Source() {
+                @Override
+                public TokenLease.Grant acquire(long maxTokens) { return scriptEvaluator.lease(name, limit, maxTokens); }
+                @Override
+                public void release(long tokens) { scriptEvaluator.lease(name, limit, -tokens); }
+            };
+        }
+        Bucket bucket = resolveBucket(key.id(), limit);
+        return new TokenLease.Source() {
+            @Override
+            public TokenLease.Grant acquire(long maxTokens) {
+                VerboseResult<Long> result = bucket.asVerbose().tryConsumeAsMuchAsPossible(maxTokens);
+                return new TokenLease.Grant(result.getValue(), result.getDiagnostics().getAvailableTokens());
+            }
+            @Override
+            public void release(long tokens) { bucket.addTokens(tokens); }
+        };
+    }
+
+    @PreDestroy
+    public void releaseLeases() {
+        batchExecutor.shutdown();
+        leases.values().forEach(TokenLease::close);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
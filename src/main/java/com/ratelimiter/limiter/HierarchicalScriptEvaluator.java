@@ -0,0 +1,143 @@
+package com.ratelimiter.limiter;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the global, tenant and user levels in one Redis round trip by running
+ * {@code scripts/hierarchical-rate-limit.lua} server side. Tokens are consumed from all
+ * three levels or from none, and the reply carries the remaining tokens of every level.
+ */
+@Component
+public class HierarchicalScriptEvaluator {
+    private static final String REFILL_PERIOD_MILLIS = String.valueOf(Duration.ofHours(1).toMillis());
+    private static final HierarchicalRateLimitResult.Level[] LEVELS = {
+            HierarchicalRateLimitResult.Level.NONE,
+            HierarchicalRateLimitResult.Level.GLOBAL,
+            HierarchicalRateLimitResult.Level.TENANT,
+            HierarchicalRateLimitResult.Level.USER
+    };
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hierarchical-rate-limit.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> BATCH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hierarchical-rate-limit-batch.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ALGORITHMS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-algorithms.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token-lease.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public HierarchicalScriptEvaluator(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public HierarchicalRateLimitResult evaluate(String globalKey, long globalLimit,
+                                                String tenantKey, long tenantLimit,
+                                                String userKey, long userLimit) {
+        return evaluate(1, globalKey, globalLimit, tenantKey, tenantLimit, userKey, userLimit);
+    }
+
+    public HierarchicalRateLimitResult evaluate(long cost, String globalKey, long globalLimit,
+                                                String tenantKey, long tenantLimit,
+                                                String userKey, long userLimit) {
+        List<Long> reply = consume(List.of(globalKey, tenantKey, userKey), cost, globalLimit, tenantLimit, userLimit);
+        return result(reply, 0);
+    }
+
+    /**
+     * Consumes {@code cost} tokens from every key or from none. The reply starts with the 1-based index of the
+     * first key that denied (0 when allowed), followed by the remaining tokens of each key.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> consume(List<String> keys, long cost, long... limits) {
+        Object[] args = new Object[limits.length + 2];
+        args[0] = String.valueOf(cost);
+        args[1] = REFILL_PERIOD_MILLIS;
+        for (int i = 0; i < limits.length; i++) {
+            args[i + 2] = String.valueOf(limits[i]);
+        }
+        return redisTemplate.execute(SCRIPT, keys, args);
+    }
+
+    /**
+     * Admits {@code cost} requests on every key or on none, each key limited by its own algorithm with
+     * {@code scripts/rate-limit-algorithms.lua}; a negative cost hands requests back. The reply is laid out as the one
+     * of {@link #consume(List, long, long...)}, followed by the milliseconds until the denying key could admit them.
+     */
+    public List<Long> consume(List<String> keys, long cost, RateLimitAlgorithm[] algorithms, long... limits) {
+        return consume(keys, cost, REFILL_PERIOD_MILLIS, algorithms, limits);
+    }
+
+    /** As {@link #consume(List, long, RateLimitAlgorithm[], long...)}, with limits per {@code period} instead of per hour. */
+    public List<Long> consume(List<String> keys, long cost, Duration period, RateLimitAlgorithm[] algorithms, long... limits) {
+        return consume(keys, cost, String.valueOf(period.toMillis()), algorithms, limits);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> consume(List<String> keys, long cost, String periodMillis, RateLimitAlgorithm[] algorithms, long... limits) {
+        Object[] args = new Object[limits.length * 2 + 2];
+        args[0] = String.valueOf(cost);
+        args[1] = periodMillis;
+        for (int i = 0; i < limits.length; i++) {
+            args[i * 2 + 2] = String.valueOf(algorithms[i].scriptId());
+            args[i * 2 + 3] = String.valueOf(limits[i]);
+        }
+        return redisTemplate.execute(ALGORITHMS_SCRIPT, keys, args);
+    }
+
+    /**
+     * Decides a batch of requests in order with {@code scripts/hierarchical-rate-limit-batch.lua}. Every request is
+     * {@code {cost, tenant, user, global...}} with indexes into {@code keys}, user -1 for a request without a user
+     * level; a request denied on its first global key
+     * spills over to the next ones. Each of {@code keys} is read and written once, whatever the number of requests.
+     */
+    @SuppressWarnings("unchecked")
+    public List<HierarchicalRateLimitResult> evaluateBatch(List<String> keys, long[] limits, List<long[]> requests) {
+        List<Object> args = new ArrayList<>(1 + keys.size() + requests.size() * 5);
+        args.add(REFILL_PERIOD_MILLIS);
+        for (int i = 0; i < keys.size(); i++) {
+            args.add(String.valueOf(limits[i]));
+        }
+        for (long[] request : requests) {
+            args.add(String.valueOf(request[0]));
+            args.add(String.valueOf(request[1] + 1));
+            args.add(String.valueOf(request[2] + 1));
+            args.add(String.valueOf(request.length - 3));
+            for (int i = 3; i < request.length; i++) {
+                args.add(String.valueOf(request[i] + 1));
+            }
+        }
+        List<Long> reply = redisTemplate.execute(BATCH_SCRIPT, keys, args.toArray());
+        List<HierarchicalRateLimitResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(result(reply, i * 4));
+        }
+        return results;
+    }
+
+    private static HierarchicalRateLimitResult result(List<Long> reply, int offset) {
+        HierarchicalRateLimitResult.Level deniedAt = LEVELS[reply.get(offset).intValue()];
+        return new HierarchicalRateLimitResult(deniedAt == HierarchicalRateLimitResult.Level.NONE, deniedAt,
+                reply.get(offset + 1), reply.get(offset + 2), reply.get(offset + 3));
+    }
+
+    /** Leases up to {@code tokens} tokens from {@code key}, or hands them back when negative. */
+    @SuppressWarnings("unchecked")
+    public TokenLease.Grant lease(String key, long limit, long tokens) {
+        List<Long> reply = redisTemplate.execute(LEASE_SCRIPT, List.of(key),
+                String.valueOf(tokens), REFILL_PERIOD_MILLIS, String.valueOf(limit));
+        return new TokenLease.Grant(reply.get(0), reply.get(1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.ratelimiter.limiter;
+
+/**
+ * Algorithm a hierarchy level or a plan limits with. Every algorithm admits {@code limit} requests per refill period;
+ * they differ in how bursts and period boundaries are treated and in how much Redis state a key takes.
+ * Token buckets run through Bucket4j or {@code scripts/hierarchical-rate-limit.lua}, the other algorithms through
+ * {@code scripts/rate-limit-algorithms.lua}.
+ */
+public enum RateLimitAlgorithm {
+    /** Greedily refilling bucket: a hash of token count and timestamp per key, bursts of up to the full limit. */
+    TOKEN_BUCKET(1, ""),
+    /**
+     * Generic cell rate algorithm: a single theoretical arrival time per key. Admits the same bursts as a token
+     * bucket, with the smallest state of all.
+     */
+    GCRA(2, ":gcra"),
+    /**
+     * Counts of the current and the previous fixed window, the previous one weighted by its overlap with the sliding
+     * window. Constant state per key, approximate at window boundaries.
+     */
+    SLIDING_WINDOW_COUNTER(3, ":swc"),
+    /** One timestamp per admitted token within the window. Exact, but state grows with the limit. */
+    SLIDING_WINDOW_LOG(4, ":swl");
+
+    private final int scriptId;
+    private final String keySuffix;
+
+    RateLimitAlgorithm(int scriptId, String keySuffix) {
+        this.scriptId = scriptId;
+        this.keySuffix = keySuffix;
+    }
+
+    /** Selects the routine of {@code scripts/rate-limit-algorithms.lua} that keeps this algorithm's state. */
+    public int scriptId() { return scriptId; }
+
+    /** Appended to a bucket key name, so switching algorithms never reads state written by another one. */
+    public String key(String name) { return name + keySuffix; }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.ratelimiter.limiter;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bucket4j proxy manager storing bucket state as plain Redis strings, swapped by {@code scripts/compare-and-swap.lua}.
+ * Keys are a short prefix followed by the 16 raw bytes of the bucket id, and every write sets an expiry derived from
+ * the given {@link ExpirationAfterWriteStrategy}, so idle buckets disappear once they would be full again anyway.
+ * <p>
+ * Asynchronous mode is supported when the connection factory is also a {@link ReactiveRedisConnectionFactory}, as
+ * Lettuce's is: the same commands are then sent through the non-blocking driver instead of a pooled connection.
+ */
+public class RedisCompareAndSwapProxyManager extends AbstractCompareAndSwapBasedProxyManager<UUID> {
+    private static final byte[] KEY_PREFIX = "rl:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ABSENT = new byte[0];
+    private static final RedisScript<Long> COMPARE_AND_SWAP =
+            RedisScript.of(new ClassPathResource("scripts/compare-and-swap.lua"), Long.class);
+
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final ReactiveRedisTemplate<byte[], byte[]> reactiveRedisTemplate;
+    private final ExpirationAfterWriteStrategy expiration;
+
+    public RedisCompareAndSwapProxyManager(RedisConnectionFactory connectionFactory, ExpirationAfterWriteStrategy expiration) {
+        super(ClientSideConfig.getDefault());
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setEnableDefaultSerializer(false);
+        this.redisTemplate.setKeySerializer(RedisSerializer.byteArray());
+        this.redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        this.redisTemplate.afterPropertiesSet();
+        this.reactiveRedisTemplate = connectionFactory instanceof ReactiveRedisConnectionFactory reactive
+                ? new ReactiveRedisTemplate<>(reactive, RedisSerializationContext.byteArray()) : null;
+        this.expiration = expiration;
+    }
+
+    static byte[] key(UUID id) {
+        return ByteBuffer.allocate(KEY_PREFIX.length + 16)
+                .put(KEY_PREFIX)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(UUID id) {
+        byte[] key = key(id);
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                return Optional.ofNullable(redisTemplate.opsForValue().get(key));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState,
+                                          Optional<Long> timeoutNanos) {
+                Long swapped = redisTemplate.execute(COMPARE_AND_SWAP, List.of(key),
+                        compareAndSwapArgs(originalData, newData, newState).toArray());
+                return swapped != null && swapped == 1L;
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(UUID id) {
+        byte[] key = key(id);
+        ReactiveRedisTemplate<byte[], byte[]> reactive = reactiveRedisTemplate();
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                return reactive.opsForValue().get(key).map(Optional::of).defaultIfEmpty(Optional.empty()).toFuture();
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                List<byte[]> args = compareAndSwapArgs(originalData, newData, newState);
+                return reactive.execute(COMPARE_AND_SWAP, List.of(key), args)
+                        .next().map(swapped -> swapped == 1L).defaultIfEmpty(false).toFuture();
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(UUID id) {
+        redisTemplate.delete(key(id));
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(UUID id) {
+        return reactiveRedisTemplate().delete(key(id)).then().toFuture();
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return reactiveRedisTemplate != null;
+    }
+
+    private ReactiveRedisTemplate<byte[], byte[]> reactiveRedisTemplate() {
+        // Bucket4j checks isAsyncModeSupported() before handing out an async proxy manager
+        if (reactiveRedisTemplate == null) {
+            throw new IllegalStateException("Asynchronous mode needs a reactive connection factory");
+        }
+        return reactiveRedisTemplate;
+    }
+
+    private List<byte[]> compareAndSwapArgs(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+        long ttlMillis = expiration.calculateTimeToLiveMillis(newState, currentTimeNanos());
+        return List.of(originalData == null ? ABSENT : originalData, newData,
+                String.valueOf(ttlMillis).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private long currentTimeNanos() {
+        return getClientSideConfig().getClientSideClock()
+                .map(TimeMeter::currentTimeNanos)
+                .orElseGet(() -> System.currentTimeMillis() * 1_000_000);
+    }
+}
\ No newline at end of file
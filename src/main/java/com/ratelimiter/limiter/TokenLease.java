@@ -0,0 +1,135 @@
+package com.ratelimiter.limiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Node-local lease over a distributed bucket. Tokens are taken from the distributed bucket in
+ * chunks of {@code leaseSize} and handed out from a lock-free local counter, so only one request
+ * per chunk pays the remote round trip. Leased tokens that are still unused when the lease expires
+ * are handed back to the distributed bucket on the next renewal or on {@link #close()}.
+ *
+ * Leased tokens are debited remotely before they are served, so a lease never lets a node consume
+ * tokens the bucket did not have. It can only shift when they are served: a node may still serve
+ * up to {@code leaseSize} tokens for {@code leaseTtl} after the bucket itself ran dry.
+ */
+public class TokenLease {
+
+    /** The distributed bucket a lease is taken from. */
+    public interface Source {
+        /** Takes up to {@code maxTokens} tokens, as many as are available. */
+        Grant acquire(long maxTokens);
+
+        /** Hands unused tokens back. */
+        void release(long tokens);
+    }
+
+    public record Grant(long tokens, long remaining) { }
+
+    private static final class Lease {
+        private final AtomicLong tokens;
+        private final long expiresAtNanos;
+        private final long remoteRemaining;
+
+        private Lease(long tokens, long expiresAtNanos, long remoteRemaining) {
+            this.tokens = new AtomicLong(tokens);
+            this.expiresAtNanos = expiresAtNanos;
+            this.remoteRemaining = remoteRemaining;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        private boolean take(long cost, long now) {
+            if (isExpired(now)) {
+                return false;
+            }
+            long available = tokens.get();
+            while (available >= cost) {
+                if (tokens.compareAndSet(available, available - cost)) {
+                    return true;
+                }
+                available = tokens.get();
+            }
+            return false;
+        }
+    }
+
+    private final Source source;
+    private final long leaseSize;
+    private final long leaseTtlNanos;
+    private final AtomicReference<Lease> current;
+    private final AtomicBoolean renewing = new AtomicBoolean();
+
+    public TokenLease(Source source, long leaseSize, Duration leaseTtl) {
+        this.source = source;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.current = new AtomicReference<>(new Lease(0, System.nanoTime(), -1));
+    }
+
+    /**
+     * Largest lease that keeps a single node's overshoot within {@code maxOvershootRatio} of the limit.
+     */
+    public static long effectiveLeaseSize(long leaseSize, double maxOvershootRatio, long limit) {
+        return Math.max(1, Math.min(leaseSize, (long) Math.floor(limit * maxOvershootRatio)));
+    }
+
+    public boolean tryConsume(long cost) {
+        long now = System.nanoTime();
+        if (current.get().take(cost, now)) {
+            return true;
+        }
+        if (!renewing.compareAndSet(false, true)) {
+            // another thread is renewing the lease, go to the distributed bucket directly
+            Grant grant = source.acquire(cost);
+            if (grant.tokens() < cost) {
+                if (grant.tokens() > 0) {
+                    source.release(grant.tokens());
+                }
+                return false;
+            }
+            return true;
+        }
+        try {
+            Lease stale = current.get();
+            long leftover = stale.tokens.getAndSet(0);
+            if (stale.isExpired(now) && leftover > 0) {
+                source.release(leftover);
+                leftover = 0;
+            }
+            Grant grant = source.acquire(Math.max(leaseSize, cost) - leftover);
+            long tokens = leftover + grant.tokens();
+            boolean consumed = tokens >= cost;
+            current.set(new Lease(consumed ? tokens - cost : tokens, now + leaseTtlNanos, grant.remaining()));
+            return consumed;
+        } finally {
+            renewing.set(false);
+        }
+    }
+
+    /** Gives back tokens consumed by a request that a lower level went on to deny. */
+    public void refund(long cost) {
+        Lease lease = current.get();
+        if (!lease.isExpired(System.nanoTime())) {
+            lease.tokens.addAndGet(cost);
+        }
+    }
+
+    /** Tokens left in the distributed bucket at the last renewal plus those still held locally. */
+    public long getAvailableTokens() {
+        Lease lease = current.get();
+        return Math.max(0, lease.remoteRemaining) + lease.tokens.get();
+    }
+
+    /** Hands every locally held token back to the distributed bucket. */
+    public void close() {
+        long leftover = current.get().tokens.getAndSet(0);
+        if (leftover > 0) {
+            source.release(leftover);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.ratelimiter.metrics;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Tenants and users consuming the most tokens and denied the most tokens, in fixed memory: every slot of time holds a
+ * {@link SpaceSaving} summary per level, kind and stripe, and the last {@code heavy-hitters.slots} slots are kept.
+ * Stripes split the keys by hash, so concurrent callers rarely wait on the same summary. Tenant keys are tenant ids,
+ * user keys are {@code tenant:user}, or the user id alone when the caller has no tenant.
+ */
+@Component
+public class HeavyHitters {
+    public enum Kind { CONSUMED, DENIED }
+
+    private static final int STRIPES = 4;
+
+    private final class Slot {
+        private final long epoch;
+        private final SpaceSaving[] summaries = new SpaceSaving[2 * Kind.values().length * STRIPES];
+
+        private Slot(long epoch) {
+            this.epoch = epoch;
+            for (int i = 0; i < summaries.length; i++) {
+                summaries[i] = new SpaceSaving(capacity);
+            }
+        }
+
+        private void add(Level level, Kind kind, String key, long tokens) {
+            summaries[index(level, kind, key.hashCode() & (STRIPES - 1))].add(key, tokens);
+        }
+
+        private SpaceSaving.Snapshot snapshot(Level level, Kind kind) {
+            List<SpaceSaving.Snapshot> stripes = new ArrayList<>(STRIPES);
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                stripes.add(summaries[index(level, kind, stripe)].snapshot(capacity));
+            }
+            return SpaceSaving.Snapshot.union(stripes, capacity);
+        }
+    }
+
+    private final int capacity;
+    private final long slotMillis;
+    private final AtomicReferenceArray<Slot> slots;
+    private final LongSupplier clock;
+
+    @Autowired
+    public HeavyHitters(HierarchicalRateLimitProperties props) {
+        this(props.getHeavyHitters(), System::currentTimeMillis);
+    }
+
+    HeavyHitters(HierarchicalRateLimitProperties.HeavyHitters props, LongSupplier clock) {
+        this.capacity = props.getCapacity();
+        this.slotMillis = props.getSlot().toMillis();
+        this.slots = new AtomicReferenceArray<>(props.getSlots());
+        this.clock = clock;
+    }
+
+    public void record(String tenantId, String userId, boolean allowed) {
+        record(tenantId, userId, allowed, 1);
+    }
+
+    /** Records a decision on a request costing {@code tokens} tokens. */
+    public void record(String tenantId, String userId, boolean allowed, long tokens) {
+        Slot slot = current();
+        Kind kind = allowed ? Kind.CONSUMED : Kind.DENIED;
+        if (tenantId != null) {
+            slot.add(Level.TENANT, kind, tenantId, tokens);
+            slot.add(Level.USER, kind, tenantId + ":" + userId, tokens);
+        } else {
+            slot.add(Level.USER, kind, userId, tokens);
+        }
+    }
+
+    /**
+     * Up to {@code n} heaviest keys of a level over the last {@code window}, rounded up to whole slots and capped at
+     * the slots kept.
+     */
+    public SpaceSaving.Snapshot top(Level level, Kind kind, Duration window, int n) {
+        long now = epoch();
+        long count = Math.min(slots.length(), Math.max(1, (window.toMillis() + slotMillis - 1) / slotMillis));
+        List<SpaceSaving.Snapshot> snapshots = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.epoch > now - count && slot.epoch <= now) {
+                snapshots.add(slot.snapshot(level, kind));
+            }
+        }
+        return snapshots.isEmpty() ? SpaceSaving.Snapshot.EMPTY : SpaceSaving.Snapshot.merge(snapshots, n);
+    }
+
+    /** The longest window kept. */
+    public Duration retention() {
+        return Duration.ofMillis(slotMillis * slots.length());
+    }
+
+    private Slot current() {
+        long epoch = epoch();
+        int index = (int) (epoch % slots.length());
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.epoch >= epoch) {
+                return slot;
+            }
+            // requests still counted into the replaced slot are lost with it
+            Slot next = new Slot(epoch);
+            if (slots.compareAndSet(index, slot, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long epoch() {
+        return clock.getAsLong() / slotMillis;
+    }
+
+    private static int index(Level level, Kind kind, int stripe) {
+        return ((level == Level.TENANT ? 0 : 1) * Kind.values().length + kind.ordinal()) * STRIPES + stripe;
+    }
+}
\ No newline at end of file
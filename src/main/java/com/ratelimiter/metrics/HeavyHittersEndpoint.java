@@ -0,0 +1,44 @@
+package com.ratelimiter.metrics;
+
+import com.ratelimiter.limiter.HierarchicalRateLimitResult.Level;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/heavyhitters?window=5m&limit=10}: the heaviest tenants and users of this node by consumed and by
+ * denied requests over a rolling window, the whole retention by default. Every list comes with its {@code floor}, so
+ * the same lists of several nodes merge with {@link SpaceSaving.Snapshot#merge}.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final HeavyHitters heavyHitters;
+
+    public HeavyHittersEndpoint(HeavyHitters heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    @ReadOperation
+    public Map<String, Object> heavyHitters(@Nullable Duration window, @Nullable Integer limit) {
+        Duration span = window != null ? window : heavyHitters.retention();
+        int n = limit != null ? limit : DEFAULT_LIMIT;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("window", span);
+        for (Level level : new Level[] {Level.TENANT, Level.USER}) {
+            Map<String, SpaceSaving.Snapshot> kinds = new LinkedHashMap<>();
+            for (HeavyHitters.Kind kind : HeavyHitters.Kind.values()) {
+                kinds.put(kind.name().toLowerCase(), heavyHitters.top(level, kind, span, n));
+            }
+            body.put(level.name().toLowerCase(), kinds);
+        }
+        return body;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.ratelimiter.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most frequent keys of a stream in a fixed number of counters (Space-Saving): a key without a counter takes over
+ * the smallest one and inherits its count as its error. Every key counted more than {@code total / capacity} times
+ * holds a counter, and a counter overestimates its key's count by at most its error.
+ * <p>
+ * Summaries of different streams, or of the same stream on different nodes, are combined by merging their
+ * {@link Snapshot}s.
+ */
+public class SpaceSaving {
+    public record Entry(String key, long count, long error) { }
+
+    /**
+     * Counters of a summary, highest count first; a key without a counter was counted at most {@code floor} times.
+     */
+    public record Snapshot(List<Entry> entries, long floor) {
+        public static final Snapshot EMPTY = new Snapshot(List.of(), 0);
+
+        /**
+         * The summary of all the snapshots' streams together, up to {@code n} entries: a key missing from a snapshot
+         * counts as that snapshot's floor, both in count and in error.
+         */
+        public static Snapshot merge(Collection<Snapshot> snapshots, int n) {
+            long floor = 0;
+            Map<String, long[]> merged = new HashMap<>();
+            for (Snapshot snapshot : snapshots) {
+                floor += snapshot.floor();
+                for (Entry entry : snapshot.entries()) {
+                    long[] sum = merged.computeIfAbsent(entry.key(), key -> new long[2]);
+                    sum[0] += entry.count() - snapshot.floor();
+                    sum[1] += entry.error() - snapshot.floor();
+                }
+            }
+            List<Entry> entries = new ArrayList<>(merged.size());
+            for (Map.Entry<String, long[]> sum : merged.entrySet()) {
+                entries.add(new Entry(sum.getKey(), floor + sum.getValue()[0], floor + sum.getValue()[1]));
+            }
+            return truncate(entries, n, floor);
+        }
+
+        /** The summary of snapshots of streams that share no key, up to {@code n} entries. */
+        public static Snapshot union(Collection<Snapshot> snapshots, int n) {
+            long floor = 0;
+            List<Entry> entries = new ArrayList<>();
+            for (Snapshot snapshot : snapshots) {
+                floor = Math.max(floor, snapshot.floor());
+                entries.addAll(snapshot.entries());
+            }
+            return truncate(entries, n, floor);
+        }
+
+        private static Snapshot truncate(List<Entry> entries, int n, long floor) {
+            entries.sort(Comparator.comparingLong(Entry::count).reversed());
+            if (entries.size() <= n) {
+                return new Snapshot(entries, floor);
+            }
+            return new Snapshot(List.copyOf(entries.subList(0, n)), Math.max(floor, entries.get(n).count()));
+        }
+    }
+
+    /** Counters of equal count, linked in a list ordered by count, smallest first. */
+    private static final class Bucket {
+        private final long count;
+        private Bucket previous;
+        private Bucket next;
+        private Counter first;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static final class Counter {
+        private String key;
+        private long error;
+        private Bucket bucket;
+        private Counter previous;
+        private Counter next;
+
+        private Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private Bucket smallest;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(2 * capacity);
+    }
+
+    /**
+     * Counts {@code count} more occurrences of a key. Counters live in buckets of equal count (Stream-Summary), so the
+     * smallest counter is the first of the first bucket and a counter moves up only past the counts it skips: adding 1
+     * takes constant time whatever the capacity.
+     */
+    public synchronized void add(String key, long count) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key);
+            } else {
+                counter = smallest.first;
+                counters.remove(counter.key);
+                counter.key = key;
+                counter.error = counter.bucket.count;
+            }
+            counters.put(key, counter);
+        }
+        move(counter, counter.bucket == null ? count : counter.bucket.count + count);
+    }
+
+    private void move(Counter counter, long count) {
+        Bucket from = counter.bucket;
+        Bucket before = from != null ? from : smallest != null && smallest.count <= count ? smallest : null;
+        if (before != null) {
+            while (before.next != null && before.next.count <= count) {
+                before = before.next;
+            }
+        }
+        Bucket to = before;
+        if (to == null || to.count != count) {
+            to = new Bucket(count);
+            to.previous = before;
+            to.next = before != null ? before.next : smallest;
+            if (to.next != null) {
+                to.next.previous = to;
+            }
+            if (before != null) {
+                before.next = to;
+            } else {
+                smallest = to;
+            }
+        }
+        if (from != null) {
+            detach(counter);
+        }
+        counter.bucket = to;
+        counter.previous = null;
+        counter.next = to.first;
+        if (to.first != null) {
+            to.first.previous = counter;
+        }
+        to.first = counter;
+        if (from != null && from.first == null) {
+            remove(from);
+        }
+    }
+
+    private static void detach(Counter counter) {
+        if (counter.previous != null) {
+            counter.previous.next = counter.next;
+        } else {
+            counter.bucket.first = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.previous = counter.previous;
+        }
+    }
+
+    private void remove(Bucket bucket) {
+        if (bucket.previous != null) {
+            bucket.previous.next = bucket.next;
+        } else {
+            smallest = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.previous = bucket.previous;
+        }
+    }
+
+    /** Up to {@code n} keys, highest count first. */
+    public List<Entry> top(int n) {
+        return snapshot(n).entries();
+    }
+
+    public synchronized Snapshot snapshot(int n) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            entries.add(new Entry(counter.key, counter.bucket.count, counter.error));
+        }
+        return Snapshot.truncate(entries, n, counters.size() < capacity ? 0 : smallest.count);
+    }
+}
\ No newline at end of file
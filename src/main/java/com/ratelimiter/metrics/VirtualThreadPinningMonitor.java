@@ -0,0 +1,89 @@
+package com.ratelimiter.metrics;
+
+import com.ratelimiter.config.VirtualThreadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Pinning of virtual threads to their carrier, streamed from the JFR {@code jdk.VirtualThreadPinned} event while
+ * requests run on virtual threads. A pinned virtual thread blocking on Redis or the database holds a carrier the whole
+ * time, so the limiter path must not block inside {@code synchronized} code. Every pinning lasting at least
+ * {@code virtual-threads.pinned-threshold} is counted under {@code rate_limit.virtual_threads.pinned}, tagged with the
+ * innermost frame of the application, and logged with its stack the first time that frame pins.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    static final String PINNED_METRIC = "rate_limit.virtual_threads.pinned";
+    private static final List<String> APPLICATION_PACKAGES = List.of("com.ratelimiter.", "com.ratemaster.", "com.example.grpc.");
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final Duration threshold;
+    private final MeterRegistry meterRegistry;
+    private RecordingStream stream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(VirtualThreadProperties props, MeterRegistry meterRegistry) {
+        this(props.getPinnedThreshold(), meterRegistry);
+    }
+
+    VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::pinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void pinned(RecordedEvent event) {
+        String frame = applicationFrame(event);
+        Counter counter = meterRegistry.find(PINNED_METRIC).tag("frame", frame).counter();
+        if (counter == null) {
+            log.warn("Virtual thread pinned for {} in {}:\n{}", event.getDuration(), frame, event.getStackTrace());
+            counter = meterRegistry.counter(PINNED_METRIC, "frame", frame);
+        }
+        counter.increment();
+    }
+
+    private static String applicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            RecordedMethod method = frame.getMethod();
+            String type = method.getType().getName();
+            if (APPLICATION_PACKAGES.stream().anyMatch(type::startsWith)) {
+                return type.substring(type.lastIndexOf('.') + 1) + "." + method.getName();
+            }
+        }
+        return "other";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.ratelimiter.rls;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import io.envoyproxy.envoy.extensions.common.ratelimit.v3.RateLimitDescriptor;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitRequest;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitResponse;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitServiceGrpc;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envoy ratelimit.v3 ShouldRateLimit on top of the hierarchical limiter. Every descriptor becomes one
+ * global -> tenant -> user decision: its {@code tenant_id} and {@code user_id} entries pick the tenant and user
+ * buckets, other entries are ignored. A descriptor without a {@code user_id} is decided on the global and tenant
+ * levels only; one with neither entry is none of the hierarchy's business and is answered OK without being charged.
+ * All other descriptors of a request are decided in one isAllowedBatch call, so in script mode one Redis round trip
+ * answers the whole request.
+ */
+@GrpcService
+public class EnvoyRateLimitService extends RateLimitServiceGrpc.RateLimitServiceImplBase {
+    static final String TENANT_KEY = "tenant_id";
+    static final String USER_KEY = "user_id";
+    static final String DEFAULT_TENANT = "default";
+    private static final RateLimitResponse.DescriptorStatus UNLIMITED =
+            RateLimitResponse.DescriptorStatus.newBuilder().setCode(RateLimitResponse.Code.OK).build();
+
+    private final HierarchicalRateLimiterService rateLimiterService;
+    private final HierarchicalRateLimitProperties props;
+
+    public EnvoyRateLimitService(HierarchicalRateLimiterService rateLimiterService, HierarchicalRateLimitProperties props) {
+        this.rateLimiterService = rateLimiterService;
+        this.props = props;
+    }
+
+    @Override
+    public void shouldRateLimit(RateLimitRequest request, StreamObserver<RateLimitResponse> responseObserver) {
+        if (request.getDescriptorsCount() == 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("rate limit request carries no descriptors").asRuntimeException());
+            return;
+        }
+        // descriptors without a hierarchy entry stay null and are left out of the batch
+        List<HierarchicalRateLimitRequest> requests = new ArrayList<>(request.getDescriptorsCount());
+        List<HierarchicalRateLimitRequest> charged = new ArrayList<>(request.getDescriptorsCount());
+        for (RateLimitDescriptor descriptor : request.getDescriptorsList()) {
+            HierarchicalRateLimitRequest decision = toRequest(descriptor, request.getHitsAddend());
+            requests.add(decision);
+            if (decision != null) {
+                charged.add(decision);
+            }
+        }
+        List<HierarchicalRateLimitResult> results = charged.isEmpty() ? List.of() : rateLimiterService.isAllowedBatch(charged);
+
+        RateLimitResponse.Builder response = RateLimitResponse.newBuilder().setOverallCode(RateLimitResponse.Code.OK);
+        int next = 0;
+        for (HierarchicalRateLimitRequest decision : requests) {
+            RateLimitResponse.DescriptorStatus status = decision == null ? UNLIMITED
+                    : status(decision.tenantId(), results.get(next++));
+            if (status.getCode() == RateLimitResponse.Code.OVER_LIMIT) {
+                response.setOverallCode(RateLimitResponse.Code.OVER_LIMIT);
+            }
+            response.addStatuses(status);
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /** The descriptor's decision, or null if it has neither a {@code tenant_id} nor a {@code user_id} entry. */
+    static HierarchicalRateLimitRequest toRequest(RateLimitDescriptor descriptor, int requestHitsAddend) {
+        String tenantId = null;
+        String userId = null;
+        for (RateLimitDescriptor.Entry entry : descriptor.getEntriesList()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (TENANT_KEY.equals(entry.getKey())) {
+                tenantId = entry.getValue();
+            } else if (USER_KEY.equals(entry.getKey())) {
+                userId = entry.getValue();
+            }
+        }
+        if (tenantId == null && userId == null) {
+            return null;
+        }
+        // Envoy treats an unset (zero) hits_addend as one hit; a descriptor's own addend wins over the request's.
+        long cost = descriptor.hasHitsAddend() ? descriptor.getHitsAddend().getValue() : Integer.toUnsignedLong(requestHitsAddend);
+        return new HierarchicalRateLimitRequest(tenantId != null ? tenantId : DEFAULT_TENANT, userId, Math.max(1, cost));
+    }
+
+    private RateLimitResponse.DescriptorStatus status(String tenantId, HierarchicalRateLimitResult result) {
+        HierarchicalRateLimitResult.Level level = result.getDeniedAt();
+        if (level == HierarchicalRateLimitResult.Level.NONE) {
+            level = tightestLevel(result);
+        }
+        long remaining = result.isAllowed() ? remaining(result, level) : 0;
+        return RateLimitResponse.DescriptorStatus.newBuilder()
+                .setCode(result.isAllowed() ? RateLimitResponse.Code.OK : RateLimitResponse.Code.OVER_LIMIT)
+                .setCurrentLimit(RateLimitResponse.RateLimit.newBuilder()
+                        .setName(level.name().toLowerCase())
+                        .setRequestsPerUnit((int) Math.min(limit(tenantId, level), 0xFFFFFFFFL))
+                        .setUnit(RateLimitResponse.RateLimit.Unit.HOUR))
+                .setLimitRemaining((int) Math.min(Math.max(0, remaining), 0xFFFFFFFFL))
+                .build();
+    }
+
+    /** The level with the fewest tokens left; levels the evaluation did not report (negative) are skipped. */
+    private static HierarchicalRateLimitResult.Level tightestLevel(HierarchicalRateLimitResult result) {
+        HierarchicalRateLimitResult.Level tightest = HierarchicalRateLimitResult.Level.USER;
+        for (HierarchicalRateLimitResult.Level level : new HierarchicalRateLimitResult.Level[] {
+                HierarchicalRateLimitResult.Level.GLOBAL, HierarchicalRateLimitResult.Level.TENANT }) {
+            long remaining = remaining(result, level);
+            if (remaining >= 0 && (remaining(result, tightest) < 0 || remaining < remaining(result, tightest))) {
+                tightest = level;
+            }
+        }
+        return tightest;
+    }
+
+    private static long remaining(HierarchicalRateLimitResult result, HierarchicalRateLimitResult.Level level) {
+        return switch (level) {
+            case GLOBAL -> result.getRemainingTokensGlobal();
+            case TENANT -> result.getRemainingTokensTenant();
+            default -> result.getRemainingTokensUser();
+        };
+    }
+
+    private long limit(String tenantId, HierarchicalRateLimitResult.Level level) {
+        long globalLimit = props.getGlobal().getLimitPerHour();
+        return switch (level) {
+            case GLOBAL -> globalLimit;
+            case TENANT -> {
+                Map<String, HierarchicalRateLimitProperties.LimitSpec> tenants = props.getTenants();
+                HierarchicalRateLimitProperties.LimitSpec tenantSpec = tenants != null ? tenants.get(tenantId) : null;
+                yield tenantSpec != null ? tenantSpec.getLimitPerHour() : globalLimit;
+            }
+            default -> props.getUsers().getDefaultPerTenant();
+        };
+    }
+}
\ No newline at end of file
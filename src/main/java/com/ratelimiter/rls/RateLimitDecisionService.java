@@ -0,0 +1,170 @@
+package com.ratelimiter.rls;
+
+import com.ratelimiter.decision.DecisionLevel;
+import com.ratelimiter.decision.DecisionRequest;
+import com.ratelimiter.decision.DecisionResponse;
+import com.ratelimiter.decision.RateLimitDecisionGrpc;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Decisions of the hierarchical limiter for sidecars. {@code Check} keeps one stream open and decides every message on
+ * the application task executor, writing each decision back as soon as it is known, so responses can overtake each
+ * other and are matched by correlation id. {@code Decide} is the unary form of the same decision. As with Envoy
+ * descriptors, a request without a tenant is decided for the default tenant and one without a user on the global and
+ * tenant levels only; proto3 leaves both empty when unset.
+ */
+@GrpcService
+public class RateLimitDecisionService extends RateLimitDecisionGrpc.RateLimitDecisionImplBase {
+    /** Requests of one stream decided at a time; more are read only as decisions are written out. */
+    static final int MAX_IN_FLIGHT = 256;
+
+    private final HierarchicalRateLimiterService rateLimiterService;
+    private final Executor executor;
+
+    public RateLimitDecisionService(HierarchicalRateLimiterService rateLimiterService,
+                                    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.rateLimiterService = rateLimiterService;
+        this.executor = executor;
+    }
+
+    @Override
+    public void decide(DecisionRequest request, StreamObserver<DecisionResponse> responseObserver) {
+        responseObserver.onNext(decide(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<DecisionRequest> check(StreamObserver<DecisionResponse> responseObserver) {
+        ServerCallStreamObserver<DecisionResponse> responses = (ServerCallStreamObserver<DecisionResponse>) responseObserver;
+        DecisionStream stream = new DecisionStream(responses);
+        responses.disableAutoRequest();
+        responses.setOnReadyHandler(stream::onReady);
+        responses.setOnCancelHandler(stream::onCancel);
+        responses.request(MAX_IN_FLIGHT);
+        return stream;
+    }
+
+    private DecisionResponse decide(DecisionRequest request) {
+        HierarchicalRateLimitResult result = rateLimiterService.isAllowed(toRequest(request));
+        return DecisionResponse.newBuilder()
+                .setCorrelationId(request.getCorrelationId())
+                .setAllowed(result.isAllowed())
+                .setDeniedAt(level(result.getDeniedAt()))
+                .setRemainingGlobal(result.getRemainingTokensGlobal())
+                .setRemainingTenant(result.getRemainingTokensTenant())
+                .setRemainingUser(result.getRemainingTokensUser())
+                .build();
+    }
+
+    static HierarchicalRateLimitRequest toRequest(DecisionRequest request) {
+        String tenantId = request.getTenantId().isEmpty() ? EnvoyRateLimitService.DEFAULT_TENANT : request.getTenantId();
+        String userId = request.getUserId().isEmpty() ? null : request.getUserId();
+        return new HierarchicalRateLimitRequest(tenantId, userId, Math.max(1, request.getCost()));
+    }
+
+    private static DecisionLevel level(HierarchicalRateLimitResult.Level level) {
+        return switch (level) {
+            case GLOBAL -> DecisionLevel.GLOBAL;
+            case TENANT -> DecisionLevel.TENANT;
+            case USER -> DecisionLevel.USER;
+            case NONE -> DecisionLevel.NONE;
+        };
+    }
+
+    /**
+     * One Check call. Every written decision hands one read credit back to the client, unless the transport cannot
+     * take more responses: then the credits are held until it is ready again, so a client that stops reading
+     * decisions stops being read from, with at most {@value #MAX_IN_FLIGHT} requests pending.
+     */
+    private final class DecisionStream implements StreamObserver<DecisionRequest> {
+        private final ServerCallStreamObserver<DecisionResponse> responses;
+        private int inFlight;
+        private int heldCredits;
+        private boolean halfClosed;
+        private boolean done;
+
+        private DecisionStream(ServerCallStreamObserver<DecisionResponse> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public void onNext(DecisionRequest request) {
+            synchronized (this) {
+                inFlight++;
+            }
+            try {
+                executor.execute(() -> {
+                    DecisionResponse response;
+                    try {
+                        response = decide(request);
+                    } catch (RuntimeException e) {
+                        fail(Status.UNAVAILABLE.withDescription("rate limit decision failed").withCause(e));
+                        return;
+                    }
+                    complete(response);
+                });
+            } catch (RejectedExecutionException e) {
+                fail(Status.RESOURCE_EXHAUSTED.withDescription("no capacity left for rate limit decisions").withCause(e));
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            done = true;
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            if (inFlight == 0 && !done) {
+                done = true;
+                responses.onCompleted();
+            }
+        }
+
+        private synchronized void complete(DecisionResponse response) {
+            if (done) {
+                return;
+            }
+            responses.onNext(response);
+            inFlight--;
+            if (halfClosed && inFlight == 0) {
+                done = true;
+                responses.onCompleted();
+            } else if (responses.isReady()) {
+                responses.request(1);
+            } else {
+                heldCredits++;
+            }
+        }
+
+        private synchronized void fail(Status status) {
+            if (!done) {
+                done = true;
+                responses.onError(status.asRuntimeException());
+            }
+        }
+
+        private synchronized void onReady() {
+            if (heldCredits > 0 && !done) {
+                responses.request(heldCredits);
+                heldCredits = 0;
+            }
+        }
+
+        private synchronized void onCancel() {
+            done = true;
+        }
+    }
+}
\ No newline at end of file
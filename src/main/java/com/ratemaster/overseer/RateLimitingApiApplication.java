@@ -3,10 +3,11 @@ package com.ratemaster.overseer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.config.VirtualThreadProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
-@SpringBootApplication
-@EnableConfigurationProperties(HierarchicalRateLimitProperties.class)
+@SpringBootApplication(scanBasePackages = { "com.ratemaster.overseer", "com.ratelimiter" })
+@EnableConfigurationProperties({ HierarchicalRateLimitProperties.class, VirtualThreadProperties.class })
 public class RateLimitingApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,46 @@
+package com.ratemaster.overseer.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ratemaster.overseer.service.RateLimitingService;
+
+@Configuration
+@EnableConfigurationProperties(PlanCacheConfigurationProperties.class)
+public class PlanCacheConfiguration {
+
+	@Bean(name = "active-plan-id-cache")
+	public Cache<UUID, UUID> activePlanIdCache(final PlanCacheConfigurationProperties planCacheConfigurationProperties) {
+		return Caffeine.newBuilder()
+				.maximumSize(planCacheConfigurationProperties.getMaximumSize())
+				.expireAfterWrite(planCacheConfigurationProperties.getExpireAfterWrite())
+				.build();
+	}
+
+	/**
+	 * Subscribes to plan changes made through any instance, evicting the changed
+	 * user's active plan-id and bucket held by this one.
+	 *
+	 * @see RateLimitingService#reset(UUID)
+	 */
+	@Bean
+	public RedisMessageListenerContainer planChangeListenerContainer(final RedisConnectionFactory redisConnectionFactory,
+			final RateLimitingService rateLimitingService) {
+		final var container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(redisConnectionFactory);
+		container.addMessageListener((message, pattern) -> rateLimitingService.evictActivePlan(
+				UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8))),
+				new ChannelTopic(RateLimitingService.PLAN_CHANGE_CHANNEL));
+		return container;
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.ratemaster.overseer.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import com.ratemaster.overseer.service.RateLimitingService;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties bounding the in-memory cache of users' active
+ * plan-id, consulted whenever a user's rate-limit bucket has to be created.
+ * 
+ * @see RateLimitingService
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "com.ratelimiter.overseer.plan-cache")
+public class PlanCacheConfigurationProperties {
+
+	/**
+	 * The maximum number of users whose active plan-id is held in memory, least
+	 * recently used entries are evicted beyond it.
+	 */
+	@NotNull
+	@Positive
+	private Long maximumSize = 100_000L;
+
+	/**
+	 * The duration post which a cached active plan-id expires and is read from
+	 * the datasource again.
+	 */
+	@NotNull
+	private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+}
@@ -0,0 +1,64 @@
+package com.ratemaster.overseer.configuration;
+
+import com.ratemaster.overseer.filter.RateLimitFilter;
+import com.ratemaster.overseer.utility.RateLimitPolicyRegistry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation declaring the rate limit policy of a private API endpoint, as
+ * enforced by the {@link RateLimitFilter}. Endpoints without it cost a single
+ * request of the user's limits and have no limit of their own.
+ *
+ * When applied to a controller method, every request to that method consumes
+ * {@link #cost()} requests of the user's plan (or tenant hierarchy) limits and,
+ * if {@link #capacity()} is positive, one request of an endpoint specific limit
+ * of {@code capacity} requests per {@link #window()}, shared by all requests
+ * with the same {@link #key()}.
+ *
+ * Policies are resolved once at startup by the {@link RateLimitPolicyRegistry}.
+ *
+ * @see BypassRateLimit
+ * @see RateLimitPolicyRegistry
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+	/**
+	 * Number of requests consumed from the user's plan or tenant hierarchy limits,
+	 * at least {@code 1}; use {@link BypassRateLimit} for an endpoint that should
+	 * not be limited.
+	 */
+	long cost() default 1;
+
+	/**
+	 * Requests admitted by the endpoint specific limit per {@link #window()},
+	 * {@code 0} for none.
+	 */
+	long capacity() default 0;
+
+	/**
+	 * Period over which {@link #capacity()} requests are admitted, e.g {@code 1m}
+	 * or {@code PT1M}.
+	 */
+	String window() default "1h";
+
+	/**
+	 * Who shares the endpoint specific limit.
+	 */
+	Key key() default Key.USER;
+
+	enum Key {
+		/** Every user has a limit of their own. */
+		USER,
+		/** Users of a tenant share a limit, users without a tenant have their own. */
+		TENANT,
+		/** All users share a single limit. */
+		ENDPOINT
+	}
+
+}
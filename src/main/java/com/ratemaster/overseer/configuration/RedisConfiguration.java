@@ -1,43 +1,154 @@
 package com.ratemaster.overseer.configuration;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.expiry.TouchedExpiryPolicy;
 
 import org.redisson.config.Config;
 import org.redisson.jcache.configuration.RedissonConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
+import com.ratelimiter.limiter.BucketConfigurationRegistry;
+import com.ratelimiter.limiter.RedisCompareAndSwapProxyManager;
+
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
 import io.github.bucket4j.grid.jcache.JCacheProxyManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 @Configuration
 public class RedisConfiguration {
 
 	private static final String CACHE_NAME = "rate-limit";
+	private static final String BUCKET_STORE_PROPERTY = "com.ratelimiter.overseer.bucket-store";
+
+	/**
+	 * Duration for which a bucket's state is retained in Redis after it would
+	 * have been refilled up to its capacity, when using the {@code redis-cas}
+	 * bucket store. A bucket missing from Redis is recreated as full, hence the
+	 * expiry never grants a user more tokens than waiting would have.
+	 */
+	private static final Duration EXPIRY_AFTER_FULL_REFILL = Duration.ofSeconds(10);
+
+	/**
+	 * Duration for which a bucket neither read nor written is retained in the
+	 * {@code jcache} bucket store. Every bucket refills up to its capacity within
+	 * {@link BucketConfigurationRegistry#REFILL_PERIOD}, hence a bucket idle for
+	 * longer is indistinguishable from a newly created one.
+	 */
+	private static final Duration BUCKET_IDLE_EXPIRY = BucketConfigurationRegistry.REFILL_PERIOD.plus(EXPIRY_AFTER_FULL_REFILL);
+
+	private static final String LIVE_BUCKETS_METRIC = "rate_limit.buckets.live";
+	private static final String RECLAIMED_BUCKETS_METRIC = "rate_limit.buckets.reclaimed";
 
 	@Bean(name = "rate-limit-cache-manager")
+	@ConditionalOnProperty(name = BUCKET_STORE_PROPERTY, havingValue = "jcache", matchIfMissing = true)
 	public CacheManager cacheManager(final RedisProperties redisProperties) {
 		final var cacheManager = Caching.getCachingProvider().getCacheManager();
 		final var isCacheCreated = Optional.ofNullable(cacheManager.getCache(CACHE_NAME)).isPresent();
         
 		if (Boolean.FALSE.equals(isCacheCreated)) {
-			final var connectionUrl = String.format("redis://%s:%d", redisProperties.getHost(), redisProperties.getPort());
-			final var configuration = new Config();
-			configuration.useSingleServer().setPassword(redisProperties.getPassword()).setAddress(connectionUrl);
+			final var configuration = redissonConfiguration(redisProperties);
+			final var expiry = new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, BUCKET_IDLE_EXPIRY.toMillis());
+			final var cacheConfiguration = new MutableConfiguration<UUID, byte[]>().setExpiryPolicyFactory(TouchedExpiryPolicy.factoryOf(expiry));
 
-			cacheManager.createCache(CACHE_NAME, RedissonConfiguration.fromConfig(configuration));
+			cacheManager.createCache(CACHE_NAME, RedissonConfiguration.fromConfig(configuration, cacheConfiguration));
 		}
 		return cacheManager;
 	}
 
+	/**
+	 * Builds the Redisson client configuration from the same
+	 * {@code spring.data.redis} properties that configure the Lettuce connection
+	 * factory, connecting to a Redis Cluster when cluster nodes are configured, to
+	 * the master monitored by Sentinel when sentinel nodes are configured, and to a
+	 * single server otherwise.
+	 *
+	 * @param redisProperties the configured Redis connection properties
+	 * @return Redisson configuration for the configured topology
+	 */
+	static Config redissonConfiguration(final RedisProperties redisProperties) {
+		final var configuration = new Config();
+		final var cluster = redisProperties.getCluster();
+		final var sentinel = redisProperties.getSentinel();
+
+		if (cluster != null && cluster.getNodes() != null && !cluster.getNodes().isEmpty()) {
+			configuration.useClusterServers()
+					.setPassword(redisProperties.getPassword())
+					.addNodeAddress(addresses(cluster.getNodes()));
+		} else if (sentinel != null && sentinel.getNodes() != null && !sentinel.getNodes().isEmpty()) {
+			configuration.useSentinelServers()
+					.setMasterName(sentinel.getMaster())
+					.setPassword(redisProperties.getPassword())
+					.setSentinelPassword(sentinel.getPassword())
+					.addSentinelAddress(addresses(sentinel.getNodes()));
+		} else {
+			final var connectionUrl = String.format("redis://%s:%d", redisProperties.getHost(), redisProperties.getPort());
+			configuration.useSingleServer().setPassword(redisProperties.getPassword()).setAddress(connectionUrl);
+		}
+		return configuration;
+	}
+
+	private static String[] addresses(final List<String> nodes) {
+		return nodes.stream().map(node -> "redis://" + node.trim()).toArray(String[]::new);
+	}
+
 	@Bean
+	@ConditionalOnProperty(name = BUCKET_STORE_PROPERTY, havingValue = "jcache", matchIfMissing = true)
 	ProxyManager<UUID> proxyManager(final CacheManager cacheManager) {
 		return new JCacheProxyManager<UUID>(cacheManager.getCache(CACHE_NAME));
 	}
 
+	/**
+	 * Binds the number of buckets currently held in the {@code jcache} bucket
+	 * store, and the number of idle buckets reclaimed from it. Both describe the
+	 * shared store rather than the instance reporting them: expiry events are
+	 * published to every instance, hence each one counts every reclamation of the
+	 * deployment, and the counter is to be read from any single instance (e.g.
+	 * the maximum across instances) rather than summed.
+	 *
+	 * @param cacheManager  the cache manager holding the bucket cache
+	 * @param redisTemplate template used to read the size of the bucket cache
+	 * @return binder of the bucket store meters
+	 */
+	@Bean
+	@ConditionalOnProperty(name = BUCKET_STORE_PROPERTY, havingValue = "jcache", matchIfMissing = true)
+	MeterBinder bucketStoreMetrics(final CacheManager cacheManager, final StringRedisTemplate redisTemplate) {
+		return registry -> {
+			Gauge.builder(LIVE_BUCKETS_METRIC, redisTemplate, template -> template.opsForHash().size(CACHE_NAME))
+					.description("Rate-limit buckets currently held in Redis").tag("store", "jcache").register(registry);
+			final var reclaimed = Counter.builder(RECLAIMED_BUCKETS_METRIC)
+					.description("Idle rate-limit buckets expired from Redis, counted by every instance")
+					.tag("store", "jcache").register(registry);
+
+			final Cache<UUID, byte[]> cache = cacheManager.getCache(CACHE_NAME);
+			final CacheEntryExpiredListener<UUID, byte[]> listener = events -> events.forEach(event -> reclaimed.increment());
+			cache.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(() -> listener, null, false, false));
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = BUCKET_STORE_PROPERTY, havingValue = "redis-cas")
+	ProxyManager<UUID> redisCompareAndSwapProxyManager(final RedisConnectionFactory redisConnectionFactory) {
+		final var expiration = ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(EXPIRY_AFTER_FULL_REFILL);
+		return new RedisCompareAndSwapProxyManager(redisConnectionFactory, expiration);
+	}
+
 }
\ No newline at end of file
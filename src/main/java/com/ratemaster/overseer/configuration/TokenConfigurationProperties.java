@@ -41,4 +41,13 @@ public class TokenConfigurationProperties {
 	@Positive
 	private Integer validity;
 
+	/**
+	 * The maximum number of verified access token(s) whose claims are held in
+	 * memory, so repeat requests with the same token skip signature verification.
+	 * Entries expire with their token.
+	 */
+	@NotNull
+	@Positive
+	private Integer cacheSize = 10_000;
+
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.ratelimiter.limiter.RateLimitAlgorithm;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
@@ -20,5 +21,6 @@ public class PlanResponseDto {
 	private UUID id;
 	private String name;
 	private Integer limitPerHour;
+	private RateLimitAlgorithm algorithm;
 
 }
\ No newline at end of file
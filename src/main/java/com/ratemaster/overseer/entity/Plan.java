@@ -4,8 +4,12 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.UUID;
 
+import com.ratelimiter.limiter.RateLimitAlgorithm;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -27,6 +31,10 @@ public class Plan {
 	@Column(name = "limit_per_hour", nullable = false, unique = true)
 	private Integer limitPerHour;
 
+	@Enumerated(EnumType.STRING)
+	@Column(name = "algorithm", nullable = false)
+	private RateLimitAlgorithm algorithm;
+
 	@Column(name = "created_at", nullable = false)
 	private LocalDateTime createdAt;
 
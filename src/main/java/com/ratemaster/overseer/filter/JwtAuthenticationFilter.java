@@ -12,6 +12,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.ratemaster.overseer.dto.ExceptionResponseDto;
 import com.ratemaster.overseer.utility.ApiEndpointSecurityInspector;
+import com.ratemaster.overseer.utility.AuthenticatedPrincipal;
 import com.ratemaster.overseer.utility.JwtUtility;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -30,7 +31,9 @@ import lombok.SneakyThrows;
  * secured API endpoints by examining JWT token in the request header, verifying 
  * it's signature, expiration.
  * If authentication is successful, the filter populates the security context with
- * the user's unique identifier which can be referenced by the application later.
+ * an {@link AuthenticatedPrincipal} carrying the user's unique identifier and
+ * tenant, which can be referenced by the application later without parsing the
+ * token again.
  * 
  * This filter is only executed when a secure API endpoint in invoked, and is skipped
  * if the incoming request is destined to a non-secured public API endpoint.
@@ -62,8 +65,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			if (StringUtils.isNotEmpty(authorizationHeader) && authorizationHeader.startsWith(BEARER_PREFIX) ) {
 				final var token = authorizationHeader.replace(BEARER_PREFIX, StringUtils.EMPTY);
 				
-				final var userId = jwtUtility.getUserId(token);
-				final var authentication = new UsernamePasswordAuthenticationToken(userId, null, null);
+				final var principal = jwtUtility.authenticate(token);
+				final var authentication = new UsernamePasswordAuthenticationToken(principal, null, null);
 				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 				SecurityContextHolder.getContext().setAuthentication(authentication);
 			} else {
@@ -1,5 +1,6 @@
 package com.ratemaster.overseer.filter;
 
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import com.ratemaster.overseer.configuration.SecurityConfiguration;
@@ -7,14 +8,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import com.ratemaster.overseer.configuration.BypassRateLimit;
+import com.ratemaster.overseer.configuration.RateLimit;
 import com.ratemaster.overseer.dto.ExceptionResponseDto;
 import com.ratemaster.overseer.service.RateLimitingService;
 import com.ratemaster.overseer.utility.ApiEndpointSecurityInspector;
 import com.ratemaster.overseer.utility.AuthenticatedUserIdProvider;
+import com.ratemaster.overseer.utility.RateLimitPolicyRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.github.bucket4j.ConsumptionProbe;
@@ -25,9 +26,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import com.ratelimiter.limiter.HierarchicalRateLimiterService;
 import com.ratelimiter.limiter.HierarchicalRateLimitResult;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import org.springframework.beans.factory.annotation.Value;
+import com.ratelimiter.metrics.HeavyHitters;
 
 /**
  * RateLimitFilter is a custom filter registered with the spring security filter
@@ -49,9 +48,16 @@ import org.springframework.beans.factory.annotation.Value;
  * 
  * Additionally, the rate limit enforcement can be bypassed for specific private
  * API endpoints by annotating the corresponding controller methods with
- * {@link BypassRateLimit} annotation.
+ * {@link BypassRateLimit} annotation, while controller methods annotated with
+ * {@link RateLimit} declare the requests they cost and a limit of their own.
+ * Both are resolved through the {@link RateLimitPolicyRegistry}, as part of the
+ * request classification shared with the {@link JwtAuthenticationFilter}.
+ * 
+ * Every decision taken is recorded in {@link HeavyHitters}, which tracks the
+ * users and tenants consuming the most quota and denied most often.
  * 
  * @see BypassRateLimit
+ * @see RateLimit
  * @see RateLimitingService
  * @see ApiEndpointSecurityInspector
  */
@@ -61,14 +67,10 @@ public class RateLimitFilter extends OncePerRequestFilter {
 
 	private final ObjectMapper objectMapper;
 	private final RateLimitingService rateLimitingService;
-	private final RequestMappingHandlerMapping requestHandlerMapping;
 	private final AuthenticatedUserIdProvider authenticatedUserIdProvider;
 	private final ApiEndpointSecurityInspector apiEndpointSecurityInspector;
 	private final HierarchicalRateLimiterService hierarchicalRateLimiterService;
-	@Value("${spring.application.name}")
-	private String issuer;
-	@Value("${com.ratemaster.jwt.secret-key}")
-	private String secretKey;
+	private final HeavyHitters heavyHitters;
 
 	private static final String RATE_LIMIT_ERROR_MESSAGE = "API request limit linked to your current plan has been exhausted.";
 	private static final HttpStatus RATE_LIMIT_ERROR_STATUS = HttpStatus.TOO_MANY_REQUESTS;
@@ -76,31 +78,31 @@ public class RateLimitFilter extends OncePerRequestFilter {
 	@Override
 	@SneakyThrows
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) {
-		final var unsecuredApiBeingInvoked = apiEndpointSecurityInspector.isUnsecureRequest(request);
+		final var classification = apiEndpointSecurityInspector.classify(request);
 
-		if (Boolean.FALSE.equals(unsecuredApiBeingInvoked) && authenticatedUserIdProvider.isAvailable()) {
-			final var isRequestBypassed = isBypassed(request);
+		if (Boolean.FALSE.equals(classification.unsecured()) && authenticatedUserIdProvider.isAvailable()) {
+			final var policy = classification.policy();
 
-			if (Boolean.FALSE.equals(isRequestBypassed)) {
+			if (Boolean.FALSE.equals(policy.bypassed())) {
 				final var userId = authenticatedUserIdProvider.getUserId();
-				String tenantId = null;
-				final var authorizationHeader = request.getHeader("Authorization");
-				if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-					String token = authorizationHeader.replace("Bearer ", "");
-					Claims claims = Jwts.parser()
-						.requireIssuer(issuer)
-						.verifyWith(io.jsonwebtoken.security.Keys.hmacShaKeyFor(java.util.Base64.getDecoder().decode(secretKey)))
-						.build()
-						.parseSignedClaims(token)
-						.getPayload();
-					tenantId = claims.get("tenantId", String.class);
+				final var tenantId = authenticatedUserIdProvider.getTenantId();
+				final var endpointLimitKey = policy.hasEndpointLimit() ? endpointLimitKey(policy, tenantId, userId) : null;
+				if (endpointLimitKey != null) {
+					final var endpointProbe = rateLimitingService.tryConsumeEndpoint(policy, endpointLimitKey);
+					if (Boolean.FALSE.equals(endpointProbe.isConsumed())) {
+						heavyHitters.record(tenantId, userId.toString(), false, policy.cost());
+						setRateLimitErrorDetails(response, endpointProbe);
+						return;
+					}
 				}
 				if (tenantId != null) {
-					HierarchicalRateLimitResult result = hierarchicalRateLimiterService.isAllowed(tenantId, userId.toString());
+					HierarchicalRateLimitResult result = hierarchicalRateLimiterService.isAllowed(tenantId, userId, policy.cost());
+					heavyHitters.record(tenantId, userId.toString(), result.isAllowed(), policy.cost());
 					response.setHeader("X-Rate-Limit-Remaining-Global", String.valueOf(result.getRemainingTokensGlobal()));
 					response.setHeader("X-Rate-Limit-Remaining-Tenant", String.valueOf(result.getRemainingTokensTenant()));
 					response.setHeader("X-Rate-Limit-Remaining-User", String.valueOf(result.getRemainingTokensUser()));
 					if (!result.isAllowed()) {
+						refundEndpoint(policy, endpointLimitKey);
 						response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
 						response.setContentType(MediaType.APPLICATION_JSON_VALUE);
 						response.getWriter().write("{\"Status\":\"429 TOO_MANY_REQUESTS\",\"deniedAt\":\"" + result.getDeniedAt() + "\"}");
@@ -108,10 +110,11 @@ public class RateLimitFilter extends OncePerRequestFilter {
 					}
 				} else {
 					// fallback to old logic if tenantId missing
-					final var bucket = rateLimitingService.getBucket(userId);
-					final var consumptionProbe = bucket.tryConsumeAndReturnRemaining(1);
+					final var consumptionProbe = rateLimitingService.tryConsume(userId, policy.cost());
 					final var isConsumptionPassed = consumptionProbe.isConsumed();
+					heavyHitters.record(null, userId.toString(), isConsumptionPassed, policy.cost());
 					if (Boolean.FALSE.equals(isConsumptionPassed)) {
+						refundEndpoint(policy, endpointLimitKey);
 						setRateLimitErrorDetails(response, consumptionProbe);
 						return;
 					}
@@ -124,20 +127,34 @@ public class RateLimitFilter extends OncePerRequestFilter {
 	}
 
 	/**
-	 * Checks if the controller method corresponding to current request is annotated
-	 * with {@link BypassRateLimit} annotation, indicating that rate limit
-	 * enforcement should be bypassed.
+	 * Returns who the endpoint specific limit of the provided policy is consumed
+	 * for, as selected by its {@link RateLimit.Key}.
 	 *
-	 * @param request HttpServletRequest representing the incoming HTTP request
-	 * @return {@code true} if the request is to be bypassed, {@code false} otherwise
+	 * @param policy   policy of the route being invoked.
+	 * @param tenantId tenant of the user, {@code null} if the user has none.
+	 * @param userId   unique identifier of the user.
+	 * @return the key of the endpoint specific bucket to consume from.
 	 */
-	@SneakyThrows
-	private boolean isBypassed(HttpServletRequest request) {
-		var handlerChain = requestHandlerMapping.getHandler(request);
-		if (handlerChain != null && handlerChain.getHandler() instanceof HandlerMethod handlerMethod) {
-			return handlerMethod.getMethod().isAnnotationPresent(BypassRateLimit.class);
+	private String endpointLimitKey(final RateLimitPolicyRegistry.Policy policy, final String tenantId, final UUID userId) {
+		return switch (policy.key()) {
+			case USER -> "user:" + userId;
+			case TENANT -> tenantId != null ? "tenant:" + tenantId : "user:" + userId;
+			case ENDPOINT -> "all";
+		};
+	}
+
+	/**
+	 * Hands the request back to the endpoint specific limit when a plan or
+	 * hierarchical limit rejected it after it was consumed there, so rejected
+	 * requests do not drain the endpoint's bucket.
+	 *
+	 * @param policy           policy of the route being invoked.
+	 * @param endpointLimitKey key the endpoint limit was consumed for, {@code null} if the route has none.
+	 */
+	private void refundEndpoint(final RateLimitPolicyRegistry.Policy policy, final String endpointLimitKey) {
+		if (endpointLimitKey != null) {
+			rateLimitingService.refundEndpoint(policy, endpointLimitKey);
 		}
-		return Boolean.FALSE;
 	}
 
 	/**
@@ -0,0 +1,103 @@
+package com.ratemaster.overseer.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.ratelimiter.limiter.BucketConfigurationRegistry;
+import com.ratemaster.overseer.entity.Plan;
+import com.ratemaster.overseer.repository.PlanRepository;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory catalog of all subscription plans. The plans table is tiny and its
+ * rows change only through migrations, hence every plan is held in memory and
+ * the datasource is read again only when a plan-id unknown to the catalog is
+ * requested or {@link #reload()} is invoked. Reloads for unknown plan-ids are
+ * throttled to one per {@link #RELOAD_ON_MISS_INTERVAL}, so lookups of bogus
+ * plan-ids do not read the datasource on every call. Each reload refreshes the
+ * plan bucket configurations held by {@link BucketConfigurationRegistry} as
+ * well.
+ * 
+ * Reloads are serialized through a {@link ReentrantLock} rather than a
+ * monitor, so that a virtual thread waiting on the datasource while reloading
+ * does not pin its carrier thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlanCatalog {
+
+	/**
+	 * Minimum duration between two reloads caused by plan-ids unknown to the
+	 * catalog.
+	 */
+	static final Duration RELOAD_ON_MISS_INTERVAL = Duration.ofSeconds(30);
+
+	private final PlanRepository planRepository;
+	private final BucketConfigurationRegistry bucketConfigurationRegistry;
+	private final ReentrantLock reloadLock = new ReentrantLock();
+	private volatile Map<UUID, Plan> plans = Map.of();
+	private volatile long reloadedAtNanos = System.nanoTime() - RELOAD_ON_MISS_INTERVAL.toNanos();
+
+	/**
+	 * Retrieves the plan corresponding to the provided plan-id.
+	 *
+	 * @param planId unique identifier of the plan.
+	 * @return the plan, or an empty optional if no plan exists with provided-id.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 */
+	public Optional<Plan> get(@NonNull final UUID planId) {
+		final var plan = plans.get(planId);
+		if (plan != null) {
+			return Optional.of(plan);
+		}
+		if (System.nanoTime() - reloadedAtNanos >= RELOAD_ON_MISS_INTERVAL.toNanos()) {
+			reload();
+		}
+		return Optional.ofNullable(plans.get(planId));
+	}
+
+	/**
+	 * Retrieves all available subscription plans.
+	 *
+	 * @return List of all plans held in the catalog.
+	 */
+	public List<Plan> getAll() {
+		if (plans.isEmpty()) {
+			reload();
+		}
+		return List.copyOf(plans.values());
+	}
+
+	/**
+	 * Replaces the catalog and the plan bucket configurations with the plans
+	 * currently stored in the datasource. To be invoked whenever plan rows are
+	 * changed.
+	 */
+	public void reload() {
+		reloadLock.lock();
+		try {
+			final var reloadedPlans = planRepository.findAll()
+					.stream()
+					.collect(Collectors.toUnmodifiableMap(Plan::getId, Function.identity()));
+			final var limitsPerHour = reloadedPlans.values()
+					.stream()
+					.collect(Collectors.toMap(Plan::getId, plan -> plan.getLimitPerHour().longValue()));
+			bucketConfigurationRegistry.reloadPlans(limitsPerHour);
+			plans = reloadedPlans;
+			reloadedAtNanos = System.nanoTime();
+		} finally {
+			reloadLock.unlock();
+		}
+	}
+
+}
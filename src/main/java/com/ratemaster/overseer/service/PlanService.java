@@ -8,7 +8,6 @@ import com.ratemaster.overseer.dto.PlanResponseDto;
 import com.ratemaster.overseer.dto.PlanUpdationRequestDto;
 import com.ratemaster.overseer.entity.UserPlanMapping;
 import com.ratemaster.overseer.exception.InvalidPlanException;
-import com.ratemaster.overseer.repository.PlanRepository;
 import com.ratemaster.overseer.repository.UserPlanMappingRepository;
 import com.ratemaster.overseer.utility.AuthenticatedUserIdProvider;
 
@@ -19,7 +18,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class PlanService {
 
-	private final PlanRepository planRepository;
+	private final PlanCatalog planCatalog;
 	private final RateLimitingService rateLimitingService;
 	private final UserPlanMappingRepository userPlanMappingRepository;
 	private final AuthenticatedUserIdProvider authenticatedUserIdProvider;
@@ -38,7 +37,7 @@ public class PlanService {
 	 */
 	public void update(@NonNull final PlanUpdationRequestDto planUpdationRequest) {
 		final var planId = planUpdationRequest.getPlanId();
-		final var isPlanIdValid = planRepository.existsById(planId);
+		final var isPlanIdValid = planCatalog.get(planId).isPresent();
 		if (Boolean.FALSE.equals(isPlanIdValid)) {
 			throw new InvalidPlanException("No plan exists in the system with provided-id");
 		}
@@ -60,17 +59,18 @@ public class PlanService {
 	}
 
 	/**
-	 * Retrieves all available subscription plans.
+	 * Retrieves all available subscription plans from the in-memory plan catalog.
 	 *
 	 * @return List of PlanResponseDto containing details of each available plan.
 	 */
 	public List<PlanResponseDto> retrieve() {
-		return planRepository.findAll()
+		return planCatalog.getAll()
 				.stream()
 				.map(plan -> PlanResponseDto.builder()
 						.id(plan.getId())
 						.name(plan.getName())
 						.limitPerHour(plan.getLimitPerHour())
+						.algorithm(plan.getAlgorithm())
 						.build())
 				.toList();
 	}
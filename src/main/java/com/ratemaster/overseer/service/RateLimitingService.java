@@ -1,14 +1,26 @@
 package com.ratemaster.overseer.service;
 
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ratelimiter.limiter.BucketConfigurationRegistry;
+import com.ratelimiter.limiter.HierarchicalScriptEvaluator;
+import com.ratelimiter.limiter.RateLimitAlgorithm;
+import com.ratemaster.overseer.configuration.RateLimit;
+import com.ratemaster.overseer.entity.Plan;
+import com.ratemaster.overseer.exception.InvalidPlanException;
 import com.ratemaster.overseer.repository.UserPlanMappingRepository;
+import com.ratemaster.overseer.utility.RateLimitPolicyRegistry;
 
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -17,8 +29,23 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RateLimitingService {
 
+	/**
+	 * Redis channel on which {@link #reset(UUID)} announces the user-id whose
+	 * plan changed, to every instance.
+	 */
+	public static final String PLAN_CHANGE_CHANNEL = "ratelimit:plan-changes";
+
+	private static final String PLAN_KEY_PREFIX = "ratelimit:plan:";
+	private static final String ENDPOINT_KEY_PREFIX = "ratelimit:endpoint:";
+	private static final RateLimitAlgorithm[] ENDPOINT_ALGORITHM = { RateLimitAlgorithm.TOKEN_BUCKET };
+
+	private final PlanCatalog planCatalog;
 	private final ProxyManager<UUID> proxyManager;
+	private final Cache<UUID, UUID> activePlanIdCache;
 	private final UserPlanMappingRepository userPlanMappingRepository;
+	private final BucketConfigurationRegistry bucketConfigurationRegistry;
+	private final HierarchicalScriptEvaluator scriptEvaluator;
+	private final StringRedisTemplate redisTemplate;
 
 	/**
 	 * Retrieves the stored rate-limiting bucket for the specified user. If no
@@ -30,33 +57,149 @@ public class RateLimitingService {
 	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
 	 */
 	public Bucket getBucket(@NonNull final UUID userId) {
-		return proxyManager.builder().build(userId, () -> createBucketConfiguration(userId));
+		return proxyManager.builder().build(userId, () -> getBucketConfiguration(userId));
+	}
+
+	/**
+	 * Consumes a single request from the limit of the user's active plan, using
+	 * the {@link RateLimitAlgorithm} the plan is configured with. Token bucket
+	 * plans are served by the user's {@link #getBucket(UUID) bucket}, any other
+	 * algorithm by {@code scripts/rate-limit-algorithms.lua}, whose outcome is
+	 * reported as a {@link ConsumptionProbe} all the same.
+	 *
+	 * @param userId unique identifier of the user.
+	 * @return the outcome of the consumption, with remaining requests and the
+	 *         time to wait when rejected.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 */
+	public ConsumptionProbe tryConsume(@NonNull final UUID userId) {
+		return tryConsume(userId, 1);
 	}
 
 	/**
-	 * Resets the rate limiting for the specified user-id.
+	 * Consumes {@code cost} requests from the limit of the user's active plan, as
+	 * {@link #tryConsume(UUID)} does for a single one.
+	 *
+	 * @param userId unique identifier of the user.
+	 * @param cost   number of requests to consume.
+	 * @return the outcome of the consumption.
+	 * @throws IllegalArgumentException if provided userId is <code>null</code>.
+	 */
+	public ConsumptionProbe tryConsume(@NonNull final UUID userId, final long cost) {
+		final var plan = planCatalog.get(getActivePlanId(userId));
+		final var algorithm = plan.map(Plan::getAlgorithm).orElse(RateLimitAlgorithm.TOKEN_BUCKET);
+		if (algorithm == RateLimitAlgorithm.TOKEN_BUCKET) {
+			return getBucket(userId).tryConsumeAndReturnRemaining(cost);
+		}
+		return toConsumptionProbe(scriptEvaluator.consume(List.of(algorithm.key(PLAN_KEY_PREFIX + userId)), cost,
+				new RateLimitAlgorithm[] { algorithm }, plan.get().getLimitPerHour()));
+	}
+
+	/**
+	 * Consumes a single request from the endpoint specific limit of the provided
+	 * policy, declared through {@link RateLimit}. Every route and key has a bucket
+	 * of its own, holding {@code capacity} requests refilled over {@code window}.
+	 *
+	 * @param policy policy of the route being invoked, with an endpoint specific limit.
+	 * @param key    who the limit is consumed for, as selected by the policy's {@link RateLimit.Key}.
+	 * @return the outcome of the consumption.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 */
+	public ConsumptionProbe tryConsumeEndpoint(@NonNull final RateLimitPolicyRegistry.Policy policy, @NonNull final String key) {
+		return toConsumptionProbe(scriptEvaluator.consume(List.of(endpointKey(policy, key)), 1,
+				policy.window(), ENDPOINT_ALGORITHM, policy.capacity()));
+	}
+
+	/**
+	 * Hands back a request consumed by {@link #tryConsumeEndpoint} that was then
+	 * rejected by another limit, so it does not count against the endpoint.
+	 *
+	 * @param policy policy of the route being invoked, with an endpoint specific limit.
+	 * @param key    who the limit was consumed for.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 */
+	public void refundEndpoint(@NonNull final RateLimitPolicyRegistry.Policy policy, @NonNull final String key) {
+		scriptEvaluator.consume(List.of(endpointKey(policy, key)), -1, policy.window(), ENDPOINT_ALGORITHM,
+				policy.capacity());
+	}
+
+	private static String endpointKey(final RateLimitPolicyRegistry.Policy policy, final String key) {
+		return ENDPOINT_KEY_PREFIX + policy.route() + ":" + key;
+	}
+
+	/**
+	 * Resets the rate limiting for the specified user-id. The user's cached active
+	 * plan is evicted as well, so the next bucket is created from the plan
+	 * currently active in the datasource.
+	 * 
+	 * The change is published on {@link #PLAN_CHANGE_CHANNEL}, every instance
+	 * receiving it invokes {@link #evictActivePlan(UUID)}. An instance that still
+	 * held the previous plan-id may recreate the bucket from it until the message
+	 * reaches it, and removes that bucket once it does.
 	 *
 	 * @param userId unique identifier of the user.
 	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
 	 */
 	public void reset(@NonNull final UUID userId) {
+		evictActivePlan(userId);
+		redisTemplate.delete(Arrays.stream(RateLimitAlgorithm.values())
+				.filter(algorithm -> algorithm != RateLimitAlgorithm.TOKEN_BUCKET)
+				.map(algorithm -> algorithm.key(PLAN_KEY_PREFIX + userId))
+				.toList());
+		redisTemplate.convertAndSend(PLAN_CHANGE_CHANNEL, userId.toString());
+	}
+
+	/**
+	 * Evicts the user's cached active plan-id held by this instance, and removes
+	 * the user's bucket, as announced on {@link #PLAN_CHANGE_CHANNEL}.
+	 *
+	 * @param userId unique identifier of the user whose plan changed.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 */
+	public void evictActivePlan(@NonNull final UUID userId) {
+		activePlanIdCache.invalidate(userId);
 		proxyManager.removeProxy(userId);
 	}
 
 	/**
-	 * Constructs an instance of {@link BucketConfiguration} corresponding to the
-	 * user's active plan which enforce the allowed rate-limit of API invocation.
+	 * Retrieves the shared {@link BucketConfiguration} corresponding to the user's
+	 * active plan which enforce the allowed rate-limit of API invocation. The
+	 * user's active plan-id is served from memory whenever possible, so recreating
+	 * buckets in bulk (e.g. post a Redis flush) does not flood the datasource.
+	 * A plan-id without configuration is looked up through {@link PlanCatalog},
+	 * whose reloads for unknown plan-ids are throttled.
 	 *
 	 * @param userId The unique identifier of the user.
 	 * @return The bucket configuration for rate limiting based on the user's active plan.
 	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 * @throws InvalidPlanException     if no plan exists with the user's active plan-id.
+	 */
+	private BucketConfiguration getBucketConfiguration(@NonNull final UUID userId) {
+		final var planId = getActivePlanId(userId);
+		final var bucketConfiguration = bucketConfigurationRegistry.plan(planId);
+		if (bucketConfiguration != null) {
+			return bucketConfiguration;
+		}
+		return planCatalog.get(planId)
+				.map(plan -> bucketConfigurationRegistry.plan(planId))
+				.orElseThrow(() -> new InvalidPlanException("No plan exists in the system with provided-id"));
+	}
+
+	/**
+	 * Reports the reply of {@code scripts/rate-limit-algorithms.lua} for a single
+	 * key as a {@link ConsumptionProbe}.
 	 */
-	private BucketConfiguration createBucketConfiguration(@NonNull final UUID userId) {
-		final var userPlanMapping = userPlanMappingRepository.getActivePlan(userId);
-		final var limitPerHour = userPlanMapping.getPlan().getLimitPerHour();
-		return BucketConfiguration.builder()
-				.addLimit(limit -> limit.capacity(limitPerHour).refillIntervally(limitPerHour, Duration.ofHours(1)))
-				.build();
+	private static ConsumptionProbe toConsumptionProbe(final List<Long> reply) {
+		final var remaining = reply.get(1);
+		if (reply.get(0) == 0) {
+			return ConsumptionProbe.consumed(remaining, 0);
+		}
+		final var nanosToWait = TimeUnit.MILLISECONDS.toNanos(reply.get(2));
+		return ConsumptionProbe.rejected(remaining, nanosToWait, nanosToWait);
+	}
+
+	private UUID getActivePlanId(final UUID userId) {
+		return activePlanIdCache.get(userId, key -> userPlanMappingRepository.getActivePlan(key).getPlanId());
 	}
 
-}
\ No newline at end of file
+}
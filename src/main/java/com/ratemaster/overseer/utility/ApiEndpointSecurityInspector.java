@@ -4,19 +4,21 @@ import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
 
+import com.ratemaster.overseer.configuration.BypassRateLimit;
 import com.ratemaster.overseer.configuration.OpenApiConfigurationProperties;
 import com.ratemaster.overseer.configuration.PublicEndpoint;
+import com.ratemaster.overseer.filter.JwtAuthenticationFilter;
+import com.ratemaster.overseer.filter.RateLimitFilter;
 
-import io.swagger.v3.oas.models.PathItem.HttpMethod;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
@@ -28,7 +30,15 @@ import lombok.RequiredArgsConstructor;
  * based on their security configuration. It works in conjunction with the
  * mappings of controller methods annotated with {@link PublicEndpoint}.
  * 
+ * Public routes are compiled once at startup into a {@link RouteIndex} keyed by
+ * HTTP method. Each incoming request is classified once, as destined to a public
+ * route or not along with the rate limit policy of its route, and the
+ * classification is stored as a request attribute so that both the
+ * {@link JwtAuthenticationFilter} and the {@link RateLimitFilter} share it.
+ * 
  * @see PublicEndpoint
+ * @see BypassRateLimit
+ * @see RateLimitPolicyRegistry
  * @see OpenApiConfigurationProperties
  */
 @Component
@@ -36,19 +46,35 @@ import lombok.RequiredArgsConstructor;
 @EnableConfigurationProperties(OpenApiConfigurationProperties.class)
 public class ApiEndpointSecurityInspector {
 
+	/**
+	 * Classification of an HTTP request, computed once per request.
+	 *
+	 * @param unsecured whether the request is destined to a public API endpoint.
+	 * @param policy    rate limit policy of the route the request is destined to,
+	 *                  telling whether rate limiting is bypassed.
+	 */
+	public record RequestClassification(boolean unsecured, RateLimitPolicyRegistry.Policy policy) {
+	}
+
+	@Qualifier("requestMappingHandlerMapping")
 	private final RequestMappingHandlerMapping requestHandlerMapping;
 	private final OpenApiConfigurationProperties openApiConfigurationProperties;
-	private static final List<String> SWAGGER_V3_PATHS = List.of("/swagger-ui**/**", "/v3/api-docs**/**");
+	private final RateLimitPolicyRegistry rateLimitPolicyRegistry;
+	private static final List<String> SWAGGER_V3_PATHS = List.of("/swagger-ui*/**", "/v3/api-docs*/**");
+	private static final String CLASSIFICATION_ATTRIBUTE = RequestClassification.class.getName();
 	
 	@Getter
 	private List<String> publicGetEndpoints = new ArrayList<String>();
 	@Getter
 	private List<String> publicPostEndpoints = new ArrayList<String>();
+
+	private final RouteIndex<Boolean> publicRoutes = new RouteIndex<>();
 	
 	/**
 	 * Initializes the class by gathering public endpoints for various HTTP methods.
 	 * It identifies designated public endpoints within the application's mappings
-	 * and adds them to separate lists based on their associated HTTP methods.
+	 * and adds them to separate lists based on their associated HTTP methods,
+	 * which are then compiled into the public route index.
 	 * If OpenAPI is enabled, Swagger endpoints are also considered as public.
 	 */
 	@PostConstruct
@@ -72,6 +98,11 @@ public class ApiEndpointSecurityInspector {
 		if (Boolean.TRUE.equals(openApiEnabled)) {
 			publicGetEndpoints.addAll(SWAGGER_V3_PATHS);
 		}
+
+		final var pathPatternParser = PathPatternParser.defaultInstance;
+		publicGetEndpoints.forEach(apiPath -> publicRoutes.register(GET.name(), pathPatternParser.parse(apiPath), Boolean.TRUE));
+		publicPostEndpoints.forEach(apiPath -> publicRoutes.register(POST.name(), pathPatternParser.parse(apiPath), Boolean.TRUE));
+		publicRoutes.compile();
 	}
 
 	/**
@@ -81,28 +112,28 @@ public class ApiEndpointSecurityInspector {
 	 * @return {@code true} if the request is to an unsecured API endpoint, {@code false} otherwise.
 	 */
 	public boolean isUnsecureRequest(@NonNull final HttpServletRequest request) {
-		final var requestHttpMethod = HttpMethod.valueOf(request.getMethod());
-		var unsecuredApiPaths = getUnsecuredApiPaths(requestHttpMethod);
-		unsecuredApiPaths = Optional.ofNullable(unsecuredApiPaths).orElseGet(ArrayList::new);
-
-		return unsecuredApiPaths.stream().anyMatch(apiPath -> new AntPathMatcher().match(apiPath, request.getRequestURI()));
+		return classify(request).unsecured();
 	}
 
 	/**
-	 * Retrieves the list of unsecured API paths based on the provided HTTP method.
-	 * 
-	 * @param httpMethod The HTTP method for which unsecured paths are to be retrieved.
-	 * @return A list of unsecured API paths for the specified HTTP method.s
+	 * Classifies the provided HTTP request by the route it is destined to. The
+	 * classification is computed on first invocation and stored as a request
+	 * attribute, subsequent invocations for the same request return it as is.
+	 *
+	 * @param request The HTTP request to classify.
+	 * @return whether the request is to an unsecured API endpoint, along with the
+	 *         rate limit policy of its route.
 	 */
-	private List<String> getUnsecuredApiPaths(@NonNull final HttpMethod httpMethod) {
-		switch (httpMethod) {
-			case GET:
-				return publicGetEndpoints;
-			case POST:
-				return publicPostEndpoints;
-			default:
-				return Collections.emptyList();
+	public RequestClassification classify(@NonNull final HttpServletRequest request) {
+		if (request.getAttribute(CLASSIFICATION_ATTRIBUTE) instanceof RequestClassification classification) {
+			return classification;
 		}
+		final var httpMethod = request.getMethod();
+		final var path = StringUtils.removeStart(request.getRequestURI(), request.getContextPath());
+		final var unsecured = publicRoutes.match(httpMethod, path) != null;
+		final var classification = new RequestClassification(unsecured, rateLimitPolicyRegistry.resolve(httpMethod, path));
+		request.setAttribute(CLASSIFICATION_ATTRIBUTE, classification);
+		return classification;
 	}
 	
 }
\ No newline at end of file
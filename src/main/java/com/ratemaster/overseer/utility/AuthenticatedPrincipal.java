@@ -0,0 +1,19 @@
+package com.ratemaster.overseer.utility;
+
+import java.util.UUID;
+
+import com.ratemaster.overseer.filter.JwtAuthenticationFilter;
+
+/**
+ * Principal stored in the security context by the {@link JwtAuthenticationFilter}
+ * once a request's access token has been verified, carrying the claims the
+ * application needs so the token is never parsed twice.
+ *
+ * @param userId   unique identifier of the authenticated user, the token's audience.
+ * @param tenantId tenant the user belongs to, the token's {@code tenantId} claim,
+ *                 {@code null} if the token carries none.
+ * @see JwtUtility
+ * @see AuthenticatedUserIdProvider
+ */
+public record AuthenticatedPrincipal(UUID userId, String tenantId) {
+}
@@ -10,12 +10,14 @@ import org.springframework.stereotype.Component;
 
 /**
  * Utility class dedicated to provide authenticated user's ID as stored in the
- * DataSource in UUID format which uniquely identifies the user in the system.
- * This is fetched from the principal in security context, where it is stored in
- * by the {@link JwtAuthenticationFilter} during HTTP
+ * DataSource in UUID format which uniquely identifies the user in the system,
+ * along with the user's tenant.
+ * These are fetched from the {@link AuthenticatedPrincipal} in security context,
+ * where it is stored in by the {@link JwtAuthenticationFilter} during HTTP
  * request evaluation through the filter chain.
  * 
  * @see JwtAuthenticationFilter
+ * @see AuthenticatedPrincipal
  */
 @Component
 public class AuthenticatedUserIdProvider {
@@ -30,10 +32,27 @@ public class AuthenticatedUserIdProvider {
 	 *                               the JwtAuthenticationFilter
 	 */
 	public UUID getUserId() {
+		return getPrincipal().userId();
+	}
+
+	/**
+	 * Retrieves the tenant of the authenticated user from the security context.
+	 * 
+	 * @return The tenant the authenticated user belongs to, {@code null} if the
+	 *         user's access token names none.
+	 * @throws IllegalStateException if the method is invoked when a request was
+	 *                               destined to a public API endpoint and did not pass
+	 *                               the JwtAuthenticationFilter
+	 */
+	public String getTenantId() {
+		return getPrincipal().tenantId();
+	}
+
+	private AuthenticatedPrincipal getPrincipal() {
 		return Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
 		        .map(Authentication::getPrincipal)
-		        .filter(UUID.class::isInstance)
-		        .map(UUID.class::cast)
+		        .filter(AuthenticatedPrincipal.class::isInstance)
+		        .map(AuthenticatedPrincipal.class::cast)
 		        .orElseThrow(IllegalStateException::new);
 	}
 	
@@ -1,9 +1,11 @@
 package com.ratemaster.overseer.utility;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Date;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
@@ -13,13 +15,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.ratemaster.overseer.configuration.TokenConfigurationProperties;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 
 /**
  * Utility class for JWT (JSON Web Token) operations, responsible for handling
@@ -27,6 +33,11 @@ import lombok.NonNull;
  * JWT tokens. It interacts with the application's token configuration
  * properties to ensure correct token creation and validation.
  * 
+ * The signing key and token parser are built once. Tokens verified
+ * successfully are remembered by the SHA-256 digest of the token, until they
+ * expire, so repeat requests with the same token skip signature verification
+ * and claim parsing altogether.
+ * 
  * @see TokenConfigurationProperties
  * @see JwtAuthenticationFilter
  */
@@ -35,14 +46,58 @@ import lombok.NonNull;
 public class JwtUtility {
 	
 	private static final String BEARER_PREFIX = "Bearer ";
+	private static final String TENANT_ID_CLAIM = "tenantId";
 
 	private final String issuer;
 	private final TokenConfigurationProperties tokenConfigurationProperties;
+	private final SecretKey secretKey;
+	private final JwtParser jwtParser;
+	private final Cache<String, VerifiedToken> verifiedTokenCache;
+
+	/**
+	 * Principal of a verified token, along with the token's expiration.
+	 */
+	private record VerifiedToken(AuthenticatedPrincipal principal, long expiresAtMillis) {
+	}
 	
 	public JwtUtility(@Value("${spring.application.name}") final String issuer,
 			final TokenConfigurationProperties tokenConfigurationProperties) {
 		this.issuer = issuer;
 		this.tokenConfigurationProperties = tokenConfigurationProperties;
+		this.secretKey = getSecretKey(tokenConfigurationProperties.getSecretKey());
+		this.jwtParser = Jwts.parser()
+				.requireIssuer(issuer)
+				.verifyWith(secretKey)
+				.build();
+		this.verifiedTokenCache = Caffeine.newBuilder()
+				.maximumSize(tokenConfigurationProperties.getCacheSize())
+				.expireAfter(new VerifiedTokenExpiry())
+				.build();
+	}
+
+	/**
+	 * Evicts a verified token once the token itself expires.
+	 */
+	private static class VerifiedTokenExpiry implements Expiry<String, VerifiedToken> {
+
+		@Override
+		public long expireAfterCreate(final String digest, final VerifiedToken verifiedToken, final long currentTime) {
+			final var remainingMillis = verifiedToken.expiresAtMillis() - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+		}
+
+		@Override
+		public long expireAfterUpdate(final String digest, final VerifiedToken verifiedToken, final long currentTime,
+				final long currentDuration) {
+			return currentDuration;
+		}
+
+		@Override
+		public long expireAfterRead(final String digest, final VerifiedToken verifiedToken, final long currentTime,
+				final long currentDuration) {
+			return currentDuration;
+		}
+
 	}
 
 	/**
@@ -63,9 +118,6 @@ public class JwtUtility {
 		final var currentTimestamp = new Date(System.currentTimeMillis());
 		final var expirationTimestamp = new Date(System.currentTimeMillis() + expiration);
 		
-		final var encodedSecretKey = tokenConfigurationProperties.getSecretKey();
-		final var secretKey = getSecretKey(encodedSecretKey);
-		
 		return Jwts.builder()
 				.issuer(issuer)
 				.issuedAt(currentTimestamp)
@@ -85,30 +137,44 @@ public class JwtUtility {
 	 * @return The authenticated user's unique identifier (ID) in UUID format.
 	 */
 	public UUID getUserId(@NonNull final String token) {
-		final var audience = extractClaim(token, Claims::getAudience).iterator().next();
-		return UUID.fromString(audience);
+		return authenticate(token).userId();
 	}
 
 	/**
-	 * Extracts a specific claim from the provided JWT token. This method verifies
-	 * the token's issuer and signature before extracting the claim.
+	 * Verifies the issuer, signature and expiration of the provided JWT token and
+	 * returns the principal it authenticates. A token verified before is served
+	 * from memory until it expires, without verifying its signature again.
 	 * 
-	 * @param token JWT token from which the desired claim is to be extracted.
-	 * @param claimsResolver function of {@link Claims} to execute. example: {@code Claims::getId}.
-	 * @throws IllegalArgumentException if any provided argument is <code>null</code>
-	 * @return The extracted claim value from the JWT token.
+	 * @param token The JWT token to verify.
+	 * @throws IllegalArgumentException if provided argument is <code>null</code>.
+	 * @throws io.jsonwebtoken.JwtException if the token is invalid or expired.
+	 * @return The principal carrying the user's ID and tenant.
 	 */
-	private <T> T extractClaim(@NonNull final String token, @NonNull final Function<Claims, T> claimsResolver) {
-		final var encodedSecretKey = tokenConfigurationProperties.getSecretKey();
-		final var secretKey = getSecretKey(encodedSecretKey);
+	public AuthenticatedPrincipal authenticate(@NonNull final String token) {
 		final var sanitizedToken = token.replace(BEARER_PREFIX, StringUtils.EMPTY);
-		final var claims = Jwts.parser()
-				.requireIssuer(issuer)
-				.verifyWith(secretKey)
-				.build()
-				.parseSignedClaims(sanitizedToken)
-				.getPayload();
-		return claimsResolver.apply(claims);
+		final var digest = digest(sanitizedToken);
+		final var verifiedToken = verifiedTokenCache.getIfPresent(digest);
+		if (verifiedToken != null) {
+			return verifiedToken.principal();
+		}
+
+		final var claims = jwtParser.parseSignedClaims(sanitizedToken).getPayload();
+		final var userId = UUID.fromString(claims.getAudience().iterator().next());
+		final var principal = new AuthenticatedPrincipal(userId, claims.get(TENANT_ID_CLAIM, String.class));
+		if (claims.getExpiration() != null) {
+			verifiedTokenCache.put(digest, new VerifiedToken(principal, claims.getExpiration().getTime()));
+		}
+		return principal;
+	}
+
+	/**
+	 * Returns the Base64-encoded SHA-256 digest of the provided token, used as the
+	 * key of verified tokens so raw tokens are never held in memory.
+	 */
+	@SneakyThrows
+	private static String digest(final String token) {
+		final var messageDigest = MessageDigest.getInstance("SHA-256");
+		return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
 	}
 
 	/**
@@ -0,0 +1,136 @@
+package com.ratemaster.overseer.utility;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.ratemaster.overseer.configuration.BypassRateLimit;
+import com.ratemaster.overseer.configuration.RateLimit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Registry of the rate limit policy of every controller method, as declared
+ * through {@link RateLimit} and {@link BypassRateLimit} annotations. Policies
+ * are compiled once at startup from the application's request mappings, so
+ * resolving the policy of an incoming request neither resolves its handler nor
+ * reflects on annotations.
+ *
+ * Routes without path variables or wildcards are looked up by HTTP method and
+ * path in a hash table. The remaining routes are matched per HTTP method, most
+ * specific pattern first.
+ *
+ * @see RateLimit
+ * @see BypassRateLimit
+ * @see RouteIndex
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitPolicyRegistry {
+
+	/**
+	 * Rate limit policy of a route.
+	 *
+	 * @param route  HTTP method and path pattern of the route, naming its endpoint specific limit.
+	 * @param bypassed whether rate limit enforcement is skipped altogether.
+	 * @param cost   requests consumed from the user's plan or tenant hierarchy limits.
+	 * @param capacity requests admitted per {@code window} by the endpoint specific limit, {@code 0} for none.
+	 * @param window period of the endpoint specific limit.
+	 * @param key    who shares the endpoint specific limit.
+	 */
+	public record Policy(String route, boolean bypassed, long cost, long capacity, Duration window, RateLimit.Key key) {
+
+		/**
+		 * Policy of endpoints declaring none, and of requests matching no route.
+		 */
+		public static final Policy DEFAULT = new Policy(null, false, 1, 0, Duration.ZERO, RateLimit.Key.USER);
+
+		public boolean hasEndpointLimit() {
+			return capacity > 0;
+		}
+
+	}
+
+	@Qualifier("requestMappingHandlerMapping")
+	private final RequestMappingHandlerMapping requestHandlerMapping;
+
+	private final RouteIndex<Policy> routes = new RouteIndex<>();
+
+	/**
+	 * Compiles the policy of every request mapping of the application. A mapping
+	 * without HTTP methods is registered for all of them.
+	 *
+	 * @throws IllegalStateException if a {@link RateLimit} annotation declares a
+	 *         negative cost or capacity, or a window that is not positive.
+	 */
+	@PostConstruct
+	public void init() {
+		final var handlerMethods = requestHandlerMapping.getHandlerMethods();
+		handlerMethods.forEach((requestInfo, handlerMethod) -> {
+			final var pathPatterns = requestInfo.getPathPatternsCondition();
+			if (pathPatterns == null) {
+				return;
+			}
+			Set<RequestMethod> httpMethods = requestInfo.getMethodsCondition().getMethods();
+			if (httpMethods.isEmpty()) {
+				httpMethods = Set.of(RequestMethod.values());
+			}
+			for (final var httpMethod : httpMethods) {
+				for (final var pattern : pathPatterns.getPatterns()) {
+					final var policy = compile(httpMethod + " " + pattern.getPatternString(), handlerMethod);
+					routes.register(httpMethod.name(), pattern, policy);
+				}
+			}
+		});
+		routes.compile();
+	}
+
+	/**
+	 * Retrieves the policy of the route the provided HTTP request is destined to.
+	 *
+	 * @param request The HTTP request to inspect.
+	 * @return the policy of the matching route, {@link Policy#DEFAULT} if none matches.
+	 */
+	public Policy resolve(@NonNull final HttpServletRequest request) {
+		final var path = StringUtils.removeStart(request.getRequestURI(), request.getContextPath());
+		return resolve(request.getMethod(), path);
+	}
+
+	/**
+	 * Retrieves the policy of the route matching the provided HTTP method and path.
+	 *
+	 * @param httpMethod name of the HTTP method of the request.
+	 * @param path       path of the request within the application.
+	 * @return the policy of the matching route, {@link Policy#DEFAULT} if none matches.
+	 */
+	public Policy resolve(@NonNull final String httpMethod, @NonNull final String path) {
+		return Optional.ofNullable(routes.match(httpMethod, path)).orElse(Policy.DEFAULT);
+	}
+
+	private static Policy compile(final String route, final HandlerMethod handlerMethod) {
+		if (handlerMethod.hasMethodAnnotation(BypassRateLimit.class)) {
+			return new Policy(route, true, 0, 0, Duration.ZERO, RateLimit.Key.USER);
+		}
+		final var rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+		if (rateLimit == null) {
+			return Policy.DEFAULT;
+		}
+		final var window = DurationStyle.detectAndParse(rateLimit.window());
+		if (rateLimit.cost() < 1 || rateLimit.capacity() < 0 || !window.isPositive()) {
+			throw new IllegalStateException("Invalid @RateLimit on " + handlerMethod);
+		}
+		return new Policy(route, false, rateLimit.cost(), rateLimit.capacity(), window, rateLimit.key());
+	}
+
+}
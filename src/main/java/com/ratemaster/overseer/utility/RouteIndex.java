@@ -0,0 +1,85 @@
+package com.ratemaster.overseer.utility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+
+import lombok.NonNull;
+
+/**
+ * Index of values registered against routes, compiled once at startup and
+ * looked up per HTTP request without scanning every route.
+ *
+ * Routes without path variables or wildcards are looked up by HTTP method and
+ * path in a hash table. The remaining routes are matched per HTTP method, most
+ * specific pattern first, so a request is only ever matched against the
+ * patterns registered for its own HTTP method.
+ *
+ * Instances are populated during initialization and are read-only afterwards.
+ *
+ * @param <T> type of the value registered against each route.
+ * @see RateLimitPolicyRegistry
+ * @see ApiEndpointSecurityInspector
+ */
+class RouteIndex<T> {
+
+	private record PatternRoute<T>(PathPattern pattern, T value) {
+	}
+
+	private final Map<String, T> literalRoutes = new HashMap<>();
+	private final Map<String, List<PatternRoute<T>>> patternRoutes = new HashMap<>();
+
+	/**
+	 * Registers a value against the provided HTTP method and path pattern. Among
+	 * literal routes registered twice, the last registration wins.
+	 *
+	 * @param httpMethod name of the HTTP method of the route.
+	 * @param pattern    path pattern of the route.
+	 * @param value      value to register against the route.
+	 */
+	void register(@NonNull final String httpMethod, @NonNull final PathPattern pattern, @NonNull final T value) {
+		if (pattern.hasPatternSyntax()) {
+			patternRoutes.computeIfAbsent(httpMethod, key -> new ArrayList<>()).add(new PatternRoute<>(pattern, value));
+		} else {
+			literalRoutes.put(httpMethod + " " + pattern.getPatternString(), value);
+		}
+	}
+
+	/**
+	 * Orders the pattern routes of every HTTP method, most specific first. Invoked
+	 * once all routes are registered.
+	 */
+	void compile() {
+		patternRoutes.values().forEach(routes -> routes.sort(
+				(first, second) -> PathPattern.SPECIFICITY_COMPARATOR.compare(first.pattern(), second.pattern())));
+	}
+
+	/**
+	 * Retrieves the value of the route matching the provided HTTP method and path.
+	 *
+	 * @param httpMethod name of the HTTP method of the request.
+	 * @param path       path of the request within the application.
+	 * @return the value of the matching route, {@code null} if none matches.
+	 */
+	T match(@NonNull final String httpMethod, @NonNull final String path) {
+		final var value = literalRoutes.get(httpMethod + " " + path);
+		if (value != null) {
+			return value;
+		}
+		final var routes = patternRoutes.get(httpMethod);
+		if (routes != null) {
+			final var pathContainer = PathContainer.parsePath(path);
+			for (final var route : routes) {
+				if (route.pattern().matches(pathContainer)) {
+					return route.value();
+				}
+			}
+		}
+		return null;
+	}
+
+}
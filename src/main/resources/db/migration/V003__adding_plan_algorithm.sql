@@ -0,0 +1,3 @@
+-- Algorithm the plan's limit is enforced with, see com.ratelimiter.limiter.RateLimitAlgorithm
+ALTER TABLE plans
+ADD COLUMN algorithm VARCHAR(32) NOT NULL DEFAULT 'TOKEN_BUCKET';
@@ -0,0 +1,25 @@
+-- Replaces the serialized state of a Bucket4j bucket only if it still holds the state it was read with.
+--
+-- KEYS[1]  bucket key
+-- ARGV[1]  expected state, empty when the bucket did not exist yet
+-- ARGV[2]  new state
+-- ARGV[3]  time to live in milliseconds, no expiry when not positive
+--
+-- Returns 1 when the state was swapped, 0 when another writer got there first.
+
+local current = redis.call('GET', KEYS[1])
+if ARGV[1] == '' then
+    if current then
+        return 0
+    end
+elseif current ~= ARGV[1] then
+    return 0
+end
+
+local ttl = tonumber(ARGV[3])
+if ttl > 0 then
+    redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl)
+else
+    redis.call('SET', KEYS[1], ARGV[2])
+end
+return 1
@@ -0,0 +1,80 @@
+-- Checks and consumes tokens for a batch of requests, each over a chain of global, tenant and user
+-- buckets kept in the same format as hierarchical-rate-limit.lua.
+--
+-- KEYS[i]              distinct bucket keys of the batch
+-- ARGV[1]              refill period in milliseconds, shared by all keys
+-- ARGV[1 + i]          capacity of KEYS[i], refilled in full once per refill period
+-- ARGV[#KEYS + 2 ...]  one record per request: cost, tenant key index, user key index, n,
+--                      followed by n global key indexes to try in order; user key index 0 for a
+--                      request without a user level
+--
+-- Requests are decided in order and each consumes from all of its levels or from none; a request
+-- the global level denies moves on to its next global key. Every key is read and written once.
+-- The reply holds four entries per request: deniedAt (0 allowed, 1 global, 2 tenant, 3 user)
+-- followed by the remaining tokens of its global, tenant and user bucket (-1 without a user level).
+
+local period = tonumber(ARGV[1])
+local clock = redis.call('TIME')
+local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000)
+
+local available = {}
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[1 + i])
+    local state = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local tokens = capacity
+    if state[1] then
+        local elapsed = math.max(0, now - tonumber(state[2]))
+        tokens = math.min(capacity, tonumber(state[1]) + elapsed * capacity / period)
+    end
+    available[i] = tokens
+end
+
+local consumed = {}
+local reply = {}
+local pos = #KEYS + 2
+while pos <= #ARGV do
+    local cost = tonumber(ARGV[pos])
+    local tenant = tonumber(ARGV[pos + 1])
+    local user = tonumber(ARGV[pos + 2])
+    local candidates = tonumber(ARGV[pos + 3])
+
+    local global = tonumber(ARGV[pos + 4])
+    local deniedAt = 1
+    for c = 0, candidates - 1 do
+        global = tonumber(ARGV[pos + 4 + c])
+        if available[global] >= cost then
+            deniedAt = 0
+            break
+        end
+    end
+    if deniedAt == 0 and available[tenant] < cost then
+        deniedAt = 2
+    elseif deniedAt == 0 and user > 0 and available[user] < cost then
+        deniedAt = 3
+    end
+
+    if deniedAt == 0 then
+        local levels = { global, tenant }
+        if user > 0 then
+            table.insert(levels, user)
+        end
+        for _, i in ipairs(levels) do
+            available[i] = available[i] - cost
+            consumed[i] = true
+        end
+    end
+    table.insert(reply, deniedAt)
+    table.insert(reply, math.floor(available[global]))
+    table.insert(reply, math.floor(available[tenant]))
+    table.insert(reply, user > 0 and math.floor(available[user]) or -1)
+    pos = pos + 4 + candidates
+end
+
+for i = 1, #KEYS do
+    if consumed[i] then
+        redis.call('HSET', KEYS[i], 'tokens', tostring(available[i]), 'ts', now)
+        -- an untouched bucket is full again after one period, so its state can be dropped
+        redis.call('PEXPIRE', KEYS[i], period)
+    end
+end
+return reply
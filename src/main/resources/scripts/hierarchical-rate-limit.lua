@@ -0,0 +1,46 @@
+-- Atomically checks and consumes tokens from a chain of greedy-refill token buckets.
+--
+-- KEYS[i]      bucket keys ordered from the outermost level inwards (global, tenant, user)
+-- ARGV[1]      number of tokens to consume from every level
+-- ARGV[2]      refill period in milliseconds, shared by all levels
+-- ARGV[2 + i]  capacity of KEYS[i], refilled in full once per refill period
+--
+-- Tokens are consumed from every level or from none. The reply is
+-- { deniedAt, remaining_1, ..., remaining_n } where deniedAt is the 1-based index of
+-- the first level that could not cover the cost, or 0 if the request was allowed.
+
+local cost = tonumber(ARGV[1])
+local period = tonumber(ARGV[2])
+local clock = redis.call('TIME')
+local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000)
+
+local available = {}
+local deniedAt = 0
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 + i])
+    local state = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local tokens = capacity
+    if state[1] then
+        local elapsed = math.max(0, now - tonumber(state[2]))
+        tokens = math.min(capacity, tonumber(state[1]) + elapsed * capacity / period)
+    end
+    available[i] = tokens
+    if deniedAt == 0 and tokens < cost then
+        deniedAt = i
+    end
+end
+
+if deniedAt == 0 then
+    for i = 1, #KEYS do
+        available[i] = available[i] - cost
+        redis.call('HSET', KEYS[i], 'tokens', tostring(available[i]), 'ts', now)
+        -- an untouched bucket is full again after one period, so its state can be dropped
+        redis.call('PEXPIRE', KEYS[i], period)
+    end
+end
+
+local reply = { deniedAt }
+for i = 1, #KEYS do
+    reply[i + 1] = math.floor(available[i])
+end
+return reply
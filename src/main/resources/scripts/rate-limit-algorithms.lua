@@ -0,0 +1,171 @@
+-- Atomically checks and consumes a chain of limits, each kept by its own algorithm.
+--
+-- KEYS[i]          state keys ordered from the outermost level inwards (global, tenant, user)
+-- ARGV[1]          number of requests to admit on every level; a negative count hands them back
+-- ARGV[2]          period in milliseconds, shared by all levels
+-- ARGV[1 + 2 * i]  algorithm of KEYS[i]: 1 token bucket, 2 GCRA, 3 sliding window counter, 4 sliding window log
+-- ARGV[2 + 2 * i]  number of requests KEYS[i] admits per period
+--
+-- Requests are admitted on every level or on none. The reply is
+-- { deniedAt, remaining_1, ..., remaining_n, retryAfterMillis } where deniedAt is the 1-based index of
+-- the first level that could not admit the requests, or 0 if they were admitted, and retryAfterMillis is
+-- the time until that level could admit them, or a full period if they exceed its limit.
+
+local cost = tonumber(ARGV[1])
+local period = tonumber(ARGV[2])
+local clock = redis.call('TIME')
+local now = tonumber(clock[1]) * 1000 + tonumber(clock[2]) / 1000
+
+local algorithms = {}
+
+-- Same state as scripts/hierarchical-rate-limit.lua: tokens and the time they were counted at
+algorithms[1] = {
+    peek = function(key, limit)
+        local state = redis.call('HMGET', key, 'tokens', 'ts')
+        local tokens = limit
+        if state[1] then
+            local elapsed = math.max(0, math.floor(now) - tonumber(state[2]))
+            tokens = math.min(limit, tonumber(state[1]) + elapsed * limit / period)
+        end
+        return { available = tokens }
+    end,
+    take = function(key, limit, state, n)
+        local tokens = math.min(limit, state.available - n)
+        redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', math.floor(now))
+        redis.call('PEXPIRE', key, period)
+        return tokens
+    end,
+    retry = function(key, limit, state, n)
+        return (n - state.available) * period / limit
+    end
+}
+
+-- Theoretical arrival time of the next request; every admitted request pushes it one emission interval ahead
+-- and requests are admitted while it stays within one period from now
+algorithms[2] = {
+    peek = function(key, limit)
+        local interval = period / limit
+        local tat = math.max(now, tonumber(redis.call('GET', key) or 0))
+        -- the epsilon keeps rounding of the interval from costing the last request of a period
+        return { tat = tat, interval = interval, available = (now + period - tat) / interval + 1e-6 }
+    end,
+    take = function(key, limit, state, n)
+        local tat = math.max(now, state.tat + n * state.interval)
+        if tat > now then
+            redis.call('SET', key, string.format('%.3f', tat), 'PX', math.ceil(tat - now))
+        else
+            redis.call('DEL', key)
+        end
+        return (now + period - tat) / state.interval + 1e-6
+    end,
+    retry = function(key, limit, state, n)
+        return state.tat + n * state.interval - period - now
+    end
+}
+
+-- Count of the current fixed window plus the previous window's count weighted by its remaining overlap
+algorithms[3] = {
+    peek = function(key, limit)
+        local window = math.floor(now / period)
+        local state = redis.call('HMGET', key, 'w', 'c', 'p')
+        local current, previous = 0, 0
+        if state[1] then
+            local stored = tonumber(state[1])
+            if stored == window then
+                current, previous = tonumber(state[2]), tonumber(state[3])
+            elseif stored == window - 1 then
+                previous = tonumber(state[2])
+            end
+        end
+        local weight = 1 - (now - window * period) / period
+        return { window = window, current = current, previous = previous, weight = weight,
+                 available = limit - previous * weight - current }
+    end,
+    take = function(key, limit, state, n)
+        local current = math.max(0, state.current + n)
+        redis.call('HSET', key, 'w', state.window, 'c', current, 'p', state.previous)
+        redis.call('PEXPIRE', key, 2 * period)
+        return limit - state.previous * state.weight - current
+    end,
+    retry = function(key, limit, state, n)
+        local windowEnd = (state.window + 1) * period
+        if state.current + n <= limit then
+            -- the previous window's weight falls to zero at the end of the current one
+            return windowEnd - period * (limit - state.current - n) / state.previous - now
+        end
+        -- after the roll-over the current count is weighted in turn
+        return windowEnd + period * (1 - (limit - n) / state.current) - now
+    end
+}
+
+-- One entry per admitted request, newest first; entries older than one period are dropped from the tail
+algorithms[4] = {
+    peek = function(key, limit)
+        local horizon = now - period
+        while true do
+            local oldest = redis.call('LINDEX', key, -1)
+            if not oldest or tonumber(oldest) > horizon then
+                break
+            end
+            redis.call('RPOP', key)
+        end
+        local count = redis.call('LLEN', key)
+        return { count = count, available = limit - count }
+    end,
+    take = function(key, limit, state, n)
+        if n > 0 then
+            local stamp = string.format('%.3f', now)
+            local entries = {}
+            for i = 1, math.min(n, 1000) do
+                entries[i] = stamp
+            end
+            for pushed = 0, n - 1, 1000 do
+                redis.call('LPUSH', key, unpack(entries, 1, math.min(1000, n - pushed)))
+            end
+            redis.call('PEXPIRE', key, math.ceil(period))
+        else
+            for i = 1, math.min(-n, state.count) do
+                redis.call('LPOP', key)
+            end
+        end
+        return limit - math.max(0, state.count + n)
+    end,
+    retry = function(key, limit, state, n)
+        -- the request fits once the (count + n - limit)-th oldest entry has left the window
+        return tonumber(redis.call('LINDEX', key, limit - n - state.count)) + period - now
+    end
+}
+
+local levels = (#ARGV - 2) / 2
+local states = {}
+local deniedAt = 0
+for i = 1, levels do
+    local algorithm = algorithms[tonumber(ARGV[1 + 2 * i])]
+    states[i] = algorithm.peek(KEYS[i], tonumber(ARGV[2 + 2 * i]))
+    if deniedAt == 0 and cost > 0 and states[i].available < cost then
+        deniedAt = i
+    end
+end
+
+local remaining = {}
+local retryAfter = 0
+for i = 1, levels do
+    local algorithm = algorithms[tonumber(ARGV[1 + 2 * i])]
+    local limit = tonumber(ARGV[2 + 2 * i])
+    if deniedAt == 0 then
+        remaining[i] = algorithm.take(KEYS[i], limit, states[i], cost)
+    else
+        remaining[i] = states[i].available
+        if i == deniedAt then
+            -- more requests than the limit are never admitted at once
+            retryAfter = cost > limit and period or algorithm.retry(KEYS[i], limit, states[i], cost)
+        end
+    end
+end
+
+local reply = { deniedAt }
+for i = 1, levels do
+    reply[i + 1] = math.floor(math.max(0, remaining[i]))
+end
+reply[levels + 2] = math.ceil(math.max(0, retryAfter))
+return reply
@@ -0,0 +1,35 @@
+-- Leases tokens out of (or returns them to) a greedy-refill token bucket kept in the
+-- same format as hierarchical-rate-limit.lua.
+--
+-- KEYS[1]  bucket key
+-- ARGV[1]  tokens to take; when negative, tokens handed back (never filled above capacity)
+-- ARGV[2]  refill period in milliseconds
+-- ARGV[3]  capacity, refilled in full once per refill period
+--
+-- Takes as many of the requested tokens as are available. The reply is
+-- { granted, remaining } with remaining being the tokens left in the bucket.
+
+local requested = tonumber(ARGV[1])
+local period = tonumber(ARGV[2])
+local capacity = tonumber(ARGV[3])
+local clock = redis.call('TIME')
+local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = capacity
+if state[1] then
+    local elapsed = math.max(0, now - tonumber(state[2]))
+    tokens = math.min(capacity, tonumber(state[1]) + elapsed * capacity / period)
+end
+
+local granted = 0
+if requested >= 0 then
+    granted = math.min(requested, math.floor(tokens))
+    tokens = tokens - granted
+else
+    tokens = math.min(capacity, tokens - requested)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+redis.call('PEXPIRE', KEYS[1], period)
+return { granted, math.floor(tokens) }
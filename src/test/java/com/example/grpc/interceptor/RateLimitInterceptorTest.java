@@ -1,21 +1,51 @@
 package com.example.grpc.interceptor;
 
+import com.example.grpc.RateLimitOptions;
+import com.example.grpc.UserServiceGrpc;
+import com.example.grpc.config.RateLimitConfig;
 import com.example.grpc.service.RateLimiterService;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.config.HierarchicalRateLimitProperties.FailureMode;
+import com.ratelimiter.limiter.HierarchicalNearCache;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import com.ratelimiter.metrics.HeavyHitters;
+import com.ratelimiter.metrics.SpaceSaving;
+import com.ratelimiter.rls.EnvoyRateLimitService;
+import io.envoyproxy.envoy.extensions.common.ratelimit.v3.RateLimitDescriptor;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitRequest;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitResponse;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitServiceGrpc;
 import io.grpc.*;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class RateLimitInterceptorTest {
 
+    private static final HierarchicalRateLimitResult ALLOWED =
+            new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 10);
+
     private RateLimitInterceptor interceptor;
+    private HierarchicalRateLimiterService hierarchicalRateLimiterService;
     private RateLimiterService rateLimiterService;
+    private HeavyHitters heavyHitters;
+    private HierarchicalNearCache nearCache;
     private MeterRegistry meterRegistry;
 
     @Mock
@@ -24,26 +54,41 @@ class RateLimitInterceptorTest {
     private Metadata metadata;
     @Mock
     private ServerCallHandler<Object, Object> next;
+    @Mock
+    private MethodDescriptor.Marshaller<Object> marshaller;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         meterRegistry = new SimpleMeterRegistry();
-        rateLimiterService = new RateLimiterService();
-        interceptor = new RateLimitInterceptor(rateLimiterService, meterRegistry);
+        hierarchicalRateLimiterService = mock(HierarchicalRateLimiterService.class);
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.getNearCache().setTtl(Duration.ofMinutes(1));
+        props.setUsers(new HierarchicalRateLimitProperties.UserDefaults());
+        props.getUsers().setDefaultPerTenant(10);
+        HierarchicalRateLimitProperties.LimitSpec premium = new HierarchicalRateLimitProperties.LimitSpec();
+        premium.setLimitPerHour(15);
+        props.setTenants(Map.of("premium", premium));
+        rateLimiterService = new RateLimiterService(props);
+        nearCache = new HierarchicalNearCache(hierarchicalRateLimiterService, props, Runnable::run);
+        heavyHitters = new HeavyHitters(props);
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(), Set.of());
 
         when(serverCall.getMethodDescriptor()).thenReturn(MethodDescriptor.newBuilder()
                 .setType(MethodDescriptor.MethodType.UNARY)
                 .setFullMethodName("test/Test")
+                .setRequestMarshaller(marshaller)
+                .setResponseMarshaller(marshaller)
                 .build());
+        when(next.startCall(any(), any())).thenReturn(new ServerCall.Listener<>() { });
     }
 
     @Test
     void interceptCall_ShouldAllowRequest_WhenUnderLimit() {
         // Given
-        String userId = "test-user";
-        Metadata headers = new Metadata();
-        headers.put(Metadata.Key.of("user-id", Metadata.ASCII_STRING_MARSHALLER), userId);
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 1))).thenReturn(ALLOWED);
 
         // When
         ServerCall.Listener<Object> listener = interceptor.interceptCall(serverCall, headers, next);
@@ -51,35 +96,49 @@ class RateLimitInterceptorTest {
         // Then
         assertNotNull(listener);
         verify(next).startCall(eq(serverCall), eq(headers));
-        assertEquals(1, meterRegistry.get("grpc.rate_limit.allowed").counter().count());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("allowed", "true").counter().count());
     }
 
     @Test
     void interceptCall_ShouldRejectRequest_WhenOverLimit() {
         // Given
-        String userId = "test-user";
-        Metadata headers = new Metadata();
-        headers.put(Metadata.Key.of("user-id", Metadata.ASCII_STRING_MARSHALLER), userId);
-
-        // Exhaust the rate limit
-        for (int i = 0; i < 11; i++) {
-            rateLimiterService.tryAcquire(userId);
-        }
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 1)))
+                .thenReturn(new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, 100, 0, 10));
 
         // When
         ServerCall.Listener<Object> listener = interceptor.interceptCall(serverCall, headers, next);
 
         // Then
         assertNotNull(listener);
-        verify(serverCall).close(any(Status.class), any(Metadata.class));
+        verify(serverCall).close(argThat(status -> status.getCode() == Status.Code.RESOURCE_EXHAUSTED), any(Metadata.class));
         verify(next, never()).startCall(any(), any());
-        assertEquals(1, meterRegistry.get("grpc.rate_limit.denied").counter().count());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "TENANT").counter().count());
     }
 
     @Test
-    void interceptCall_ShouldUseDefaultUser_WhenNoUserIdProvided() {
+    void interceptCall_ShouldRepeatCachedDenial_WithoutRemoteCall() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 1)))
+                .thenReturn(new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.USER, 100, 50, 0));
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(hierarchicalRateLimiterService, times(1)).isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 1));
+        assertEquals(2, meterRegistry.get("grpc.rate_limit").tag("level", "USER").counter().count());
+        assertEquals(List.of(new SpaceSaving.Entry("premium:test-user", 2, 0)),
+                heavyHitters.top(HierarchicalRateLimitResult.Level.USER, HeavyHitters.Kind.DENIED, Duration.ofMinutes(1), 10).entries());
+    }
+
+    @Test
+    void interceptCall_ShouldUseDefaultTenantAndUser_WhenNoMetadataProvided() {
         // Given
         Metadata headers = new Metadata();
+        when(hierarchicalRateLimiterService.isAllowed(new HierarchicalRateLimitRequest("default", "anonymous", 1))).thenReturn(ALLOWED);
 
         // When
         ServerCall.Listener<Object> listener = interceptor.interceptCall(serverCall, headers, next);
@@ -87,6 +146,235 @@ class RateLimitInterceptorTest {
         // Then
         assertNotNull(listener);
         verify(next).startCall(eq(serverCall), eq(headers));
-        assertEquals(1, meterRegistry.get("grpc.rate_limit.allowed").counter().count());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("allowed", "true").counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldFallBackToLocalBuckets_WhenRedisIsUnavailable() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 1))).thenThrow(new IllegalStateException("redis down"));
+
+        // Exhaust the local rate limit
+        for (int i = 0; i < 10; i++) {
+            rateLimiterService.tryAcquire("premium:test-user");
+        }
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(next, never()).startCall(any(), any());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "USER").counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldFallBackToTheTenantsLocalBucket_WhenRedisIsUnavailable() {
+        // Given: premium's 15 calls per hour drained by another caller within its own 10
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class))).thenThrow(new IllegalStateException("redis down"));
+        assertTrue(rateLimiterService.tryAcquire("premium:other-user", 10));
+        assertTrue(rateLimiterService.tryAcquireTenant("premium", 10));
+        assertTrue(rateLimiterService.tryAcquireTenant("premium", 5));
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(next, never()).startCall(any(), any());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "TENANT").counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldChargeMethodCostToLocalBuckets_WhenRedisIsUnavailable() {
+        // Given: UpdateUser costs 5 tokens of the 10 a local bucket holds
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        when(hierarchicalRateLimiterService.tryConsumeMethodCall(anyString(), anyString(), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("redis down"));
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(UserServiceGrpc.getServiceDescriptor()), Set.of());
+        doReturn(UserServiceGrpc.getUpdateUserMethod()).when(serverCall).getMethodDescriptor();
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            interceptor.interceptCall(serverCall, headers, next);
+        }
+
+        // Then
+        verify(next, times(2)).startCall(any(), any());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("method", "com.example.grpc.UserService/UpdateUser")
+                .tag("level", "USER").counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldRejectAsUnavailable_WhenRedisIsUnavailableAndFailingClosed() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.CLOSED, heavyHitters, meterRegistry, List.of(), Set.of());
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(serverCall).close(argThat(status -> status.getCode() == Status.Code.UNAVAILABLE), any(Metadata.class));
+        verify(next, never()).startCall(any(), any());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "UNAVAILABLE").counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldAdmitEveryCall_WhenRedisIsUnavailableAndFailingOpen() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.OPEN, heavyHitters, meterRegistry, List.of(), Set.of());
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            interceptor.interceptCall(serverCall, headers, next);
+        }
+
+        // Then
+        verify(next, times(20)).startCall(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void interceptCall_ShouldPassDecisionServicesThroughUncharged() {
+        // Given: the interceptor as configured, in front of the Envoy rate limit service
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.setGlobal(new HierarchicalRateLimitProperties.LimitSpec());
+        props.setUsers(new HierarchicalRateLimitProperties.UserDefaults());
+        EnvoyRateLimitService envoyService = new EnvoyRateLimitService(hierarchicalRateLimiterService, props);
+        ObjectProvider<BindableService> services = mock(ObjectProvider.class);
+        when(services.orderedStream()).thenReturn(Stream.of(envoyService));
+        ServerInterceptor configured = new RateLimitConfig().rateLimitInterceptor(nearCache, hierarchicalRateLimiterService,
+                rateLimiterService, props, heavyHitters, meterRegistry, services);
+        when(hierarchicalRateLimiterService.isAllowedBatch(anyList())).thenReturn(List.of(ALLOWED));
+        MethodDescriptor<RateLimitRequest, RateLimitResponse> method = RateLimitServiceGrpc.getShouldRateLimitMethod();
+        ServerMethodDefinition<RateLimitRequest, RateLimitResponse> intercepted =
+                (ServerMethodDefinition<RateLimitRequest, RateLimitResponse>) ServerInterceptors
+                        .intercept(envoyService, configured).getMethod(method.getFullMethodName());
+        ServerCall<RateLimitRequest, RateLimitResponse> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(method);
+
+        // When: ShouldRateLimit without tenant or user metadata
+        ServerCall.Listener<RateLimitRequest> listener = intercepted.getServerCallHandler().startCall(call, new Metadata());
+        listener.onMessage(RateLimitRequest.newBuilder().setDomain("edge")
+                .addDescriptors(RateLimitDescriptor.newBuilder().addEntries(
+                        RateLimitDescriptor.Entry.newBuilder().setKey("tenant_id").setValue("premium")))
+                .build());
+        listener.onHalfClose();
+
+        // Then: only the descriptor is charged, not the calling proxy
+        ArgumentCaptor<RateLimitResponse> response = ArgumentCaptor.forClass(RateLimitResponse.class);
+        verify(call).sendMessage(response.capture());
+        verify(call).close(argThat(Status::isOk), any(Metadata.class));
+        assertEquals(RateLimitResponse.Code.OK, response.getValue().getOverallCode());
+        verify(hierarchicalRateLimiterService)
+                .isAllowedBatch(List.of(new HierarchicalRateLimitRequest("premium", null, 1)));
+        verify(hierarchicalRateLimiterService, never()).isAllowed(any(HierarchicalRateLimitRequest.class));
+        assertTrue(meterRegistry.find("grpc.rate_limit").counters().isEmpty());
+    }
+
+    @Test
+    void constructor_ShouldPreRegisterMetersForEveryServiceMethod() {
+        // Given
+        ServiceDescriptor service = new ServiceDescriptor("test", serverCall.getMethodDescriptor());
+
+        // When
+        new RateLimitInterceptor(mock(HierarchicalNearCache.class), hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(service), Set.of());
+
+        // Then
+        assertEquals(0, meterRegistry.get("grpc.rate_limit").tag("allowed", "true").tag("method", "test/Test").counter().count());
+        assertEquals(3, meterRegistry.get("grpc.rate_limit").tag("allowed", "false").tag("method", "test/Test").counters().size());
+    }
+
+    @Test
+    void interceptCall_ShouldApplyCostAndMethodLimitFromProtoOptions() {
+        // Given: UpdateUser allows 100 calls per hour per caller, 100 of them already taken on other nodes
+        Metadata headers = headers("premium", "test-user");
+        String method = "com.example.grpc.UserService/UpdateUser";
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 1000, 1000, 1000));
+        when(hierarchicalRateLimiterService.tryConsumeMethodCall(method, "premium", "test-user", 100))
+                .thenReturn(true, false);
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(UserServiceGrpc.getServiceDescriptor()), Set.of());
+        doReturn(UserServiceGrpc.getUpdateUserMethod()).when(serverCall).getMethodDescriptor();
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(hierarchicalRateLimiterService, times(1)).isAllowed(new HierarchicalRateLimitRequest("premium", "test-user", 5));
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "METHOD").counter().count());
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("allowed", "true").tag("method", method).counter().count());
+    }
+
+    @Test
+    void interceptCall_ShouldHandBackMethodCall_WhenTheLevelsDeny() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        String method = "com.example.grpc.UserService/UpdateUser";
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, 1000, 0, 1000));
+        when(hierarchicalRateLimiterService.tryConsumeMethodCall(method, "premium", "test-user", 100)).thenReturn(true);
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(UserServiceGrpc.getServiceDescriptor()), Set.of());
+        doReturn(UserServiceGrpc.getUpdateUserMethod()).when(serverCall).getMethodDescriptor();
+
+        // When
+        interceptor.interceptCall(serverCall, headers, next);
+
+        // Then
+        verify(hierarchicalRateLimiterService).refundMethodCall(method, "premium", "test-user", 100);
+        verify(serverCall).close(argThat(status -> status.getCode() == Status.Code.RESOURCE_EXHAUSTED), any(Metadata.class));
+    }
+
+    @Test
+    void interceptCall_ShouldCountMethodCallsOnThisNode_WhenRedisIsUnavailable() {
+        // Given
+        Metadata headers = headers("premium", "test-user");
+        when(hierarchicalRateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+        when(hierarchicalRateLimiterService.tryConsumeMethodCall(anyString(), anyString(), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("redis down"));
+        interceptor = new RateLimitInterceptor(nearCache, hierarchicalRateLimiterService, rateLimiterService,
+                FailureMode.LOCAL_BUCKETS, heavyHitters, meterRegistry, List.of(UserServiceGrpc.getServiceDescriptor()), Set.of());
+        doReturn(UserServiceGrpc.getUpdateUserMethod()).when(serverCall).getMethodDescriptor();
+
+        // When: 100 calls per hour to UpdateUser, counted on this node while the local buckets deny most of them
+        for (int i = 0; i < 101; i++) {
+            interceptor.interceptCall(serverCall, headers, next);
+        }
+
+        // Then
+        assertEquals(1, meterRegistry.get("grpc.rate_limit").tag("level", "METHOD").counter().count());
+        verify(next, times(2)).startCall(any(), any());
+    }
+
+    @Test
+    void validate_ShouldRejectZeroCostOrLimitAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> RateLimitInterceptor.validate("test/Test", RateLimitOptions.newBuilder().setCost(0).build()));
+        assertThrows(IllegalStateException.class,
+                () -> RateLimitInterceptor.validate("test/Test", RateLimitOptions.newBuilder().setLimitPerHour(0).build()));
+        assertDoesNotThrow(() -> RateLimitInterceptor.validate("test/Test", RateLimitOptions.getDefaultInstance()));
+    }
+
+    private static Metadata headers(String tenantId, String userId) {
+        Metadata headers = new Metadata();
+        headers.put(Metadata.Key.of("tenant-id", Metadata.ASCII_STRING_MARSHALLER), tenantId);
+        headers.put(Metadata.Key.of("user-id", Metadata.ASCII_STRING_MARSHALLER), userId);
+        return headers;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.example.grpc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedBucketStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void tryConsume_ShouldAdmitCapacityThenRefillGreedily() {
+        PackedBucketStore store = new PackedBucketStore(64, 10, Duration.ofMinutes(1), nanos::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.tryConsume("user"));
+        }
+        assertFalse(store.tryConsume("user"));
+        assertTrue(store.tryConsume("other-user"));
+
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertTrue(store.tryConsume("user"));
+        assertFalse(store.tryConsume("user"));
+    }
+
+    @Test
+    void tryConsume_ShouldTakeSeveralTokensAtOnceOrNone() {
+        PackedBucketStore store = new PackedBucketStore(64, 10, Duration.ofMinutes(1), nanos::get);
+
+        assertTrue(store.tryConsume("user", 4));
+        assertTrue(store.tryConsume("user", 4));
+        assertFalse(store.tryConsume("user", 4));
+        assertTrue(store.tryConsume("user", 2));
+        assertFalse(store.tryConsume("other-user", 11));
+    }
+
+    @Test
+    void tryConsume_ShouldReuseSlotsOfRefilledBuckets() {
+        PackedBucketStore store = new PackedBucketStore(PackedBucketStore.WINDOW, 1, Duration.ofMinutes(1), nanos::get);
+        for (int i = 0; i < PackedBucketStore.WINDOW; i++) {
+            assertTrue(store.tryConsume(sameWindow(i)));
+        }
+
+        assertTrue(store.tryConsume(sameWindow(PackedBucketStore.WINDOW)));
+        assertEquals(1, store.overflows());
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertTrue(store.tryConsume(sameWindow(PackedBucketStore.WINDOW)));
+        assertFalse(store.tryConsume(sameWindow(PackedBucketStore.WINDOW)));
+        assertEquals(1, store.overflows());
+    }
+
+    @Test
+    void release_ShouldHandBackHeldBucketOnce() {
+        PackedBucketStore store = new PackedBucketStore(64, 10, Duration.ofMinutes(1), nanos::get);
+        AtomicLong bucket = new AtomicLong();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.tryConsume("user", bucket));
+        }
+        long arrival = bucket.get();
+
+        store.hold("user", bucket);
+        store.hold("refilled-user", new AtomicLong());
+
+        assertFalse(store.tryConsume("user", bucket));
+        assertEquals(arrival, store.release("user"));
+        assertEquals(0, store.release("user"));
+        assertEquals(0, store.release("refilled-user"));
+    }
+
+    @Test
+    void hold_ShouldKeepTheDebtOfAnEvictedBucketWhenItsWindowIsFull() {
+        PackedBucketStore store = new PackedBucketStore(PackedBucketStore.WINDOW, 2, Duration.ofMinutes(1), nanos::get);
+        AtomicLong bucket = new AtomicLong();
+        assertTrue(store.tryConsume("user", bucket));
+        assertTrue(store.tryConsume("user", bucket));
+        long arrival = bucket.get();
+        // rotated keys drain one token each, every slot of the only window holds a partly drained bucket
+        for (int i = 0; i < PackedBucketStore.WINDOW; i++) {
+            nanos.addAndGet(1);
+            assertTrue(store.tryConsume(sameWindow(i)));
+        }
+
+        store.hold("user", bucket);
+
+        assertFalse(store.tryConsume("user", bucket));
+        assertEquals(1, store.overflows());
+        assertEquals(arrival, store.release("user"));
+    }
+
+    @Test
+    void tryConsume_ShouldNotOvershootUnderContention() throws Exception {
+        PackedBucketStore store = new PackedBucketStore(64, 100, Duration.ofHours(1), nanos::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> callers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            callers.add(() -> {
+                int admitted = 0;
+                for (int i = 0; i < 1000; i++) {
+                    admitted += store.tryConsume("user") ? 1 : 0;
+                }
+                return admitted;
+            });
+        }
+
+        int admitted = 0;
+        for (Future<Integer> caller : executor.invokeAll(callers)) {
+            admitted += caller.get();
+        }
+        executor.shutdown();
+        assertEquals(100, admitted);
+    }
+
+    /** Distinct hashes that all start probing at slot 0. */
+    private static long sameWindow(int i) {
+        return (i + 1L) << 8;
+    }
+}
\ No newline at end of file
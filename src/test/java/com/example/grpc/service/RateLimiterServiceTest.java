@@ -0,0 +1,68 @@
+package com.example.grpc.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PackedBucketStore evicted = new PackedBucketStore(64, 10, Duration.ofMinutes(1), nanos::get);
+
+    @Test
+    void tryAcquire_ShouldKeepDrainedBucketsAcrossEviction() {
+        // every bucket is evicted right after its call
+        RateLimiterService service = new RateLimiterService(Caffeine.newBuilder().maximumSize(0).executor(Runnable::run), evicted, Map.of());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.tryAcquire("heavy-user"));
+        }
+        assertFalse(service.tryAcquire("heavy-user"));
+
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertTrue(service.tryAcquire("heavy-user"));
+        assertFalse(service.tryAcquire("heavy-user"));
+    }
+
+    @Test
+    void tryAcquireTenant_ShouldLimitOnlyTenantsWithALimitOfTheirOwn() {
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.setUsers(new HierarchicalRateLimitProperties.UserDefaults());
+        props.getUsers().setDefaultPerTenant(1000);
+        HierarchicalRateLimitProperties.LimitSpec standard = new HierarchicalRateLimitProperties.LimitSpec();
+        standard.setLimitPerHour(5);
+        props.setTenants(Map.of("standard", standard));
+        RateLimiterService service = new RateLimiterService(props);
+
+        assertTrue(service.tryAcquireTenant("standard", 5));
+        assertFalse(service.tryAcquireTenant("standard", 1));
+        assertTrue(service.tryAcquire("standard:user", 1000));
+        assertFalse(service.tryAcquire("standard:user"));
+        assertTrue(service.tryAcquireTenant("unlisted", 1000));
+    }
+
+    @Test
+    void bindTo_ShouldExposeHitsMissesAndEvictions() {
+        RateLimiterService service = new RateLimiterService(Caffeine.newBuilder().maximumSize(1).executor(Runnable::run), evicted, Map.of());
+        MeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+
+        service.tryAcquire("user");
+        service.tryAcquire("user");
+        service.tryAcquire("other-user");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "grpc.rate_limit.buckets").tag("result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets").tag("cache", "grpc.rate_limit.buckets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions").tag("cache", "grpc.rate_limit.buckets").functionCounter().count());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.github.bucket4j.BucketConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BucketConfigurationRegistryTest {
+
+    @Test
+    void hierarchicalConfigurationsAreShared() {
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        HierarchicalRateLimitProperties.LimitSpec global = new HierarchicalRateLimitProperties.LimitSpec();
+        global.setLimitPerHour(100);
+        props.setGlobal(global);
+        BucketConfigurationRegistry registry = new BucketConfigurationRegistry(props);
+
+        BucketConfiguration configuration = registry.hierarchical(100);
+        assertThat(registry.hierarchical(100)).isSameAs(configuration);
+        assertThat(configuration.getBandwidths()[0].getCapacity()).isEqualTo(100);
+        assertThat(registry.hierarchical(50)).isSameAs(registry.hierarchical(50));
+    }
+
+    @Test
+    void planConfigurationsAreReplacedOnReload() {
+        BucketConfigurationRegistry registry = new BucketConfigurationRegistry(new HierarchicalRateLimitProperties());
+        UUID planId = UUID.randomUUID();
+        assertThat(registry.plan(planId)).isNull();
+
+        registry.reloadPlans(Map.of(planId, 20L));
+        assertThat(registry.plan(planId).getBandwidths()[0].getCapacity()).isEqualTo(20);
+        assertThat(registry.plan(planId).getBandwidths()[0].isRefillIntervally()).isTrue();
+
+        registry.reloadPlans(Map.of());
+        assertThat(registry.plan(planId)).isNull();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BucketKeyDerivationTest {
+    private final BucketKeyDerivation keys = new BucketKeyDerivation(new HierarchicalRateLimitProperties());
+
+    @Test
+    void globalAndTenantKeysKeepTheirNameBasedIds() {
+        assertThat(keys.global().name()).isEqualTo("ratelimit:global");
+        assertThat(keys.global().id()).isEqualTo(UUID.nameUUIDFromBytes("ratelimit:global".getBytes()));
+        assertThat(keys.tenant("premium").id()).isEqualTo(UUID.nameUUIDFromBytes("ratelimit:tenant:premium".getBytes()));
+        assertThat(keys.tenant("premium")).isSameAs(keys.tenant("premium"));
+    }
+
+    @Test
+    void userIdsAreDerivedWithoutCollidingWithRandomOrNameBasedIds() {
+        UUID userId = UUID.randomUUID();
+        BucketKey key = keys.user("premium", userId);
+
+        assertThat(key.name()).isEqualTo("ratelimit:user:" + userId);
+        assertThat(key.id()).isNotEqualTo(userId);
+        assertThat(key.id().version()).isEqualTo(8);
+        assertThat(keys.user("premium", userId.toString()).id()).isEqualTo(key.id());
+    }
+
+    @Test
+    void nonUuidUserIdsFallBackToNameBasedIds() {
+        assertThat(keys.user("premium", "service-account").id())
+                .isEqualTo(UUID.nameUUIDFromBytes("ratelimit:user:service-account".getBytes()));
+    }
+
+    @Test
+    void methodKeysAreNamedByMethodAndCaller() {
+        BucketKey key = keys.method("com.example.grpc.UserService/UpdateUser", "premium", "alice");
+
+        assertThat(key.name()).isEqualTo("ratelimit:method:com.example.grpc.UserService/UpdateUser:premium:alice");
+        assertThat(key.id()).isEqualTo(UUID.nameUUIDFromBytes(key.name().getBytes()));
+    }
+
+    @Test
+    void clusterKeysColocateTenantAndUsersButSpreadGlobalStripes() {
+        HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+        props.setClusterKeys(true);
+        props.setGlobalStripes(4);
+        BucketKeyDerivation clusterKeys = new BucketKeyDerivation(props);
+        UUID userId = UUID.randomUUID();
+
+        BucketKey tenant = clusterKeys.tenant("premium");
+        assertThat(tenant.name()).isEqualTo("ratelimit:{tenant:premium}");
+        assertThat(tenant.id()).isEqualTo(keys.tenant("premium").id());
+        assertThat(SlotHash.getSlot(clusterKeys.user("premium", userId).name())).isEqualTo(SlotHash.getSlot(tenant.name()));
+        assertThat(SlotHash.getSlot(clusterKeys.user("premium", "service-account").name())).isEqualTo(SlotHash.getSlot(tenant.name()));
+        assertThat(clusterKeys.user("premium", userId).id()).isEqualTo(keys.user("premium", userId).id());
+        assertThat(IntStream.range(0, 4).map(i -> SlotHash.getSlot(clusterKeys.globalStripe(i).name())).distinct().count())
+                .isEqualTo(4);
+    }
+}
\ No newline at end of file
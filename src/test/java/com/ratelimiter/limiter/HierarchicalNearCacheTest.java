@@ -0,0 +1,109 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HierarchicalNearCacheTest {
+    private final HierarchicalRateLimiterService rateLimiterService = mock(HierarchicalRateLimiterService.class);
+    private final HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+    private final List<Runnable> background = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        props.getNearCache().setTtl(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void allowedCallerIsAdmittedAheadOfRemoteConsumptionUpToItsCredit() {
+        props.getNearCache().setMaxCredit(2);
+        when(rateLimiterService.isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 1));
+        HierarchicalNearCache nearCache = new HierarchicalNearCache(rateLimiterService, props, background::add);
+
+        assertThat(nearCache.isAllowed("standard", "alice").isAllowed()).isTrue();
+        assertThat(nearCache.isAllowed("standard", "alice").isAllowed()).isTrue();
+        verify(rateLimiterService, times(1)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1));
+        assertThat(background).hasSize(1);
+
+        // the user level had a single token left, so the next request waits for Redis
+        nearCache.isAllowed("standard", "alice");
+        verify(rateLimiterService, times(2)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1));
+    }
+
+    @Test
+    void creditIsSpentInTokensOfTheRequestCost() {
+        when(rateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 8));
+        HierarchicalNearCache nearCache = new HierarchicalNearCache(rateLimiterService, props, background::add);
+
+        nearCache.isAllowed("standard", "alice", 5);
+        nearCache.isAllowed("standard", "alice", 5);
+        nearCache.isAllowed("standard", "alice", 5);
+
+        // 8 tokens of credit cover the second request, not the third
+        verify(rateLimiterService, times(2)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 5));
+        assertThat(background).hasSize(1);
+    }
+
+    @Test
+    void creditOfARefreshLeavesOutConsumptionsStillQueued() {
+        when(rateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 20));
+        HierarchicalNearCache nearCache = new HierarchicalNearCache(rateLimiterService, props, background::add);
+
+        nearCache.isAllowed("standard", "alice");
+        for (int i = 0; i < 3; i++) {
+            nearCache.isAllowed("standard", "alice");
+        }
+        background.remove(0).run();
+
+        // the refresh sees 20 tokens left, but two admitted requests have yet to take theirs: 10 - 2 of credit
+        for (int i = 0; i < 9; i++) {
+            nearCache.isAllowed("standard", "alice");
+        }
+        verify(rateLimiterService, times(3)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1));
+        assertThat(background).hasSize(10);
+    }
+
+    @Test
+    void fullRefreshQueueDecidesBeforeAnswering() {
+        when(rateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 20));
+        HierarchicalNearCache nearCache = new HierarchicalNearCache(rateLimiterService, props, task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        nearCache.isAllowed("standard", "alice");
+        nearCache.isAllowed("standard", "alice");
+
+        verify(rateLimiterService, times(2)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1));
+    }
+
+    @Test
+    void remoteDenialInTheBackgroundIsRepeatedLocally() {
+        when(rateLimiterService.isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 100, 50, 20))
+                .thenReturn(new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.GLOBAL, 0, -1, -1));
+        HierarchicalNearCache nearCache = new HierarchicalNearCache(rateLimiterService, props, Runnable::run);
+
+        nearCache.isAllowed("standard", "alice");
+        assertThat(nearCache.isAllowed("standard", "alice").isAllowed()).isTrue();
+
+        HierarchicalRateLimitResult denied = nearCache.isAllowed("standard", "alice");
+        assertThat(denied.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.GLOBAL);
+        verify(rateLimiterService, times(2)).isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 1));
+    }
+}
\ No newline at end of file
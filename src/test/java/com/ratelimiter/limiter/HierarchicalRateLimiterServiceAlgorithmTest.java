@@ -0,0 +1,79 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HierarchicalRateLimiterServiceAlgorithmTest {
+    private final HierarchicalScriptEvaluator scriptEvaluator = mock(HierarchicalScriptEvaluator.class);
+    private final HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+
+    @BeforeEach
+    void setup() {
+        HierarchicalRateLimitProperties.LimitSpec global = new HierarchicalRateLimitProperties.LimitSpec();
+        global.setLimitPerHour(10);
+        global.setAlgorithm(RateLimitAlgorithm.GCRA);
+        HierarchicalRateLimitProperties.UserDefaults users = new HierarchicalRateLimitProperties.UserDefaults();
+        users.setDefaultPerTenant(5);
+        users.setAlgorithm(RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+        props.setGlobal(global);
+        props.setUsers(users);
+        props.setEvaluationMode(HierarchicalRateLimitProperties.EvaluationMode.SCRIPT);
+    }
+
+    @Test
+    void everyLevelIsConsumedWithItsOwnAlgorithm() {
+        when(scriptEvaluator.consume(anyList(), eq(1L), any(RateLimitAlgorithm[].class), any(long[].class)))
+                .thenReturn(List.of(3L, 9L, 9L, 0L, 60_000L));
+
+        HierarchicalRateLimitResult result = service().isAllowed("standard", "alice");
+
+        assertThat(result.isAllowed()).isFalse();
+        assertThat(result.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.USER);
+        assertThat(result.getRemainingTokensUser()).isZero();
+        verify(scriptEvaluator).consume(eq(List.of("ratelimit:global:gcra", "ratelimit:tenant:standard:gcra",
+                        "ratelimit:user:alice:swl")), eq(1L),
+                eq(new RateLimitAlgorithm[] {RateLimitAlgorithm.GCRA, RateLimitAlgorithm.GCRA, RateLimitAlgorithm.SLIDING_WINDOW_LOG}),
+                eq(new long[] {10, 10, 5}));
+    }
+
+    @Test
+    void clusterKeysHandTheGlobalRequestBackWhenAnInnerLevelDenies() {
+        props.setClusterKeys(true);
+        when(scriptEvaluator.consume(anyList(), anyLong(), any(RateLimitAlgorithm[].class), any(long[].class)))
+                .thenReturn(List.of(0L, 9L, 0L))
+                .thenReturn(List.of(1L, 0L, 5L, 60_000L));
+
+        HierarchicalRateLimitResult result = service().isAllowed("standard", "alice");
+
+        assertThat(result.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.TENANT);
+        assertThat(result.getRemainingTokensGlobal()).isEqualTo(9);
+        verify(scriptEvaluator).consume(anyList(), eq(-1L), eq(new RateLimitAlgorithm[] {RateLimitAlgorithm.GCRA}), eq(10L));
+    }
+
+    @Test
+    void proxyModeRejectsOtherAlgorithms() {
+        props.setEvaluationMode(HierarchicalRateLimitProperties.EvaluationMode.PROXY);
+
+        assertThatThrownBy(this::service).isInstanceOf(IllegalStateException.class);
+        verify(scriptEvaluator, never()).consume(anyList(), anyLong(), any(RateLimitAlgorithm[].class), any(long[].class));
+    }
+
+    private HierarchicalRateLimiterService service() {
+        return new HierarchicalRateLimiterService(props, null, scriptEvaluator, new BucketKeyDerivation(props),
+                new BucketConfigurationRegistry(props));
+    }
+}
\ No newline at end of file
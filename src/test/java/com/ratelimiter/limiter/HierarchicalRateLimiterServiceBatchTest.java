@@ -0,0 +1,170 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HierarchicalRateLimiterServiceBatchTest {
+    private final HierarchicalScriptEvaluator scriptEvaluator = mock(HierarchicalScriptEvaluator.class);
+    private final HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+
+    @BeforeEach
+    void setup() {
+        HierarchicalRateLimitProperties.LimitSpec global = new HierarchicalRateLimitProperties.LimitSpec();
+        global.setLimitPerHour(10);
+        HierarchicalRateLimitProperties.UserDefaults users = new HierarchicalRateLimitProperties.UserDefaults();
+        users.setDefaultPerTenant(5);
+        props.setGlobal(global);
+        props.setUsers(users);
+        props.setEvaluationMode(HierarchicalRateLimitProperties.EvaluationMode.SCRIPT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchPassesEverySharedBucketOnce() {
+        String user = UUID.randomUUID().toString();
+        List<HierarchicalRateLimitRequest> requests = List.of(
+                new HierarchicalRateLimitRequest("standard", user, 2),
+                new HierarchicalRateLimitRequest("standard", UUID.randomUUID().toString()),
+                new HierarchicalRateLimitRequest("premium", user));
+        List<HierarchicalRateLimitResult> decided = List.of(allowed(), allowed(), allowed());
+        when(scriptEvaluator.evaluateBatch(anyList(), any(long[].class), anyList())).thenReturn(decided);
+
+        assertThat(service().isAllowedBatch(requests)).isEqualTo(decided);
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<long[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(scriptEvaluator).evaluateBatch(keys.capture(), any(long[].class), batch.capture());
+        assertThat(keys.getValue()).hasSize(5).doesNotHaveDuplicates()
+                .filteredOn(key -> key.equals("ratelimit:global")).hasSize(1);
+        assertThat(batch.getValue()).hasSize(3);
+        assertThat(batch.getValue().get(0)[0]).isEqualTo(2);
+        assertThat(batch.getValue().get(1)[1]).isEqualTo(batch.getValue().get(0)[1]);
+        assertThat(batch.getValue().get(2)[2]).isEqualTo(batch.getValue().get(0)[2]);
+        assertThat(batch.getValue().get(2)[3]).isEqualTo(batch.getValue().get(0)[3]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requestsWithoutUserLeaveOutTheUserLevel() {
+        when(scriptEvaluator.evaluateBatch(anyList(), any(long[].class), anyList())).thenReturn(List.of(allowed(), allowed()));
+
+        service().isAllowedBatch(List.of(
+                new HierarchicalRateLimitRequest("standard", null),
+                new HierarchicalRateLimitRequest("premium", null)));
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<long[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(scriptEvaluator).evaluateBatch(keys.capture(), any(long[].class), batch.capture());
+        assertThat(keys.getValue()).hasSize(3).noneMatch(key -> key.startsWith("ratelimit:user"));
+        assertThat(batch.getValue()).extracting(request -> request[2]).containsExactly(-1L, -1L);
+    }
+
+    @Test
+    void singleRequestWithoutUserConsumesGlobalAndTenantOnly() {
+        when(scriptEvaluator.consume(anyList(), anyLong(), any(long[].class))).thenReturn(List.of(0L, 9L, 4L));
+
+        HierarchicalRateLimitResult result = service().isAllowed(new HierarchicalRateLimitRequest("standard", null));
+
+        assertThat(result.isAllowed()).isTrue();
+        assertThat(result.getRemainingTokensTenant()).isEqualTo(4);
+        assertThat(result.getRemainingTokensUser()).isEqualTo(-1);
+        verify(scriptEvaluator).consume(eq(List.of("ratelimit:global", "ratelimit:tenant:standard")), eq(1L), eq(10L), eq(10L));
+        verify(scriptEvaluator, never()).evaluate(anyLong(), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchCarriesTheSpillOverStripesOfEveryRequest() {
+        props.setGlobalStripes(4);
+        props.setGlobalSpill(2);
+        when(scriptEvaluator.evaluateBatch(anyList(), any(long[].class), anyList())).thenReturn(List.of(allowed()));
+
+        service().isAllowedBatch(List.of(new HierarchicalRateLimitRequest("standard", UUID.randomUUID().toString())));
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<long[]> limits = ArgumentCaptor.forClass(long[].class);
+        ArgumentCaptor<List<long[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(scriptEvaluator).evaluateBatch(keys.capture(), limits.capture(), batch.capture());
+        long[] request = batch.getValue().get(0);
+        assertThat(request).hasSize(6);
+        for (int i = 3; i < request.length; i++) {
+            assertThat(keys.getValue().get((int) request[i])).startsWith("ratelimit:global:");
+            assertThat(limits.getValue()[(int) request[i]]).isBetween(2L, 3L);
+        }
+    }
+
+    @Test
+    void clusterKeysDecideEveryRequestOnItsOwn() {
+        props.setClusterKeys(true);
+        when(scriptEvaluator.consume(anyList(), anyLong(), any(long[].class))).thenReturn(List.of(1L, 0L));
+
+        List<HierarchicalRateLimitResult> results = service().isAllowedBatch(List.of(
+                new HierarchicalRateLimitRequest("standard", UUID.randomUUID().toString(), 3),
+                new HierarchicalRateLimitRequest("premium", UUID.randomUUID().toString(), 3)));
+
+        assertThat(results).extracting(HierarchicalRateLimitResult::getDeniedAt)
+                .containsExactly(HierarchicalRateLimitResult.Level.GLOBAL, HierarchicalRateLimitResult.Level.GLOBAL);
+        verify(scriptEvaluator, never()).evaluateBatch(anyList(), any(long[].class), anyList());
+        verify(scriptEvaluator, never()).evaluate(anyLong(), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong());
+        verify(scriptEvaluator, times(2)).consume(anyList(), eq(3L), any(long[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void proxyModeDecidesTheRequestsThroughAsyncBuckets() {
+        props.setEvaluationMode(HierarchicalRateLimitProperties.EvaluationMode.PROXY);
+        ProxyManager<UUID> proxyManager = mock(ProxyManager.class, RETURNS_DEEP_STUBS);
+        AsyncBucketProxy bucket = mock(AsyncBucketProxy.class);
+        when(proxyManager.isAsyncModeSupported()).thenReturn(true);
+        when(proxyManager.asAsync().builder().build(any(UUID.class), any(Supplier.class))).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1L))
+                .thenReturn(CompletableFuture.completedFuture(ConsumptionProbe.consumed(4, 0)));
+        when(bucket.tryConsumeAndReturnRemaining(9L))
+                .thenReturn(CompletableFuture.completedFuture(ConsumptionProbe.rejected(4, 1, 1)));
+
+        List<HierarchicalRateLimitResult> results = new HierarchicalRateLimiterService(props, proxyManager,
+                scriptEvaluator, new BucketKeyDerivation(props), new BucketConfigurationRegistry(props))
+                .isAllowedBatch(List.of(
+                        new HierarchicalRateLimitRequest("standard", UUID.randomUUID().toString()),
+                        new HierarchicalRateLimitRequest("premium", UUID.randomUUID().toString(), 9)));
+
+        assertThat(results.get(0).isAllowed()).isTrue();
+        assertThat(results.get(0).getRemainingTokensUser()).isEqualTo(4);
+        assertThat(results.get(1).getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.GLOBAL);
+        assertThat(results.get(1).getRemainingTokensTenant()).isEqualTo(-1);
+        verify(bucket, times(3)).tryConsumeAndReturnRemaining(1L);
+        verify(proxyManager, never()).builder();
+    }
+
+    private HierarchicalRateLimiterService service() {
+        return new HierarchicalRateLimiterService(props, null, scriptEvaluator, new BucketKeyDerivation(props),
+                new BucketConfigurationRegistry(props));
+    }
+
+    private static HierarchicalRateLimitResult allowed() {
+        return new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 1, 1, 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.ratelimiter.limiter;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HierarchicalRateLimiterServiceStripingTest {
+    private final HierarchicalScriptEvaluator scriptEvaluator = mock(HierarchicalScriptEvaluator.class);
+    private final HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+    private HierarchicalRateLimiterService service;
+
+    @BeforeEach
+    void setup() {
+        HierarchicalRateLimitProperties.LimitSpec global = new HierarchicalRateLimitProperties.LimitSpec();
+        global.setLimitPerHour(10);
+        HierarchicalRateLimitProperties.UserDefaults users = new HierarchicalRateLimitProperties.UserDefaults();
+        users.setDefaultPerTenant(5);
+        props.setGlobal(global);
+        props.setUsers(users);
+        props.setGlobalStripes(4);
+        props.setEvaluationMode(HierarchicalRateLimitProperties.EvaluationMode.SCRIPT);
+        service = new HierarchicalRateLimiterService(props, null, scriptEvaluator, new BucketKeyDerivation(props),
+                new BucketConfigurationRegistry(props));
+    }
+
+    @Test
+    void stripeLimitsAddUpToTheGlobalLimit() {
+        props.setGlobalSpill(3);
+        when(scriptEvaluator.evaluate(eq(1L), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong()))
+                .thenReturn(denied(HierarchicalRateLimitResult.Level.GLOBAL));
+
+        service.isAllowed("standard", UUID.randomUUID().toString());
+
+        ArgumentCaptor<Long> stripeLimits = ArgumentCaptor.forClass(Long.class);
+        verify(scriptEvaluator, times(4)).evaluate(eq(1L), anyString(), stripeLimits.capture(),
+                anyString(), anyLong(), anyString(), anyLong());
+        assertThat(stripeLimits.getAllValues()).containsExactlyInAnyOrder(3L, 3L, 2L, 2L);
+    }
+
+    @Test
+    void globalDenialSpillsOverToTheNeighbouringStripe() {
+        when(scriptEvaluator.evaluate(eq(1L), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong()))
+                .thenReturn(denied(HierarchicalRateLimitResult.Level.GLOBAL))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 1, 2, 3));
+
+        assertThat(service.isAllowed("standard", UUID.randomUUID().toString()).isAllowed()).isTrue();
+
+        ArgumentCaptor<String> stripeKeys = ArgumentCaptor.forClass(String.class);
+        verify(scriptEvaluator, times(2)).evaluate(eq(1L), stripeKeys.capture(), anyLong(),
+                eq("ratelimit:tenant:standard"), anyLong(), anyString(), anyLong());
+        int first = Integer.parseInt(stripeKeys.getAllValues().get(0).substring("ratelimit:global:".length()));
+        assertThat(stripeKeys.getAllValues().get(1)).isEqualTo("ratelimit:global:" + (first + 1) % 4);
+    }
+
+    @Test
+    void lowerLevelDenialDoesNotSpillOver() {
+        when(scriptEvaluator.evaluate(eq(1L), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong()))
+                .thenReturn(denied(HierarchicalRateLimitResult.Level.TENANT));
+
+        HierarchicalRateLimitResult result = service.isAllowed("standard", UUID.randomUUID().toString());
+
+        assertThat(result.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.TENANT);
+        verify(scriptEvaluator, times(1)).evaluate(eq(1L), anyString(), anyLong(), anyString(), anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void clusterKeysConsumeTheGlobalStripeApartAndHandItBackOnLowerDenial() {
+        props.setClusterKeys(true);
+        service = new HierarchicalRateLimiterService(props, null, scriptEvaluator, new BucketKeyDerivation(props),
+                new BucketConfigurationRegistry(props));
+        when(scriptEvaluator.consume(anyList(), eq(1L), any(long[].class)))
+                .thenReturn(List.of(0L, 2L))
+                .thenReturn(List.of(2L, 4L, 0L));
+
+        HierarchicalRateLimitResult result = service.isAllowed("standard", UUID.randomUUID());
+
+        assertThat(result.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.USER);
+        assertThat(result.getRemainingTokensGlobal()).isEqualTo(2);
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(scriptEvaluator, times(2)).consume(keys.capture(), eq(1L), any(long[].class));
+        String globalKey = keys.getAllValues().get(0).get(0);
+        assertThat(globalKey).matches("ratelimit:\\{global:[0-3]}");
+        assertThat(keys.getAllValues().get(1).get(0)).isEqualTo("ratelimit:{tenant:standard}");
+        assertThat(keys.getAllValues().get(1).get(1)).startsWith("ratelimit:{tenant:standard}:user:");
+        verify(scriptEvaluator).lease(eq(globalKey), anyLong(), eq(-1L));
+    }
+
+    @Test
+    void methodCallsAreTakenFromOneKeyOutsideTheStripes() {
+        when(scriptEvaluator.consume(anyList(), eq(1L), eq(100L))).thenReturn(List.of(0L, 99L));
+
+        assertThat(service.tryConsumeMethodCall("test/Test", "standard", "alice", 100)).isTrue();
+        service.refundMethodCall("test/Test", "standard", "alice", 100);
+
+        verify(scriptEvaluator).consume(List.of("ratelimit:method:test/Test:standard:alice"), 1L, 100L);
+        verify(scriptEvaluator).lease("ratelimit:method:test/Test:standard:alice", 100L, -1L);
+    }
+
+    private static HierarchicalRateLimitResult denied(HierarchicalRateLimitResult.Level level) {
+        return new HierarchicalRateLimitResult(false, level, 0, 0, 0);
+    }
+}
\ No newline at end of file
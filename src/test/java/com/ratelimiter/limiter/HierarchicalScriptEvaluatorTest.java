@@ -0,0 +1,133 @@
+package com.ratelimiter.limiter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+public class HierarchicalScriptEvaluatorTest {
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private HierarchicalScriptEvaluator evaluator;
+
+    private String globalKey;
+    private String tenantKey;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setup() {
+        evaluator = new HierarchicalScriptEvaluator(new StringRedisTemplate(connectionFactory));
+        globalKey = "ratelimit:global:" + UUID.randomUUID();
+        tenantKey = "ratelimit:tenant:" + UUID.randomUUID();
+    }
+
+    @Test
+    void allowedRequestReportsRemainingTokensOfEveryLevel() {
+        HierarchicalRateLimitResult result = evaluate(userKey(), 5, 3, 2);
+        assertThat(result.isAllowed()).isTrue();
+        assertThat(result.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.NONE);
+        assertThat(result.getRemainingTokensGlobal()).isEqualTo(4);
+        assertThat(result.getRemainingTokensTenant()).isEqualTo(2);
+        assertThat(result.getRemainingTokensUser()).isEqualTo(1);
+    }
+
+    @Test
+    void userDenialDoesNotConsumeGlobalOrTenantTokens() {
+        String userKey = userKey();
+        assertThat(evaluate(userKey, 5, 3, 1).isAllowed()).isTrue();
+
+        HierarchicalRateLimitResult denied = evaluate(userKey, 5, 3, 1);
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.USER);
+        assertThat(denied.getRemainingTokensGlobal()).isEqualTo(4);
+        assertThat(denied.getRemainingTokensTenant()).isEqualTo(2);
+        assertThat(denied.getRemainingTokensUser()).isZero();
+    }
+
+    @Test
+    void tenantDenialDoesNotConsumeGlobalTokens() {
+        assertThat(evaluate(userKey(), 5, 1, 2).isAllowed()).isTrue();
+
+        HierarchicalRateLimitResult denied = evaluate(userKey(), 5, 1, 2);
+        assertThat(denied.isAllowed()).isFalse();
+        assertThat(denied.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.TENANT);
+        assertThat(denied.getRemainingTokensGlobal()).isEqualTo(4);
+        assertThat(denied.getRemainingTokensUser()).isEqualTo(2);
+    }
+
+    @Test
+    void batchDecidesRequestsInOrderOverSharedBuckets() {
+        List<String> keys = List.of(globalKey, tenantKey, userKey(), userKey());
+        List<HierarchicalRateLimitResult> results = evaluator.evaluateBatch(keys, new long[] {5, 3, 2, 2}, List.of(
+                new long[] {1, 1, 2, 0}, new long[] {1, 1, 2, 0}, new long[] {1, 1, 2, 0},
+                new long[] {1, 1, 3, 0}, new long[] {1, 1, 3, 0}));
+
+        assertThat(results).extracting(HierarchicalRateLimitResult::getDeniedAt).containsExactly(
+                HierarchicalRateLimitResult.Level.NONE, HierarchicalRateLimitResult.Level.NONE,
+                HierarchicalRateLimitResult.Level.USER, HierarchicalRateLimitResult.Level.NONE,
+                HierarchicalRateLimitResult.Level.TENANT);
+        assertThat(results.get(4).getRemainingTokensGlobal()).isEqualTo(2);
+        assertThat(results.get(4).getRemainingTokensTenant()).isZero();
+        assertThat(evaluate(keys.get(3), 5, 3, 2).getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.TENANT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RateLimitAlgorithm.class)
+    void everyAlgorithmAdmitsItsLimitAndReportsWhenToRetry(RateLimitAlgorithm algorithm) {
+        List<String> keys = List.of(algorithm.key(userKey()));
+        RateLimitAlgorithm[] algorithms = {algorithm};
+        for (long remaining = 2; remaining >= 0; remaining--) {
+            assertThat(evaluator.consume(keys, 1, algorithms, 3)).startsWith(0L, remaining);
+        }
+
+        List<Long> denied = evaluator.consume(keys, 1, algorithms, 3);
+        assertThat(denied.get(0)).isEqualTo(1);
+        assertThat(denied.get(2)).isPositive().isLessThanOrEqualTo(Duration.ofHours(1).toMillis());
+
+        evaluator.consume(keys, -1, algorithms, 3);
+        assertThat(evaluator.consume(keys, 1, algorithms, 3)).startsWith(0L, 0L);
+    }
+
+    @Test
+    void algorithmDenialDoesNotConsumeOuterLevels() {
+        List<String> keys = List.of(globalKey + ":gcra", userKey() + ":swl");
+        RateLimitAlgorithm[] algorithms = {RateLimitAlgorithm.GCRA, RateLimitAlgorithm.SLIDING_WINDOW_LOG};
+        assertThat(evaluator.consume(keys, 1, algorithms, 5, 1)).startsWith(0L, 4L, 0L);
+
+        assertThat(evaluator.consume(keys, 1, algorithms, 5, 1)).startsWith(2L, 4L, 0L);
+    }
+
+    private HierarchicalRateLimitResult evaluate(String userKey, long globalLimit, long tenantLimit, long userLimit) {
+        return evaluator.evaluate(globalKey, globalLimit, tenantKey, tenantLimit, userKey, userLimit);
+    }
+
+    private static String userKey() {
+        return "ratelimit:user:" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ratelimiter.limiter;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+public class RedisCompareAndSwapProxyManagerTest {
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(5).refillGreedy(5, Duration.ofMinutes(1)))
+            .build();
+
+    private static LettuceConnectionFactory connectionFactory;
+    private RedisCompareAndSwapProxyManager proxyManager;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setup() {
+        proxyManager = new RedisCompareAndSwapProxyManager(connectionFactory,
+                ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofSeconds(10)));
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @Test
+    void bucketStateIsSharedThroughRedis() {
+        UUID id = UUID.randomUUID();
+        assertThat(proxyManager.builder().build(id, CONFIGURATION).tryConsume(2)).isTrue();
+
+        Bucket sameBucket = proxyManager.builder().build(id, CONFIGURATION);
+        assertThat(sameBucket.getAvailableTokens()).isEqualTo(3);
+        assertThat(sameBucket.tryConsume(4)).isFalse();
+    }
+
+    @Test
+    void bucketExpiresOnceItWouldBeRefilled() {
+        UUID id = UUID.randomUUID();
+        proxyManager.builder().build(id, CONFIGURATION).tryConsume(5);
+
+        byte[] key = RedisCompareAndSwapProxyManager.key(id);
+        Long ttlMillis = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().pTtl(key));
+        assertThat(key).hasSize(19);
+        assertThat(ttlMillis).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(70).toMillis());
+    }
+
+    @Test
+    void removedBucketStartsFull() {
+        UUID id = UUID.randomUUID();
+        proxyManager.builder().build(id, CONFIGURATION).tryConsume(5);
+
+        proxyManager.removeProxy(id);
+        assertThat(proxyManager.getProxyConfiguration(id)).isEmpty();
+        assertThat(proxyManager.builder().build(id, CONFIGURATION).getAvailableTokens()).isEqualTo(5);
+    }
+
+    @Test
+    void asyncBucketSharesStateWithBlockingBucket() {
+        UUID id = UUID.randomUUID();
+        assertThat(proxyManager.isAsyncModeSupported()).isTrue();
+        AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder()
+                .build(id, () -> CompletableFuture.completedFuture(CONFIGURATION));
+
+        assertThat(asyncBucket.tryConsume(2).join()).isTrue();
+        assertThat(proxyManager.builder().build(id, CONFIGURATION).getAvailableTokens()).isEqualTo(3);
+        assertThat(asyncBucket.tryConsume(4).join()).isFalse();
+
+        proxyManager.asAsync().removeProxy(id).join();
+        assertThat(proxyManager.getProxyConfiguration(id)).isEmpty();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.ratelimiter.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenLeaseTest {
+
+    @Test
+    void servesRequestsFromLocalTokensUntilTheLeaseRunsOut() {
+        CountingSource source = new CountingSource(100);
+        TokenLease lease = new TokenLease(source, 10, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(lease.tryConsume(1)).isTrue();
+        }
+        assertThat(source.acquisitions.get()).isEqualTo(1);
+        assertThat(source.tokens.get()).isEqualTo(90);
+
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(source.acquisitions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void deniesOnceTheSourceIsExhausted() {
+        CountingSource source = new CountingSource(3);
+        TokenLease lease = new TokenLease(source, 10, Duration.ofMinutes(1));
+
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(lease.tryConsume(1)).isFalse();
+        assertThat(lease.getAvailableTokens()).isZero();
+    }
+
+    @Test
+    void expiredAndClosedLeasesHandTheirTokensBack() {
+        CountingSource source = new CountingSource(100);
+        TokenLease lease = new TokenLease(source, 10, Duration.ZERO);
+
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(lease.tryConsume(1)).isTrue();
+        // the first lease expired right away, its 9 leftover tokens went back before leasing 10 more
+        assertThat(source.tokens.get()).isEqualTo(89);
+
+        lease.close();
+        assertThat(source.tokens.get()).isEqualTo(98);
+    }
+
+    @Test
+    void refundedTokensAreServedLocally() {
+        CountingSource source = new CountingSource(1);
+        TokenLease lease = new TokenLease(source, 10, Duration.ofMinutes(1));
+
+        assertThat(lease.tryConsume(1)).isTrue();
+        lease.refund(1);
+        assertThat(lease.tryConsume(1)).isTrue();
+        assertThat(source.acquisitions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void leaseSizeIsCappedByTheOvershootRatio() {
+        assertThat(TokenLease.effectiveLeaseSize(100, 0.01, 100_000)).isEqualTo(100);
+        assertThat(TokenLease.effectiveLeaseSize(100, 0.01, 2_000)).isEqualTo(20);
+        assertThat(TokenLease.effectiveLeaseSize(100, 0.01, 50)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentConsumersNeverExceedTheSource() throws InterruptedException {
+        CountingSource source = new CountingSource(1_000);
+        TokenLease lease = new TokenLease(source, 16, Duration.ofMinutes(1));
+        AtomicInteger consumed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2_000; i++) {
+            executor.execute(() -> {
+                if (lease.tryConsume(1)) {
+                    consumed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        lease.close();
+        assertThat(consumed.get() + source.tokens.get()).isEqualTo(1_000);
+    }
+
+    private static class CountingSource implements TokenLease.Source {
+        private final AtomicLong tokens;
+        private final AtomicInteger acquisitions = new AtomicInteger();
+
+        private CountingSource(long tokens) {
+            this.tokens = new AtomicLong(tokens);
+        }
+
+        @Override
+        public TokenLease.Grant acquire(long maxTokens) {
+            acquisitions.incrementAndGet();
+            long available = tokens.get();
+            long granted = Math.min(available, maxTokens);
+            while (!tokens.compareAndSet(available, available - granted)) {
+                available = tokens.get();
+                granted = Math.min(available, maxTokens);
+            }
+            return new TokenLease.Grant(granted, available - granted);
+        }
+
+        @Override
+        public void release(long tokens) {
+            this.tokens.addAndGet(tokens);
+        }
+    }
+}
\ No newline at end of file
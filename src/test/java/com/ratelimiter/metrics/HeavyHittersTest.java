@@ -0,0 +1,68 @@
+package com.ratelimiter.metrics;
+
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult.Level;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeavyHittersTest {
+    private final AtomicLong now = new AtomicLong();
+    private final HeavyHitters heavyHitters = new HeavyHitters(props(), now::get);
+
+    @Test
+    void consumersAndDeniersAreTrackedPerLevel() {
+        heavyHitters.record("premium", "alice", true);
+        heavyHitters.record("premium", "alice", false);
+        heavyHitters.record("standard", "bob", true);
+        heavyHitters.record(null, "carol", false);
+
+        assertThat(top(Level.TENANT, HeavyHitters.Kind.CONSUMED, Duration.ofMinutes(1)))
+                .containsExactlyInAnyOrder(new SpaceSaving.Entry("premium", 1, 0), new SpaceSaving.Entry("standard", 1, 0));
+        assertThat(top(Level.USER, HeavyHitters.Kind.DENIED, Duration.ofMinutes(1)))
+                .containsExactlyInAnyOrder(new SpaceSaving.Entry("premium:alice", 1, 0), new SpaceSaving.Entry("carol", 1, 0));
+    }
+
+    @Test
+    void decisionsCountTheTokensOfTheirRequest() {
+        heavyHitters.record("premium", "alice", true, 5);
+        heavyHitters.record("premium", "bob", true);
+
+        assertThat(top(Level.USER, HeavyHitters.Kind.CONSUMED, Duration.ofMinutes(1)))
+                .containsExactly(new SpaceSaving.Entry("premium:alice", 5, 0), new SpaceSaving.Entry("premium:bob", 1, 0));
+        assertThat(top(Level.TENANT, HeavyHitters.Kind.CONSUMED, Duration.ofMinutes(1)))
+                .containsExactly(new SpaceSaving.Entry("premium", 6, 0));
+    }
+
+    @Test
+    void windowsAddUpTheirSlotsAndForgetOlderOnes() {
+        heavyHitters.record("premium", "alice", true);
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        heavyHitters.record("premium", "alice", true);
+
+        assertThat(top(Level.TENANT, HeavyHitters.Kind.CONSUMED, Duration.ofMinutes(1)))
+                .containsExactly(new SpaceSaving.Entry("premium", 1, 0));
+        assertThat(top(Level.TENANT, HeavyHitters.Kind.CONSUMED, Duration.ofMinutes(2)))
+                .containsExactly(new SpaceSaving.Entry("premium", 2, 0));
+
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        heavyHitters.record("standard", "bob", true);
+
+        assertThat(top(Level.TENANT, HeavyHitters.Kind.CONSUMED, heavyHitters.retention()))
+                .containsExactly(new SpaceSaving.Entry("standard", 1, 0));
+    }
+
+    private List<SpaceSaving.Entry> top(Level level, HeavyHitters.Kind kind, Duration window) {
+        return heavyHitters.top(level, kind, window, 10).entries();
+    }
+
+    private static HierarchicalRateLimitProperties.HeavyHitters props() {
+        HierarchicalRateLimitProperties.HeavyHitters props = new HierarchicalRateLimitProperties.HeavyHitters();
+        props.setSlots(3);
+        return props;
+    }
+}
\ No newline at end of file
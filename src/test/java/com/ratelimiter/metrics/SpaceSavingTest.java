@@ -0,0 +1,96 @@
+package com.ratelimiter.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpaceSavingTest {
+
+    @Test
+    void frequentKeysSurviveAStreamOfRareOnes() {
+        SpaceSaving summary = new SpaceSaving(4);
+        for (int i = 0; i < 1000; i++) {
+            summary.add("heavy", 1);
+            summary.add("rare-" + i, 1);
+        }
+
+        SpaceSaving.Entry top = summary.top(1).get(0);
+        assertThat(top.key()).isEqualTo("heavy");
+        assertThat(top.count()).isEqualTo(1000);
+        assertThat(top.error()).isZero();
+        assertThat(summary.top(10)).hasSize(4);
+    }
+
+    @Test
+    void aNewKeyInheritsTheSmallestCountAsItsError() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a", 5);
+        summary.add("b", 2);
+        summary.add("c", 1);
+
+        assertThat(summary.top(2)).containsExactly(new SpaceSaving.Entry("a", 5, 0), new SpaceSaving.Entry("c", 3, 2));
+    }
+
+    @Test
+    void weightedCountsKeepTheSpaceSavingBounds() {
+        SpaceSaving summary = new SpaceSaving(8);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 10_000; i++) {
+            // a skewed stream: low keys are frequent, every request weighs 1 to 5
+            String key = "key-" + (int) Math.abs(random.nextGaussian() * 6);
+            long count = 1 + random.nextInt(5);
+            summary.add(key, count);
+            exact.merge(key, count, Long::sum);
+            total += count;
+        }
+
+        List<SpaceSaving.Entry> entries = summary.top(8);
+        assertThat(entries).hasSize(8);
+        assertThat(entries.stream().mapToLong(SpaceSaving.Entry::count).sum()).isEqualTo(total);
+        for (SpaceSaving.Entry entry : entries) {
+            assertThat(exact.get(entry.key())).isBetween(entry.count() - entry.error(), entry.count());
+        }
+        for (Map.Entry<String, Long> key : exact.entrySet()) {
+            if (key.getValue() > total / 8) {
+                assertThat(entries).extracting(SpaceSaving.Entry::key).contains(key.getKey());
+            }
+        }
+    }
+
+    @Test
+    void mergeCountsAKeyMissingFromASummaryAsThatSummarysFloor() {
+        SpaceSaving first = new SpaceSaving(2);
+        first.add("a", 5);
+        first.add("b", 2);
+        first.add("c", 1);
+        SpaceSaving second = new SpaceSaving(2);
+        second.add("b", 4);
+
+        SpaceSaving.Snapshot merged = SpaceSaving.Snapshot.merge(List.of(first.snapshot(2), second.snapshot(2)), 2);
+
+        assertThat(first.snapshot(2).floor()).isEqualTo(3);
+        assertThat(second.snapshot(2).floor()).isZero();
+        assertThat(merged.entries()).containsExactly(new SpaceSaving.Entry("b", 7, 3), new SpaceSaving.Entry("a", 5, 0));
+        assertThat(merged.floor()).isEqualTo(3);
+    }
+
+    @Test
+    void unionKeepsCountsOfDisjointSummaries() {
+        SpaceSaving first = new SpaceSaving(2);
+        first.add("a", 5);
+        SpaceSaving second = new SpaceSaving(2);
+        second.add("b", 4);
+
+        SpaceSaving.Snapshot union = SpaceSaving.Snapshot.union(List.of(first.snapshot(2), second.snapshot(2)), 1);
+
+        assertThat(union.entries()).containsExactly(new SpaceSaving.Entry("a", 5, 0));
+        assertThat(union.floor()).isEqualTo(4);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.ratelimiter.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadPinningMonitorTest {
+    private final Object lock = new Object();
+
+    @Test
+    void countsAVirtualThreadBlockingInsideAMonitorByItsApplicationFrame() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), registry);
+        monitor.start();
+        try {
+            Thread.ofVirtual().start(this::blockWhileHoldingLock).join();
+
+            Counter counter = null;
+            for (long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+                 counter == null && System.nanoTime() < deadline; Thread.sleep(100)) {
+                counter = registry.find(VirtualThreadPinningMonitor.PINNED_METRIC).counter();
+            }
+            assertThat(counter).isNotNull();
+            assertThat(counter.getId().getTag("frame")).isEqualTo("VirtualThreadPinningMonitorTest.blockWhileHoldingLock");
+            assertThat(counter.count()).isEqualTo(1);
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private void blockWhileHoldingLock() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.ratelimiter.rls;
+
+import com.google.protobuf.UInt64Value;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import io.envoyproxy.envoy.extensions.common.ratelimit.v3.RateLimitDescriptor;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitRequest;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitResponse;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EnvoyRateLimitServiceTest {
+    private final HierarchicalRateLimiterService rateLimiterService = mock(HierarchicalRateLimiterService.class);
+    private final HierarchicalRateLimitProperties props = new HierarchicalRateLimitProperties();
+    private EnvoyRateLimitService service;
+
+    @BeforeEach
+    void setup() {
+        HierarchicalRateLimitProperties.LimitSpec global = new HierarchicalRateLimitProperties.LimitSpec();
+        global.setLimitPerHour(1000);
+        HierarchicalRateLimitProperties.UserDefaults users = new HierarchicalRateLimitProperties.UserDefaults();
+        users.setDefaultPerTenant(50);
+        props.setGlobal(global);
+        props.setUsers(users);
+        service = new EnvoyRateLimitService(rateLimiterService, props);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void descriptorsAreDecidedInOneBatch() {
+        when(rateLimiterService.isAllowedBatch(anyList())).thenReturn(List.of(
+                new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 900, 400, 7),
+                new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, 900, 0, 0)));
+        RateLimitRequest request = RateLimitRequest.newBuilder().setDomain("edge").setHitsAddend(2)
+                .addDescriptors(descriptor("premium", "alice").toBuilder().setHitsAddend(UInt64Value.of(5)))
+                .addDescriptors(descriptor("standard", "bob"))
+                .build();
+
+        RateLimitResponse response = shouldRateLimit(request);
+
+        ArgumentCaptor<List<HierarchicalRateLimitRequest>> batch = ArgumentCaptor.forClass(List.class);
+        verify(rateLimiterService).isAllowedBatch(batch.capture());
+        assertThat(batch.getValue()).containsExactly(
+                new HierarchicalRateLimitRequest("premium", "alice", 5),
+                new HierarchicalRateLimitRequest("standard", "bob", 2));
+        assertThat(response.getOverallCode()).isEqualTo(RateLimitResponse.Code.OVER_LIMIT);
+        assertThat(response.getStatuses(0).getCode()).isEqualTo(RateLimitResponse.Code.OK);
+        assertThat(response.getStatuses(0).getLimitRemaining()).isEqualTo(7);
+        assertThat(response.getStatuses(0).getCurrentLimit().getRequestsPerUnit()).isEqualTo(50);
+        assertThat(response.getStatuses(1).getCode()).isEqualTo(RateLimitResponse.Code.OVER_LIMIT);
+        assertThat(response.getStatuses(1).getCurrentLimit().getName()).isEqualTo("tenant");
+        assertThat(response.getStatuses(1).getCurrentLimit().getRequestsPerUnit()).isEqualTo(1000);
+    }
+
+    @Test
+    void missingEntriesAndHitsFallBackToDefaults() {
+        RateLimitDescriptor descriptor = RateLimitDescriptor.newBuilder()
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey("remote_address").setValue("10.0.0.1"))
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey(EnvoyRateLimitService.USER_KEY).setValue("alice"))
+                .build();
+
+        assertThat(EnvoyRateLimitService.toRequest(descriptor, 0)).isEqualTo(new HierarchicalRateLimitRequest(
+                EnvoyRateLimitService.DEFAULT_TENANT, "alice", 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void descriptorsWithoutTenantOrUserAreAnsweredOkWithoutCharge() {
+        when(rateLimiterService.isAllowedBatch(anyList())).thenReturn(List.of(
+                new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.USER, 900, 400, 0)));
+        RateLimitDescriptor remoteAddress = RateLimitDescriptor.newBuilder()
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey("remote_address").setValue("10.0.0.1"))
+                .build();
+        RateLimitRequest request = RateLimitRequest.newBuilder().setDomain("edge")
+                .addDescriptors(remoteAddress)
+                .addDescriptors(descriptor("premium", "alice"))
+                .build();
+
+        RateLimitResponse response = shouldRateLimit(request);
+
+        ArgumentCaptor<List<HierarchicalRateLimitRequest>> batch = ArgumentCaptor.forClass(List.class);
+        verify(rateLimiterService).isAllowedBatch(batch.capture());
+        assertThat(batch.getValue()).containsExactly(new HierarchicalRateLimitRequest("premium", "alice", 1));
+        assertThat(response.getOverallCode()).isEqualTo(RateLimitResponse.Code.OVER_LIMIT);
+        assertThat(response.getStatuses(0).getCode()).isEqualTo(RateLimitResponse.Code.OK);
+        assertThat(response.getStatuses(0).hasCurrentLimit()).isFalse();
+        assertThat(response.getStatuses(1).getCode()).isEqualTo(RateLimitResponse.Code.OVER_LIMIT);
+
+        RateLimitResponse unlimited = shouldRateLimit(RateLimitRequest.newBuilder().setDomain("edge")
+                .addDescriptors(remoteAddress).build());
+
+        verify(rateLimiterService).isAllowedBatch(anyList());
+        assertThat(unlimited.getOverallCode()).isEqualTo(RateLimitResponse.Code.OK);
+        assertThat(unlimited.getStatusesList()).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tenantOnlyDescriptorsOfDifferentTenantsChargeNoUserBucket() {
+        when(rateLimiterService.isAllowedBatch(anyList())).thenReturn(List.of(
+                new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 900, 400, -1),
+                new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 899, 300, -1)));
+        RateLimitRequest request = RateLimitRequest.newBuilder().setDomain("edge")
+                .addDescriptors(tenantDescriptor("premium"))
+                .addDescriptors(tenantDescriptor("standard"))
+                .build();
+
+        RateLimitResponse response = shouldRateLimit(request);
+
+        ArgumentCaptor<List<HierarchicalRateLimitRequest>> batch = ArgumentCaptor.forClass(List.class);
+        verify(rateLimiterService).isAllowedBatch(batch.capture());
+        assertThat(batch.getValue()).containsExactly(
+                new HierarchicalRateLimitRequest("premium", null, 1),
+                new HierarchicalRateLimitRequest("standard", null, 1));
+        assertThat(response.getOverallCode()).isEqualTo(RateLimitResponse.Code.OK);
+        assertThat(response.getStatusesList()).extracting(status -> status.getCurrentLimit().getName())
+                .containsExactly("tenant", "tenant");
+        assertThat(response.getStatuses(1).getLimitRemaining()).isEqualTo(300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requestWithoutDescriptorsIsRejected() {
+        StreamObserver<RateLimitResponse> observer = mock(StreamObserver.class);
+
+        service.shouldRateLimit(RateLimitRequest.newBuilder().setDomain("edge").build(), observer);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        assertThat(error.getValue()).isInstanceOf(StatusRuntimeException.class);
+        verify(rateLimiterService, never()).isAllowedBatch(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private RateLimitResponse shouldRateLimit(RateLimitRequest request) {
+        StreamObserver<RateLimitResponse> observer = mock(StreamObserver.class);
+        service.shouldRateLimit(request, observer);
+        ArgumentCaptor<RateLimitResponse> response = ArgumentCaptor.forClass(RateLimitResponse.class);
+        verify(observer).onNext(response.capture());
+        verify(observer).onCompleted();
+        return response.getValue();
+    }
+
+    private static RateLimitDescriptor tenantDescriptor(String tenantId) {
+        return RateLimitDescriptor.newBuilder()
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey(EnvoyRateLimitService.TENANT_KEY).setValue(tenantId))
+                .build();
+    }
+
+    private static RateLimitDescriptor descriptor(String tenantId, String userId) {
+        return RateLimitDescriptor.newBuilder()
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey(EnvoyRateLimitService.TENANT_KEY).setValue(tenantId))
+                .addEntries(RateLimitDescriptor.Entry.newBuilder().setKey(EnvoyRateLimitService.USER_KEY).setValue(userId))
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.ratelimiter.rls;
+
+import com.ratelimiter.decision.DecisionLevel;
+import com.ratelimiter.decision.DecisionRequest;
+import com.ratelimiter.decision.DecisionResponse;
+import com.ratelimiter.decision.RateLimitDecisionGrpc;
+import com.ratelimiter.limiter.HierarchicalRateLimitRequest;
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RateLimitDecisionServiceTest {
+    private final HierarchicalRateLimiterService rateLimiterService = mock(HierarchicalRateLimiterService.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+                .addService(new RateLimitDecisionService(rateLimiterService, executor))
+                .build().start();
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void streamAnswersEveryRequestByCorrelationId() throws Exception {
+        when(rateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 9, 8, 7));
+        int requests = RateLimitDecisionService.MAX_IN_FLIGHT * 4;
+        Set<Long> answered = ConcurrentHashMap.newKeySet();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        StreamObserver<DecisionRequest> stream = RateLimitDecisionGrpc.newStub(channel).check(new StreamObserver<>() {
+            @Override
+            public void onNext(DecisionResponse response) {
+                assertThat(response.getAllowed()).isTrue();
+                answered.add(response.getCorrelationId());
+            }
+
+            @Override
+            public void onError(Throwable t) { completed.completeExceptionally(t); }
+
+            @Override
+            public void onCompleted() { completed.complete(null); }
+        });
+        for (long i = 0; i < requests; i++) {
+            stream.onNext(DecisionRequest.newBuilder().setTenantId("standard").setUserId("u" + i).setCorrelationId(i).build());
+        }
+        stream.onCompleted();
+
+        completed.get(10, TimeUnit.SECONDS);
+        assertThat(answered).hasSize(requests);
+    }
+
+    @Test
+    void requestWithoutUserOrTenantIsDecidedForTheDefaultTenantWithoutAUserLevel() {
+        when(rateLimiterService.isAllowed(new HierarchicalRateLimitRequest(EnvoyRateLimitService.DEFAULT_TENANT, null, 1)))
+                .thenReturn(new HierarchicalRateLimitResult(true, HierarchicalRateLimitResult.Level.NONE, 9, 8, -1));
+
+        DecisionResponse response = RateLimitDecisionGrpc.newBlockingStub(channel).decide(DecisionRequest.newBuilder()
+                .setCorrelationId(7).build());
+
+        assertThat(response.getAllowed()).isTrue();
+        assertThat(response.getRemainingUser()).isEqualTo(-1);
+    }
+
+    @Test
+    void unaryDecisionCarriesTheDenyingLevel() {
+        when(rateLimiterService.isAllowed(new HierarchicalRateLimitRequest("standard", "alice", 3)))
+                .thenReturn(new HierarchicalRateLimitResult(false, HierarchicalRateLimitResult.Level.TENANT, 9, 0, 0));
+
+        DecisionResponse response = RateLimitDecisionGrpc.newBlockingStub(channel).decide(DecisionRequest.newBuilder()
+                .setTenantId("standard").setUserId("alice").setCost(3).setCorrelationId(42).build());
+
+        assertThat(response.getAllowed()).isFalse();
+        assertThat(response.getDeniedAt()).isEqualTo(DecisionLevel.TENANT);
+        assertThat(response.getCorrelationId()).isEqualTo(42);
+    }
+
+    @Test
+    void failedDecisionEndsTheStream() throws Exception {
+        when(rateLimiterService.isAllowed(any(HierarchicalRateLimitRequest.class))).thenThrow(new IllegalStateException("redis down"));
+        CompletableFuture<Status> failed = new CompletableFuture<>();
+
+        StreamObserver<DecisionRequest> stream = RateLimitDecisionGrpc.newStub(channel).check(new StreamObserver<>() {
+            @Override
+            public void onNext(DecisionResponse response) { }
+
+            @Override
+            public void onError(Throwable t) { failed.complete(Status.fromThrowable(t)); }
+
+            @Override
+            public void onCompleted() { failed.complete(Status.OK); }
+        });
+        stream.onNext(DecisionRequest.newBuilder().setTenantId("standard").setUserId("alice").build());
+
+        assertThat(failed.get(10, TimeUnit.SECONDS).getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.ratemaster.overseer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(RedisClusterInitializer.class)
+public @interface InitializeRedisCluster {
+	
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.ratemaster.overseer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.testcontainers.containers.FixedHostPortGenericContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.utility.RandomString;
+
+/**
+ * Starts a three master Redis Cluster inside a single container as a local
+ * stand-in for a multi-node deployment. Cluster nodes announce themselves on
+ * {@code 127.0.0.1}, hence their ports are bound to the same ports on the
+ * docker host for the announced addresses to be reachable by clients.
+ *
+ * The cluster's properties are cleared once the test class has run, so test
+ * classes run afterwards in the same JVM connect to a standalone Redis again.
+ */
+@Slf4j
+public class RedisClusterInitializer implements BeforeAllCallback, AfterAllCallback {
+
+	private static final String CLUSTER_NODES_PROPERTY = "spring.data.redis.cluster.nodes";
+	private static final String PASSWORD_PROPERTY = "spring.data.redis.password";
+	private static final List<Integer> REDIS_PORTS = List.of(7000, 7001, 7002);
+	private static final String REDIS_PASSWORD = RandomString.make(10);
+	private static final DockerImageName REDIS_IMAGE = DockerImageName.parse("redis:7.2.3-alpine");
+
+	private static final GenericContainer<?> redisCluster = createRedisCluster();
+
+	@SuppressWarnings({ "deprecation", "resource" })
+	private static GenericContainer<?> createRedisCluster() {
+		final var container = new FixedHostPortGenericContainer<>(REDIS_IMAGE.asCanonicalNameString());
+		REDIS_PORTS.forEach(port -> container.withFixedExposedPort(port, port));
+
+		final var startNodes = REDIS_PORTS.stream()
+				.map(port -> String.format(
+						"redis-server --port %d --cluster-enabled yes --cluster-config-file nodes-%d.conf --cluster-announce-ip 127.0.0.1 --requirepass %s --masterauth %s --daemonize yes",
+						port, port, REDIS_PASSWORD, REDIS_PASSWORD))
+				.collect(Collectors.joining(" && "));
+		final var createCluster = REDIS_PORTS.stream().map(port -> "127.0.0.1:" + port)
+				.collect(Collectors.joining(" ", "redis-cli -a " + REDIS_PASSWORD + " --cluster create ", " --cluster-replicas 0 --cluster-yes"));
+
+		return container.withCommand("sh", "-c", startNodes + " && sleep 1 && " + createCluster + " && tail -f /dev/null")
+				.waitingFor(Wait.forLogMessage(".*All 16384 slots covered.*", 1));
+	}
+
+	@Override
+	public void beforeAll(final ExtensionContext context) {
+		log.info("Creating test cache cluster : {}", REDIS_IMAGE);
+		redisCluster.start();
+		addCacheProperties();
+		log.info("Successfully started test cache cluster : {}", REDIS_IMAGE);
+	}
+
+	@Override
+	public void afterAll(final ExtensionContext context) {
+		System.clearProperty(CLUSTER_NODES_PROPERTY);
+		System.clearProperty(PASSWORD_PROPERTY);
+	}
+
+	private void addCacheProperties() {
+		final var nodes = REDIS_PORTS.stream().map(port -> "127.0.0.1:" + port).collect(Collectors.joining(","));
+		System.setProperty(CLUSTER_NODES_PROPERTY, nodes);
+		System.setProperty(PASSWORD_PROPERTY, REDIS_PASSWORD);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.ratemaster.overseer.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.ratelimiter.limiter.HierarchicalRateLimitResult;
+import com.ratelimiter.limiter.HierarchicalRateLimiterService;
+import com.ratemaster.overseer.InitializeApplicationSecretKey;
+import com.ratemaster.overseer.InitializeMysqlContainer;
+import com.ratemaster.overseer.InitializeRedisCluster;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+
+@DirtiesContext
+@SpringBootTest(properties = {
+		"com.ratelimiter.overseer.bucket-store=redis-cas",
+		"hierarchical-rate-limits.evaluation-mode=script",
+		"hierarchical-rate-limits.cluster-keys=true",
+		"hierarchical-rate-limits.global-stripes=3",
+		"hierarchical-rate-limits.global.limit-per-hour=300",
+		"hierarchical-rate-limits.tenants.standard.limit-per-hour=3",
+		"hierarchical-rate-limits.users.default-per-tenant=2"
+})
+@InitializeRedisCluster
+@InitializeMysqlContainer
+@InitializeApplicationSecretKey
+class RedisClusterIT {
+
+	@Autowired
+	private HierarchicalRateLimiterService hierarchicalRateLimiterService;
+
+	@Autowired
+	private ProxyManager<UUID> proxyManager;
+
+	@Test
+	void shouldEnforceEveryLevelWithKeysSpreadOverClusterSlots() {
+		final var tenantId = "standard";
+		final var userId = UUID.randomUUID();
+
+		// consume the user's quota, tenant and user keys share the tenant's slot
+		assertThat(hierarchicalRateLimiterService.isAllowed(tenantId, userId).isAllowed()).isTrue();
+		assertThat(hierarchicalRateLimiterService.isAllowed(tenantId, userId).isAllowed()).isTrue();
+		final var userDenial = hierarchicalRateLimiterService.isAllowed(tenantId, userId);
+		assertThat(userDenial.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.USER);
+
+		// exhaust the tenant's quota through another user
+		assertThat(hierarchicalRateLimiterService.isAllowed(tenantId, UUID.randomUUID()).isAllowed()).isTrue();
+		final var tenantDenial = hierarchicalRateLimiterService.isAllowed(tenantId, UUID.randomUUID());
+		assertThat(tenantDenial.getDeniedAt()).isEqualTo(HierarchicalRateLimitResult.Level.TENANT);
+	}
+
+	@Test
+	void shouldShareBucketStateThroughCluster() {
+		final var configuration = BucketConfiguration.builder()
+				.addLimit(limit -> limit.capacity(10).refillIntervally(10, Duration.ofHours(1))).build();
+		final var bucketId = UUID.randomUUID();
+
+		// consume tokens through one proxy and read them through another
+		proxyManager.builder().build(bucketId, configuration).tryConsume(4);
+		final var availableTokens = proxyManager.builder().build(bucketId, configuration).getAvailableTokens();
+
+		assertThat(availableTokens).isEqualTo(6);
+	}
+
+}
\ No newline at end of file
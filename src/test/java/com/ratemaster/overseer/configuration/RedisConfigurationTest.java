@@ -0,0 +1,73 @@
+package com.ratemaster.overseer.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+
+class RedisConfigurationTest {
+
+	@Test
+	void shouldConnectToSingleServerWhenNoTopologyConfigured() {
+		// prepare standalone connection properties
+		final var redisProperties = new RedisProperties();
+		redisProperties.setHost("cache");
+		redisProperties.setPort(6380);
+		redisProperties.setPassword("secret");
+
+		// invoke method under test
+		final var configuration = RedisConfiguration.redissonConfiguration(redisProperties);
+
+		// verify single server configuration
+		assertThat(configuration.isClusterConfig()).isFalse();
+		assertThat(configuration.isSentinelConfig()).isFalse();
+		assertThat(configuration.useSingleServer().getAddress()).isEqualTo("redis://cache:6380");
+		assertThat(configuration.useSingleServer().getPassword()).isEqualTo("secret");
+	}
+
+	@Test
+	void shouldConnectToClusterWhenClusterNodesConfigured() {
+		// prepare cluster connection properties
+		final var cluster = new RedisProperties.Cluster();
+		cluster.setNodes(List.of("node-1:7000", "node-2:7001", "node-3:7002"));
+		final var redisProperties = new RedisProperties();
+		redisProperties.setCluster(cluster);
+		redisProperties.setPassword("secret");
+
+		// invoke method under test
+		final var configuration = RedisConfiguration.redissonConfiguration(redisProperties);
+
+		// verify every configured node is used to discover the cluster
+		assertThat(configuration.isClusterConfig()).isTrue();
+		assertThat(configuration.useClusterServers().getNodeAddresses())
+				.containsExactly("redis://node-1:7000", "redis://node-2:7001", "redis://node-3:7002");
+		assertThat(configuration.useClusterServers().getPassword()).isEqualTo("secret");
+	}
+
+	@Test
+	void shouldConnectToSentinelMasterWhenSentinelNodesConfigured() {
+		// prepare sentinel connection properties
+		final var sentinel = new RedisProperties.Sentinel();
+		sentinel.setMaster("rate-limit");
+		sentinel.setNodes(List.of("sentinel-1:26379", "sentinel-2:26379"));
+		sentinel.setPassword("sentinel-secret");
+		final var redisProperties = new RedisProperties();
+		redisProperties.setSentinel(sentinel);
+		redisProperties.setPassword("secret");
+
+		// invoke method under test
+		final var configuration = RedisConfiguration.redissonConfiguration(redisProperties);
+
+		// verify the monitored master is resolved through the configured sentinels
+		assertThat(configuration.isSentinelConfig()).isTrue();
+		final var sentinelConfiguration = configuration.useSentinelServers();
+		assertThat(sentinelConfiguration.getMasterName()).isEqualTo("rate-limit");
+		assertThat(sentinelConfiguration.getSentinelAddresses())
+				.containsExactly("redis://sentinel-1:26379", "redis://sentinel-2:26379");
+		assertThat(sentinelConfiguration.getSentinelPassword()).isEqualTo("sentinel-secret");
+		assertThat(sentinelConfiguration.getPassword()).isEqualTo("secret");
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.ratemaster.overseer.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.ratelimiter.limiter.BucketConfigurationRegistry;
+import com.ratemaster.overseer.entity.Plan;
+import com.ratemaster.overseer.repository.PlanRepository;
+
+class PlanCatalogTest {
+
+	private final PlanRepository planRepository = mock(PlanRepository.class);
+	private final BucketConfigurationRegistry bucketConfigurationRegistry = mock(BucketConfigurationRegistry.class);
+	private final PlanCatalog planCatalog = new PlanCatalog(planRepository, bucketConfigurationRegistry);
+
+	@Test
+	void plansShouldBeServedFromMemoryAfterInitialLoad() {
+		// prepare plan record in datasource
+		final var planId = UUID.randomUUID();
+		final var plan = mock(Plan.class);
+		when(plan.getId()).thenReturn(planId);
+		when(plan.getLimitPerHour()).thenReturn(20);
+		when(planRepository.findAll()).thenReturn(List.of(plan));
+
+		// invoke method under test multiple times
+		assertThat(planCatalog.get(planId)).contains(plan);
+		assertThat(planCatalog.get(planId)).contains(plan);
+		assertThat(planCatalog.getAll()).containsExactly(plan);
+
+		// verify datasource is read once and plan configurations are refreshed
+		verify(planRepository, times(1)).findAll();
+		verify(bucketConfigurationRegistry, times(1)).reloadPlans(Map.of(planId, 20L));
+	}
+
+	@Test
+	void unknownPlanIdShouldReloadCatalogFromDatasource() {
+		// configure datasource without plan records
+		when(planRepository.findAll()).thenReturn(List.of());
+
+		// invoke method under test
+		final var planId = UUID.randomUUID();
+		assertThat(planCatalog.get(planId)).isEmpty();
+
+		// verify lookup of an unknown plan-id reads the datasource
+		verify(planRepository, times(1)).findAll();
+	}
+
+	@Test
+	void unknownPlanIdsShouldNotReloadCatalogMoreThanOncePerInterval() {
+		// prepare plan record in datasource
+		final var plan = mock(Plan.class);
+		when(plan.getId()).thenReturn(UUID.randomUUID());
+		when(plan.getLimitPerHour()).thenReturn(20);
+		when(planRepository.findAll()).thenReturn(List.of(plan));
+
+		// invoke method under test with bogus plan-ids
+		assertThat(planCatalog.get(UUID.randomUUID())).isEmpty();
+		assertThat(planCatalog.get(UUID.randomUUID())).isEmpty();
+		assertThat(planCatalog.get(UUID.randomUUID())).isEmpty();
+
+		// verify datasource is read once within the interval
+		verify(planRepository, times(1)).findAll();
+
+		// an explicit reload is never throttled
+		planCatalog.reload();
+		verify(planRepository, times(2)).findAll();
+	}
+
+}
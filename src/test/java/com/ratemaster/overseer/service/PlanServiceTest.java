@@ -9,6 +9,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
@@ -17,7 +18,6 @@ import com.ratemaster.overseer.dto.PlanUpdationRequestDto;
 import com.ratemaster.overseer.entity.Plan;
 import com.ratemaster.overseer.entity.UserPlanMapping;
 import com.ratemaster.overseer.exception.InvalidPlanException;
-import com.ratemaster.overseer.repository.PlanRepository;
 import com.ratemaster.overseer.repository.UserPlanMappingRepository;
 import com.ratemaster.overseer.utility.AuthenticatedUserIdProvider;
 
@@ -25,11 +25,11 @@ import net.bytebuddy.utility.RandomString;
 
 class PlanServiceTest {
 
-	private final PlanRepository planRepository = mock(PlanRepository.class);
+	private final PlanCatalog planCatalog = mock(PlanCatalog.class);
 	private final RateLimitingService rateLimitingService = mock(RateLimitingService.class);
 	private final UserPlanMappingRepository userPlanMappingRepository = mock(UserPlanMappingRepository.class);
 	private final AuthenticatedUserIdProvider authenticatedUserIdProvider = mock(AuthenticatedUserIdProvider.class);
-	private final PlanService planService = new PlanService(planRepository, rateLimitingService, userPlanMappingRepository, authenticatedUserIdProvider);
+	private final PlanService planService = new PlanService(planCatalog, rateLimitingService, userPlanMappingRepository, authenticatedUserIdProvider);
 
 	@Test
 	void planUpdationshouldThrowExceptionForInvalidPlanId() {
@@ -38,8 +38,8 @@ class PlanServiceTest {
 		final var planUpdationRequest = mock(PlanUpdationRequestDto.class);
 		when(planUpdationRequest.getPlanId()).thenReturn(planId);
 
-		// prepare datasource to evaluate invalid plan-id
-		when(planRepository.existsById(planId)).thenReturn(Boolean.FALSE);
+		// prepare plan catalog to evaluate invalid plan-id
+		when(planCatalog.get(planId)).thenReturn(Optional.empty());
 
 		// invoke method under test and assert exception
 		final var exception = assertThrows(InvalidPlanException.class, () -> planService.update(planUpdationRequest));
@@ -47,7 +47,7 @@ class PlanServiceTest {
 
 		// verify mock interactions
 		verify(planUpdationRequest, times(1)).getPlanId();
-		verify(planRepository, times(1)).existsById(planId);
+		verify(planCatalog, times(1)).get(planId);
 		verify(userPlanMappingRepository, times(0)).save(any(UserPlanMapping.class));
 	}
 
@@ -58,8 +58,8 @@ class PlanServiceTest {
 		final var planUpdationRequest = mock(PlanUpdationRequestDto.class);
 		when(planUpdationRequest.getPlanId()).thenReturn(planId);
 
-		// prepare datasource to evaluate plan-id
-		when(planRepository.existsById(planId)).thenReturn(Boolean.TRUE);
+		// prepare plan catalog to evaluate plan-id
+		when(planCatalog.get(planId)).thenReturn(Optional.of(mock(Plan.class)));
 
 		// configure authenticated user
 		final var userId = UUID.randomUUID();
@@ -73,7 +73,7 @@ class PlanServiceTest {
 
 		// verify mock interactions
 		verify(planUpdationRequest, times(1)).getPlanId();
-		verify(planRepository, times(1)).existsById(planId);
+		verify(planCatalog, times(1)).get(planId);
 		verify(authenticatedUserIdProvider, times(1)).getUserId();
 		verify(userPlanMappingRepository, times(1)).isActivePlan(userId, planId);
 		verify(userPlanMappingRepository, times(0)).deactivateCurrentPlan(userId);
@@ -87,8 +87,8 @@ class PlanServiceTest {
 		final var planUpdationRequest = mock(PlanUpdationRequestDto.class);
 		when(planUpdationRequest.getPlanId()).thenReturn(planId);
 
-		// prepare datasource to evaluate plan-id
-		when(planRepository.existsById(planId)).thenReturn(Boolean.TRUE);
+		// prepare plan catalog to evaluate plan-id
+		when(planCatalog.get(planId)).thenReturn(Optional.of(mock(Plan.class)));
 
 		// configure authenticated user
 		final var userId = UUID.randomUUID();
@@ -102,7 +102,7 @@ class PlanServiceTest {
 
 		// verify mock interactions
 		verify(planUpdationRequest, times(1)).getPlanId();
-		verify(planRepository, times(1)).existsById(planId);
+		verify(planCatalog, times(1)).get(planId);
 		verify(authenticatedUserIdProvider, times(1)).getUserId();
 		verify(userPlanMappingRepository, times(1)).isActivePlan(userId, planId);
 		verify(userPlanMappingRepository, times(1)).deactivateCurrentPlan(userId);
@@ -121,8 +121,8 @@ class PlanServiceTest {
 		when(plan.getName()).thenReturn(planName);
 		when(plan.getLimitPerHour()).thenReturn(limitPerHour);
 
-		// configure datasource to return created plan
-		when(planRepository.findAll()).thenReturn(List.of(plan));
+		// configure plan catalog to return created plan
+		when(planCatalog.getAll()).thenReturn(List.of(plan));
 
 		// invoke method under test
 		final var response = planService.retrieve();
@@ -136,7 +136,7 @@ class PlanServiceTest {
 		});
 
 		// verify mock interaction
-		verify(planRepository, times(1)).findAll();
+		verify(planCatalog, times(1)).getAll();
 	}
 
 }
@@ -0,0 +1,89 @@
+package com.ratemaster.overseer.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ratelimiter.config.HierarchicalRateLimitProperties;
+import com.ratelimiter.limiter.BucketConfigurationRegistry;
+import com.ratemaster.overseer.entity.Plan;
+import com.ratemaster.overseer.exception.InvalidPlanException;
+import com.ratemaster.overseer.repository.PlanRepository;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+
+class RateLimitingServiceTest {
+
+	private final PlanRepository planRepository = mock(PlanRepository.class);
+	private final BucketConfigurationRegistry bucketConfigurationRegistry = new BucketConfigurationRegistry(
+			new HierarchicalRateLimitProperties());
+	private final PlanCatalog planCatalog = new PlanCatalog(planRepository, bucketConfigurationRegistry);
+	private final ProxyManager<UUID> proxyManager = mock();
+	private final RemoteBucketBuilder<UUID> bucketBuilder = mock();
+	private final Cache<UUID, UUID> activePlanIdCache = Caffeine.newBuilder().build();
+	private final RateLimitingService rateLimitingService = new RateLimitingService(planCatalog, proxyManager,
+			activePlanIdCache, null, bucketConfigurationRegistry, null, null);
+
+	@Test
+	void bucketOfUnknownPlanShouldBeRejectedWithoutReloadingOnEveryCall() {
+		// configure datasource without the user's active plan
+		final var plan = mock(Plan.class);
+		when(plan.getId()).thenReturn(UUID.randomUUID());
+		when(plan.getLimitPerHour()).thenReturn(20);
+		when(planRepository.findAll()).thenReturn(List.of(plan));
+		final var userId = UUID.randomUUID();
+		activePlanIdCache.put(userId, UUID.randomUUID());
+
+		// invoke the bucket configuration supplier twice
+		final var configuration = bucketConfiguration(userId);
+		assertThatThrownBy(configuration::get).isInstanceOf(InvalidPlanException.class);
+		assertThatThrownBy(configuration::get).isInstanceOf(InvalidPlanException.class);
+
+		// verify lookups of the unknown plan-id share one throttled reload
+		verify(planRepository, times(1)).findAll();
+	}
+
+	@Test
+	void bucketOfPlanUnknownToRegistryShouldBeConfiguredAfterReload() {
+		// prepare plan record in datasource, not yet loaded by the catalog
+		final var planId = UUID.randomUUID();
+		final var plan = mock(Plan.class);
+		when(plan.getId()).thenReturn(planId);
+		when(plan.getLimitPerHour()).thenReturn(20);
+		when(planRepository.findAll()).thenReturn(List.of(plan));
+		final var userId = UUID.randomUUID();
+		activePlanIdCache.put(userId, planId);
+
+		// invoke the bucket configuration supplier
+		final var configuration = bucketConfiguration(userId).get();
+
+		// verify the configuration carries the plan's limit
+		assertThat(configuration).isSameAs(bucketConfigurationRegistry.plan(planId));
+		assertThat(configuration.getBandwidths()[0].getCapacity()).isEqualTo(20);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Supplier<BucketConfiguration> bucketConfiguration(final UUID userId) {
+		when(proxyManager.builder()).thenReturn(bucketBuilder);
+		rateLimitingService.getBucket(userId);
+		final ArgumentCaptor<Supplier<BucketConfiguration>> supplier = ArgumentCaptor.forClass(Supplier.class);
+		verify(bucketBuilder).build(eq(userId), supplier.capture());
+		return supplier.getValue();
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.ratemaster.overseer.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.ratemaster.overseer.configuration.OpenApiConfigurationProperties;
+import com.ratemaster.overseer.configuration.PublicEndpoint;
+
+class ApiEndpointSecurityInspectorTest {
+
+	private final RequestMappingHandlerMapping requestHandlerMapping = mock(RequestMappingHandlerMapping.class);
+	private final OpenApiConfigurationProperties openApiConfigurationProperties = new OpenApiConfigurationProperties();
+	private final RateLimitPolicyRegistry rateLimitPolicyRegistry = mock(RateLimitPolicyRegistry.class);
+	private final ApiEndpointSecurityInspector apiEndpointSecurityInspector = new ApiEndpointSecurityInspector(
+			requestHandlerMapping, openApiConfigurationProperties, rateLimitPolicyRegistry);
+
+	@BeforeEach
+	void setUp() throws NoSuchMethodException {
+		// register a public literal route, a public templated route and a private route
+		when(requestHandlerMapping.getHandlerMethods()).thenReturn(Map.of(
+				mapping(RequestMethod.POST, "/api/v1/login"), handler("publicEndpoint"),
+				mapping(RequestMethod.GET, "/api/v1/plans/{id}"), handler("publicEndpoint"),
+				mapping(RequestMethod.GET, "/api/v1/joke"), handler("privateEndpoint")));
+		when(rateLimitPolicyRegistry.resolve(anyString(), anyString())).thenReturn(RateLimitPolicyRegistry.Policy.DEFAULT);
+		openApiConfigurationProperties.getOpenApi().setEnabled(true);
+		apiEndpointSecurityInspector.init();
+	}
+
+	@Test
+	void shouldClassifyRequestsAgainstPublicRoutesOfTheirHttpMethod() {
+		// invoke method under test and verify
+		assertThat(apiEndpointSecurityInspector.isUnsecureRequest(new MockHttpServletRequest("POST", "/api/v1/login"))).isTrue();
+		assertThat(apiEndpointSecurityInspector.isUnsecureRequest(new MockHttpServletRequest("GET", "/api/v1/plans/42"))).isTrue();
+		assertThat(apiEndpointSecurityInspector.isUnsecureRequest(new MockHttpServletRequest("GET", "/swagger-ui/index.html"))).isTrue();
+		assertThat(apiEndpointSecurityInspector.isUnsecureRequest(new MockHttpServletRequest("GET", "/api/v1/login"))).isFalse();
+		assertThat(apiEndpointSecurityInspector.isUnsecureRequest(new MockHttpServletRequest("GET", "/api/v1/joke"))).isFalse();
+	}
+
+	@Test
+	void shouldClassifyEachRequestOnce() {
+		// simulating incoming HTTP request
+		final var request = new MockHttpServletRequest("GET", "/api/v1/joke");
+
+		// invoke method under test as both filters would
+		final var classification = apiEndpointSecurityInspector.classify(request);
+		final var sharedClassification = apiEndpointSecurityInspector.classify(request);
+
+		// verify the policy is resolved once and the classification shared
+		assertThat(sharedClassification).isSameAs(classification);
+		assertThat(classification.policy()).isEqualTo(RateLimitPolicyRegistry.Policy.DEFAULT);
+		verify(rateLimitPolicyRegistry, times(1)).resolve("GET", "/api/v1/joke");
+	}
+
+	private static RequestMappingInfo mapping(final RequestMethod method, final String path) {
+		final var options = new RequestMappingInfo.BuilderConfiguration();
+		options.setPatternParser(new PathPatternParser());
+		return RequestMappingInfo.paths(path).methods(method).options(options).build();
+	}
+
+	private static HandlerMethod handler(final String name) throws NoSuchMethodException {
+		return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+	}
+
+	static class Handlers {
+
+		@PublicEndpoint
+		public void publicEndpoint() {
+		}
+
+		public void privateEndpoint() {
+		}
+
+	}
+
+}
@@ -3,6 +3,7 @@ package com.ratemaster.overseer.utility;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -20,19 +21,20 @@ class AuthenticatedUserIdProviderTest {
 
 	@Test
 	void shouldExtractUserIdOfAuthenticatedUserFromSecurityPrincipal() {
-		// preparing security context to hold userId as principal
+		// preparing security context to hold authenticated principal
 		final var userId = UUID.randomUUID();
 		final var securityContext = mock(SecurityContext.class);
 		final var authentication = mock(Authentication.class);
-		when(authentication.getPrincipal()).thenReturn(userId);
+		when(authentication.getPrincipal()).thenReturn(new AuthenticatedPrincipal(userId, "acme"));
 		when(securityContext.getAuthentication()).thenReturn(authentication);
 		SecurityContextHolder.setContext(securityContext);
 
 		final var response = authenticatedUserIdProvider.getUserId();
 
 		assertThat(response).isInstanceOf(UUID.class).isEqualTo(userId);
-		verify(securityContext).getAuthentication();
-		verify(authentication).getPrincipal();
+		assertThat(authenticatedUserIdProvider.getTenantId()).isEqualTo("acme");
+		verify(securityContext, times(2)).getAuthentication();
+		verify(authentication, times(2)).getPrincipal();
 	}
 
 	@Test
@@ -42,7 +44,7 @@ class AuthenticatedUserIdProviderTest {
 	}
 
 	@Test
-	void shouldThrowIllegalStateExceptionWhenPrincipalNonUUID() {
+	void shouldThrowIllegalStateExceptionWhenPrincipalNotAuthenticatedPrincipal() {
 		// preparing security context to hold UserDetails as principal
 		final var userDetails = mock(UserDetails.class);
 		final var securityContext = mock(SecurityContext.class);
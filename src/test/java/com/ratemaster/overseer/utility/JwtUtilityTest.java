@@ -3,17 +3,23 @@ package com.ratemaster.overseer.utility;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.UUID;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.ratemaster.overseer.configuration.TokenConfigurationProperties;
 
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
 
 class JwtUtilityTest {
 
@@ -21,7 +27,15 @@ class JwtUtilityTest {
 
 	private final TokenConfigurationProperties tokenConfigurationProperties = mock(TokenConfigurationProperties.class);
 	private final static String issuer = "unit-test-issuer";
-	private final JwtUtility jwtUtility = new JwtUtility(issuer, tokenConfigurationProperties);
+	private final String secretKey = Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
+	private JwtUtility jwtUtility;
+
+	@BeforeEach
+	void setUp() {
+		when(tokenConfigurationProperties.getSecretKey()).thenReturn(secretKey);
+		when(tokenConfigurationProperties.getCacheSize()).thenReturn(100);
+		jwtUtility = new JwtUtility(issuer, tokenConfigurationProperties);
+	}
 
 	@Test
 	void shouldGenerateValidAccessTokenForUserEntityWithRequiredClaims() {
@@ -30,8 +44,6 @@ class JwtUtilityTest {
 
 		// configure token configuration
 		final var accessTokenValidity = 1;
-		final var secretKey = Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
-		when(tokenConfigurationProperties.getSecretKey()).thenReturn(secretKey);
 		when(tokenConfigurationProperties.getValidity()).thenReturn(accessTokenValidity);
 
 		// Generate access token for user entity
@@ -49,10 +61,61 @@ class JwtUtilityTest {
 		assertThat(extractedUserId).isNotNull().isInstanceOf(UUID.class).isEqualTo(userId);
 	}
 
+	@Test
+	void shouldAuthenticateUserAndTenantFromSingleVerification() {
+		// Prepare access token carrying a tenant claim
+		final var userId = UUID.randomUUID();
+		final var accessToken = Jwts.builder()
+				.issuer(issuer)
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.audience().add(userId.toString())
+				.and()
+				.claim("tenantId", "acme")
+				.signWith(Jwts.SIG.HS256.key().build(), Jwts.SIG.HS256)
+				.compact();
+		final var signedAccessToken = signWithConfiguredKey(userId, "acme");
+
+		// Tokens signed with a foreign key are rejected
+		assertThrows(JwtException.class, () -> jwtUtility.authenticate(accessToken));
+
+		// Authenticate the same token twice, with and without bearer prefix
+		final var principal = jwtUtility.authenticate(signedAccessToken);
+		final var cachedPrincipal = jwtUtility.authenticate("Bearer " + signedAccessToken);
+
+		// Assert both claims are extracted and the repeat is served from memory
+		assertThat(principal).isEqualTo(new AuthenticatedPrincipal(userId, "acme"));
+		assertThat(cachedPrincipal).isSameAs(principal);
+		verify(tokenConfigurationProperties, times(1)).getSecretKey();
+	}
+
+	@Test
+	void shouldRejectTamperedAccessToken() {
+		final var accessToken = signWithConfiguredKey(UUID.randomUUID(), null);
+		final var tamperedAccessToken = accessToken.substring(0, accessToken.length() - 2)
+				+ (accessToken.endsWith("AA") ? "BB" : "AA");
+
+		final var principal = jwtUtility.authenticate(accessToken);
+
+		assertThat(principal.tenantId()).isNull();
+		assertThrows(JwtException.class, () -> jwtUtility.authenticate(tamperedAccessToken));
+	}
+
 	@Test
 	void shouldThrowIllegalArgumentExceptionForNullArguments() {
 		assertThrows(IllegalArgumentException.class, () -> jwtUtility.getUserId(null));
 		assertThrows(IllegalArgumentException.class, () -> jwtUtility.generateAccessToken(null));
+		assertThrows(IllegalArgumentException.class, () -> jwtUtility.authenticate(null));
+	}
+
+	private String signWithConfiguredKey(final UUID userId, final String tenantId) {
+		return Jwts.builder()
+				.issuer(issuer)
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.audience().add(userId.toString())
+				.and()
+				.claim("tenantId", tenantId)
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)), Jwts.SIG.HS256)
+				.compact();
 	}
 
 }
\ No newline at end of file
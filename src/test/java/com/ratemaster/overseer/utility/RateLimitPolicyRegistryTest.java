@@ -0,0 +1,103 @@
+package com.ratemaster.overseer.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.ratemaster.overseer.configuration.BypassRateLimit;
+import com.ratemaster.overseer.configuration.RateLimit;
+
+class RateLimitPolicyRegistryTest {
+
+	private final RequestMappingHandlerMapping requestHandlerMapping = mock(RequestMappingHandlerMapping.class);
+	private final RateLimitPolicyRegistry registry = new RateLimitPolicyRegistry(requestHandlerMapping);
+
+	@BeforeEach
+	void setUp() throws NoSuchMethodException {
+		// register handlers of a literal, a bypassed and a templated route
+		when(requestHandlerMapping.getHandlerMethods()).thenReturn(Map.of(
+				mapping(RequestMethod.GET, "/api/v1/joke"), handler("plain"),
+				mapping(RequestMethod.PUT, "/api/v1/plan"), handler("bypassed"),
+				mapping(RequestMethod.POST, "/api/v1/report/{id}"), handler("limited")));
+		registry.init();
+	}
+
+	@Test
+	void shouldResolveAnnotatedPolicyOfTemplatedRoute() {
+		// invoke method under test
+		final var policy = registry.resolve(new MockHttpServletRequest("POST", "/api/v1/report/42"));
+
+		// verify the declared policy is resolved
+		assertThat(policy.route()).isEqualTo("POST /api/v1/report/{id}");
+		assertThat(policy.cost()).isEqualTo(3);
+		assertThat(policy.capacity()).isEqualTo(10);
+		assertThat(policy.window()).isEqualTo(Duration.ofMinutes(1));
+		assertThat(policy.key()).isEqualTo(RateLimit.Key.TENANT);
+	}
+
+	@Test
+	void shouldResolveBypassAndDefaultPolicies() {
+		// invoke method under test and verify
+		assertThat(registry.resolve(new MockHttpServletRequest("PUT", "/api/v1/plan")).bypassed()).isTrue();
+		assertThat(registry.resolve(new MockHttpServletRequest("GET", "/api/v1/joke")))
+				.isEqualTo(RateLimitPolicyRegistry.Policy.DEFAULT);
+		assertThat(registry.resolve(new MockHttpServletRequest("GET", "/api/v1/report/42")))
+				.isEqualTo(RateLimitPolicyRegistry.Policy.DEFAULT);
+	}
+
+	@Test
+	void shouldRejectZeroCostAtStartup() throws NoSuchMethodException {
+		// register a handler declaring a cost of 0
+		final var handlerMapping = mock(RequestMappingHandlerMapping.class);
+		when(handlerMapping.getHandlerMethods()).thenReturn(Map.of(
+				mapping(RequestMethod.POST, "/api/v1/free"), handler("free")));
+
+		// invoke method under test and verify the policy is refused
+		assertThatThrownBy(new RateLimitPolicyRegistry(handlerMapping)::init)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Invalid @RateLimit");
+	}
+
+	private static RequestMappingInfo mapping(final RequestMethod method, final String path) {
+		final var options = new RequestMappingInfo.BuilderConfiguration();
+		options.setPatternParser(new PathPatternParser());
+		return RequestMappingInfo.paths(path).methods(method).options(options).build();
+	}
+
+	private static HandlerMethod handler(final String name) throws NoSuchMethodException {
+		return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+	}
+
+	static class Handlers {
+
+		public void plain() {
+		}
+
+		@BypassRateLimit
+		public void bypassed() {
+		}
+
+		@RateLimit(cost = 3, capacity = 10, window = "1m", key = RateLimit.Key.TENANT)
+		public void limited() {
+		}
+
+		@RateLimit(cost = 0)
+		public void free() {
+		}
+
+	}
+
+}